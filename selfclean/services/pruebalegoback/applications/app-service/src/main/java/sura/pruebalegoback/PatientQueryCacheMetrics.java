@@ -0,0 +1,46 @@
+package sura.pruebalegoback;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import sura.pruebalegoback.usecase.patient.PatientQueryCache;
+
+/*
+ * Métricas de la caché de listados por ciudad y estado: aciertos y fallos (patients.query-cache.requests,
+ * por result) y resultados descartados por superar el tamaño máximo (patients.query-cache.oversized).
+ */
+class PatientQueryCacheMetrics implements PatientQueryCache.Listener {
+
+    private final Counter hits;
+    private final Counter misses;
+    private final Counter oversized;
+
+    PatientQueryCacheMetrics(MeterRegistry meterRegistry) {
+        this.hits = requests(meterRegistry, "hit");
+        this.misses = requests(meterRegistry, "miss");
+        this.oversized = Counter.builder("patients.query-cache.oversized")
+                .description("Listados no guardados por superar el tamaño máximo de resultado")
+                .register(meterRegistry);
+    }
+
+    @Override
+    public void hit() {
+        hits.increment();
+    }
+
+    @Override
+    public void miss() {
+        misses.increment();
+    }
+
+    @Override
+    public void oversized() {
+        oversized.increment();
+    }
+
+    private static Counter requests(MeterRegistry meterRegistry, String result) {
+        return Counter.builder("patients.query-cache.requests")
+                .description("Consultas de listados por ciudad y estado atendidas por la caché")
+                .tag("result", result)
+                .register(meterRegistry);
+    }
+}
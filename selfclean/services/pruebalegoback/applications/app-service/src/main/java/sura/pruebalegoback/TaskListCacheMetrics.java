@@ -0,0 +1,43 @@
+package sura.pruebalegoback;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import sura.pruebalegoback.usecase.todo.TaskListCache;
+
+import java.time.Duration;
+
+/*
+ * Métricas del caché de tareas: latencia de cada recarga (tasks.cache.refresh, por outcome) y
+ * antigüedad de las copias vencidas entregadas mientras se recarga (tasks.cache.staleness).
+ */
+class TaskListCacheMetrics implements TaskListCache.Listener {
+
+    private final Timer refreshSuccess;
+    private final Timer refreshFailure;
+    private final Timer staleness;
+
+    TaskListCacheMetrics(MeterRegistry meterRegistry) {
+        this.refreshSuccess = refreshTimer(meterRegistry, "success");
+        this.refreshFailure = refreshTimer(meterRegistry, "failure");
+        this.staleness = Timer.builder("tasks.cache.staleness")
+                .description("Antigüedad de la lista de tareas servida mientras se recarga")
+                .register(meterRegistry);
+    }
+
+    @Override
+    public void refreshed(Duration latency, boolean success) {
+        (success ? refreshSuccess : refreshFailure).record(latency);
+    }
+
+    @Override
+    public void staleServed(Duration age) {
+        staleness.record(age);
+    }
+
+    private static Timer refreshTimer(MeterRegistry meterRegistry, String outcome) {
+        return Timer.builder("tasks.cache.refresh")
+                .description("Latencia de recarga de la lista de tareas")
+                .tag("outcome", outcome)
+                .register(meterRegistry);
+    }
+}
@@ -1,11 +1,18 @@
 package sura.pruebalegoback;
 
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
 import org.reactivecommons.utils.ObjectMapper;
 import org.reactivecommons.utils.ObjectMapperImp;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import sura.pruebalegoback.domain.common.EventsGateway;
+import sura.pruebalegoback.domain.patient.gateway.DocumentNumberFilter;
+import sura.pruebalegoback.domain.patient.gateway.PatientChangeCounterGateway;
+import sura.pruebalegoback.domain.patient.gateway.PatientChangeFeed;
 import sura.pruebalegoback.domain.patient.gateway.PatientRepository;
+import sura.pruebalegoback.domain.patient.gateway.QueryPlanGateway;
 import sura.pruebalegoback.domain.patient.gateway.WeatherGateway;
 import sura.pruebalegoback.domain.todo.gateway.TaskToDoRepository;
 import sura.pruebalegoback.domain.user.gateway.UserGateway;
@@ -13,37 +20,70 @@ import sura.pruebalegoback.domain.user.gateway.UserScoreGateway;
 import sura.pruebalegoback.usecase.patient.*;
 import sura.pruebalegoback.usecase.todo.*;
 
+import java.time.Duration;
+
 @Configuration
 public class UseCaseConfig {
 
     @Bean
-    public CreateTasksUseCase createTasksUseCase(TaskToDoRepository tasks, EventsGateway eventGateway) {
-        return new CreateTasksUseCase(tasks, eventGateway);
+    public TaskListCache taskListCache(MeterRegistry meterRegistry,
+                                       @Value("${app.cache.tasks.fresh-for:30s}") Duration freshFor) {
+        TaskListCache cache = new TaskListCache(freshFor, new TaskListCacheMetrics(meterRegistry));
+        Gauge.builder("tasks.cache.age", cache, c -> c.age().toMillis())
+                .baseUnit("milliseconds")
+                .register(meterRegistry);
+        return cache;
     }
 
+    // Las escrituras de tareas pasan por InvalidatingTaskToDoRepository para invalidar el caché de findAll
     @Bean
-    public AssignTasksUseCase assignTasksUseCase(TaskToDoRepository tasks, UserGateway users, EventsGateway eventsGateway) {
-        return new AssignTasksUseCase(tasks, users, eventsGateway);
+    public CreateTasksUseCase createTasksUseCase(TaskToDoRepository tasks, TaskListCache taskListCache, EventsGateway eventGateway) {
+        return new CreateTasksUseCase(new InvalidatingTaskToDoRepository(tasks, taskListCache), eventGateway);
     }
 
     @Bean
-    public CompleteTasksUseCase completeTasksUseCase(TaskToDoRepository tasks, EventsGateway eventsGateway, UserScoreGateway userScoreGateway) {
-        return new CompleteTasksUseCase(tasks, eventsGateway, userScoreGateway);
+    public AssignTasksUseCase assignTasksUseCase(TaskToDoRepository tasks, TaskListCache taskListCache, UserGateway users, EventsGateway eventsGateway) {
+        return new AssignTasksUseCase(new InvalidatingTaskToDoRepository(tasks, taskListCache), users, eventsGateway);
     }
 
     @Bean
-    public ReAssignUserTasksUseCase reAssignUserTasksUseCase(TaskToDoRepository tasks) {
-        return new ReAssignUserTasksUseCase(tasks);
+    public CompleteTasksUseCase completeTasksUseCase(TaskToDoRepository tasks, TaskListCache taskListCache, EventsGateway eventsGateway, UserScoreGateway userScoreGateway) {
+        return new CompleteTasksUseCase(new InvalidatingTaskToDoRepository(tasks, taskListCache), eventsGateway, userScoreGateway);
     }
 
     @Bean
-    public QueryTasksUseCase queryTasksUseCase(TaskToDoRepository tasks, UserGateway usersGateway) {
-        return new QueryTasksUseCase(tasks, usersGateway);
+    public ReAssignUserTasksUseCase reAssignUserTasksUseCase(TaskToDoRepository tasks, TaskListCache taskListCache) {
+        return new ReAssignUserTasksUseCase(new InvalidatingTaskToDoRepository(tasks, taskListCache));
     }
 
     @Bean
-    public CreatePatientUseCase createPatientUseCase(PatientRepository patientRepository, EventsGateway eventsGateway) {
-        return new CreatePatientUseCase(patientRepository, eventsGateway);
+    public QueryTasksUseCase queryTasksUseCase(TaskToDoRepository tasks, UserGateway usersGateway, TaskListCache taskListCache) {
+        return new QueryTasksUseCase(tasks, usersGateway, taskListCache);
+    }
+
+    @Bean(destroyMethod = "close")
+    public PatientQueryCache patientQueryCache(MeterRegistry meterRegistry, PatientChangeFeed patientChangeFeed,
+                                               @Value("${app.cache.patient-queries.enabled:true}") boolean enabled,
+                                               @Value("${app.cache.patient-queries.max-entries:256}") int maxEntries,
+                                               @Value("${app.cache.patient-queries.max-result-size:2000}") int maxResultSize,
+                                               @Value("${app.cache.patient-queries.ttl:PT5M}") Duration ttl) {
+        if (!enabled) {
+            return PatientQueryCache.disabled();
+        }
+        PatientQueryCache cache = new PatientQueryCache(maxEntries, maxResultSize, ttl,
+                new PatientQueryCacheMetrics(meterRegistry));
+        Gauge.builder("patients.query-cache.size", cache, PatientQueryCache::size)
+                .register(meterRegistry);
+        cache.listen(patientChangeFeed);
+        return cache;
+    }
+
+    // Las escrituras de pacientes pasan por InvalidatingPatientRepository para invalidar los listados afectados
+    @Bean
+    public CreatePatientUseCase createPatientUseCase(PatientRepository patientRepository, PatientQueryCache patientQueryCache,
+                                                     EventsGateway eventsGateway, DocumentNumberFilter documentNumberFilter) {
+        return new CreatePatientUseCase(new InvalidatingPatientRepository(patientRepository, patientQueryCache),
+                eventsGateway, documentNumberFilter);
     }
 
     @Bean
@@ -52,18 +92,43 @@ public class UseCaseConfig {
     }
 
     @Bean
-    public QueryPatientsUseCase queryPatientsUseCase(PatientRepository patientRepository) {
-        return new QueryPatientsUseCase(patientRepository);
+    public BatchGetPatientsUseCase batchGetPatientsUseCase(PatientRepository patientRepository,
+                                                           @Value("${app.patients.batch-get.max-ids:500}") int maxIds) {
+        return new BatchGetPatientsUseCase(patientRepository, maxIds);
+    }
+
+    @Bean
+    public QueryPatientsUseCase queryPatientsUseCase(PatientRepository patientRepository,
+                                                     DocumentNumberFilter documentNumberFilter,
+                                                     PatientQueryCache patientQueryCache) {
+        return new QueryPatientsUseCase(patientRepository, documentNumberFilter, patientQueryCache);
+    }
+
+    @Bean
+    public GetPatientsChangeCounterUseCase getPatientsChangeCounterUseCase(PatientChangeCounterGateway changeCounterGateway) {
+        return new GetPatientsChangeCounterUseCase(changeCounterGateway);
+    }
+
+    @Bean
+    public UpdatePatientUseCase updatePatientUseCase(PatientRepository patientRepository, PatientQueryCache patientQueryCache) {
+        return new UpdatePatientUseCase(new InvalidatingPatientRepository(patientRepository, patientQueryCache));
+    }
+
+    @Bean
+    public DeletePatientUseCase deletePatientUseCase(PatientRepository patientRepository, PatientQueryCache patientQueryCache,
+                                                     EventsGateway eventsGateway) {
+        return new DeletePatientUseCase(new InvalidatingPatientRepository(patientRepository, patientQueryCache), eventsGateway);
     }
 
     @Bean
-    public UpdatePatientUseCase updatePatientUseCase(PatientRepository patientRepository) {
-        return new UpdatePatientUseCase(patientRepository);
+    public ArchiveInactivePatientsUseCase archiveInactivePatientsUseCase(PatientRepository patientRepository,
+                                                                         PatientQueryCache patientQueryCache) {
+        return new ArchiveInactivePatientsUseCase(new InvalidatingPatientRepository(patientRepository, patientQueryCache));
     }
 
     @Bean
-    public DeletePatientUseCase deletePatientUseCase(PatientRepository patientRepository) {
-        return new DeletePatientUseCase(patientRepository);
+    public ExplainPatientQueryUseCase explainPatientQueryUseCase(QueryPlanGateway queryPlanGateway) {
+        return new ExplainPatientQueryUseCase(queryPlanGateway);
     }
 
     @Bean
@@ -0,0 +1,41 @@
+package sura.pruebalegoback.jobs;
+
+import lombok.RequiredArgsConstructor;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.scheduling.annotation.EnableScheduling;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.Mono;
+import sura.pruebalegoback.usecase.patient.ArchiveInactivePatientsUseCase;
+
+/*
+ * Job programado que mueve a patients_archive los pacientes inactivos por más de N días.
+ * Spring se suscribe al Mono en cada disparo del cron; cada lote es una sentencia independiente.
+ */
+@Component
+@EnableScheduling
+@RequiredArgsConstructor
+@ConditionalOnProperty(name = "app.archive.enabled", havingValue = "true")
+public class PatientArchiveJob {
+
+    private static final Logger log = LoggerFactory.getLogger(PatientArchiveJob.class);
+
+    private final ArchiveInactivePatientsUseCase archiveInactivePatientsUseCase;
+
+    @Value("${app.archive.inactive-days:365}")
+    private int inactiveDays;
+
+    @Value("${app.archive.chunk-size:500}")
+    private int chunkSize;
+
+    @Scheduled(cron = "${app.archive.cron:0 0 3 * * *}")
+    public Mono<Void> archiveInactivePatients() {
+        log.info("Ejecutando job de archivado de pacientes inactivos");
+        return archiveInactivePatientsUseCase.archiveInactivePatients(inactiveDays, chunkSize)
+                .doOnError(error -> log.error("Job de archivado fallido: {}", error.getMessage(), error))
+                .then();
+    }
+}
@@ -25,6 +25,8 @@ public class Patient {
      private final String state;
      private final LocalDateTime admissionDate;
      private final boolean active;
+     private final LocalDateTime deactivatedAt;
+     private final Long version;
 
 
    public String getFullName(){
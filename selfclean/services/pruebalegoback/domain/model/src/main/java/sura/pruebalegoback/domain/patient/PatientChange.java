@@ -0,0 +1,22 @@
+package sura.pruebalegoback.domain.patient;
+
+/**
+ * Cambio confirmado sobre un paciente, visto por todas las instancias.
+ * {@code version} es la versión mínima vigente tras el cambio (en un borrado, la eliminada + 1).
+ * {@code city}/{@code active} son los valores tras el cambio y {@code previousCity}/{@code previousActive}
+ * los anteriores; son nulos cuando no aplican (altas sin valores previos, borrados sin valores nuevos).
+ * {@link Type#RESYNC} indica que pudieron perderse cambios (p. ej. al reconectar) y todo debe revalidarse.
+ */
+public record PatientChange(Type type, String patientId, long version, String documentNumber,
+                            String city, Boolean active, String previousCity, Boolean previousActive) {
+
+    public enum Type { INSERT, UPDATE, DELETE, RESYNC }
+
+    public PatientChange(Type type, String patientId, long version, String documentNumber) {
+        this(type, patientId, version, documentNumber, null, null, null, null);
+    }
+
+    public static PatientChange resync() {
+        return new PatientChange(Type.RESYNC, null, 0L, null);
+    }
+}
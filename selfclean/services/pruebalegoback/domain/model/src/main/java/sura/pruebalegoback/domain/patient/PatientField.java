@@ -0,0 +1,77 @@
+package sura.pruebalegoback.domain.patient;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.EnumSet;
+import java.util.Optional;
+import java.util.Set;
+
+/**
+ * Propiedades de un paciente que se pueden pedir por separado ({@code ?fields=}). Las derivadas
+ * ({@link #FULL_NAME}, {@link #AGE}) no se guardan: se calculan a partir de las que indican.
+ */
+public enum PatientField {
+    ID("id"),
+    FIRST_NAME("firstName"),
+    LAST_NAME("lastName"),
+    DOCUMENT_NUMBER("documentNumber"),
+    DOCUMENT_TYPE("documentType"),
+    BIRTH_DATE("birthDate"),
+    ADDRESS("address"),
+    PHONE("phone"),
+    EMAIL("email"),
+    CITY("city"),
+    STATE("state"),
+    ADMISSION_DATE("admissionDate"),
+    ACTIVE("active"),
+    FULL_NAME("fullName", FIRST_NAME, LAST_NAME),
+    AGE("age", BIRTH_DATE);
+
+    public static final Set<PatientField> ALL = Collections.unmodifiableSet(EnumSet.allOf(PatientField.class));
+
+    private final String property;
+    private final PatientField[] derivedFrom;
+
+    PatientField(String property, PatientField... derivedFrom) {
+        this.property = property;
+        this.derivedFrom = derivedFrom;
+    }
+
+    public String getProperty() {
+        return property;
+    }
+
+    public boolean isDerived() {
+        return derivedFrom.length > 0;
+    }
+
+    public static Optional<PatientField> fromProperty(String property) {
+        return Arrays.stream(values())
+                .filter(field -> field.property.equalsIgnoreCase(property))
+                .findFirst();
+    }
+
+    // Propiedades guardadas que hay que leer para responder las pedidas; id siempre se lee
+    public static Set<PatientField> storedFor(Set<PatientField> requested) {
+        EnumSet<PatientField> stored = EnumSet.of(ID);
+        for (PatientField field : requested) {
+            if (field.isDerived()) {
+                stored.addAll(Arrays.asList(field.derivedFrom));
+            } else {
+                stored.add(field);
+            }
+        }
+        return stored;
+    }
+
+    public static Set<PatientField> with(Set<PatientField> fields, PatientField required) {
+        EnumSet<PatientField> result = EnumSet.copyOf(fields);
+        result.add(required);
+        return result;
+    }
+
+    // null o todas las propiedades: no hay nada que recortar
+    public static boolean isProjection(Set<PatientField> fields) {
+        return fields != null && !fields.containsAll(ALL);
+    }
+}
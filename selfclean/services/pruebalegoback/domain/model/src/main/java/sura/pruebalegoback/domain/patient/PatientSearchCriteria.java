@@ -0,0 +1,70 @@
+package sura.pruebalegoback.domain.patient;
+
+import lombok.Builder;
+import lombok.Data;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+
+/**
+ * Filtros opcionales de la búsqueda combinada de pacientes. Un campo nulo (o lista vacía) no filtra.
+ */
+@Data
+@Builder(toBuilder = true)
+public class PatientSearchCriteria {
+
+    private final List<String> cities;
+    private final Boolean active;
+    private final Integer minAge;
+    private final Integer maxAge;
+    private final String documentType;
+    private final LocalDateTime admittedFrom;
+    private final LocalDateTime admittedTo;
+    private final SortField sortBy;
+    private final boolean descending;
+    private final Integer limit;
+
+    // Propiedades a devolver; null devuelve todas
+    private final Set<PatientField> fields;
+
+    /**
+     * Límite inferior de birth_date equivalente a {@code maxAge}, con la misma definición de edad que
+     * {@link Patient#getAge()} (diferencia de años), para poder filtrar por columna en lugar de calcular la edad.
+     */
+    public LocalDate bornOnOrAfter() {
+        return maxAge == null ? null : LocalDate.of(LocalDate.now().getYear() - maxAge, 1, 1);
+    }
+
+    // Límite superior (exclusivo) de birth_date equivalente a minAge
+    public LocalDate bornBefore() {
+        return minAge == null ? null : LocalDate.of(LocalDate.now().getYear() - minAge + 1, 1, 1);
+    }
+
+    // Únicos órdenes permitidos: columnas indexadas o acotadas por los filtros
+    public enum SortField {
+        ADMISSION_DATE("admissionDate"),
+        LAST_NAME("lastName"),
+        BIRTH_DATE("birthDate"),
+        CITY("city");
+
+        private final String property;
+
+        SortField(String property) {
+            this.property = property;
+        }
+
+        public String getProperty() {
+            return property;
+        }
+
+        public static Optional<SortField> fromProperty(String property) {
+            return Arrays.stream(values())
+                    .filter(field -> field.property.equalsIgnoreCase(property) || field.name().equalsIgnoreCase(property))
+                    .findFirst();
+        }
+    }
+}
@@ -0,0 +1,26 @@
+package sura.pruebalegoback.domain.patient.events;
+
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+import sura.pruebalegoback.domain.common.Event;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * Lote de pacientes activados o desactivados por una operación masiva.
+ * Se emite un evento por lote en lugar de uno por paciente.
+ */
+@Getter
+@RequiredArgsConstructor
+public class PatientsStatusChanged implements Event {
+
+    private final List<String> patientIds;
+    private final boolean active;
+    private final LocalDateTime changedAt;
+
+    @Override
+    public String name() {
+        return "PATIENTS_STATUS_CHANGED";
+    }
+}
@@ -0,0 +1,13 @@
+package sura.pruebalegoback.domain.patient.ex;
+
+/**
+ * El paciente fue modificado por otra petición: la versión esperada ya no es la vigente.
+ */
+public class PatientVersionConflictException extends PatientBusinessException {
+
+    public static final String CODE = "PATIENT_VERSION_CONFLICT";
+
+    public PatientVersionConflictException(String id, Long expectedVersion) {
+        super("El paciente " + id + " fue modificado por otra petición (versión esperada: " + expectedVersion + ")", CODE);
+    }
+}
@@ -0,0 +1,27 @@
+package sura.pruebalegoback.domain.patient.gateway;
+
+/**
+ * Conjunto probabilístico de números de documento registrados. {@code mightContain == false}
+ * garantiza que el documento no existe; {@code true} solo indica que puede existir y hay que consultar.
+ */
+public interface DocumentNumberFilter {
+
+    boolean mightContain(String documentNumber);
+
+    void add(String documentNumber);
+
+    // Sin filtro: toda consulta va a la base de datos
+    static DocumentNumberFilter alwaysCheck() {
+        return new DocumentNumberFilter() {
+            @Override
+            public boolean mightContain(String documentNumber) {
+                return true;
+            }
+
+            @Override
+            public void add(String documentNumber) {
+                // nada que registrar
+            }
+        };
+    }
+}
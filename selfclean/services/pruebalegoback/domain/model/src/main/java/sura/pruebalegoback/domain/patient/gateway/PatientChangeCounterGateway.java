@@ -0,0 +1,9 @@
+package sura.pruebalegoback.domain.patient.gateway;
+
+import reactor.core.publisher.Mono;
+
+public interface PatientChangeCounterGateway {
+
+    // Valor que cambia con cada escritura confirmada sobre los pacientes
+    Mono<Long> current();
+}
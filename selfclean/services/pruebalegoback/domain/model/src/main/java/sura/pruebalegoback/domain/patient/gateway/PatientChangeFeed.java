@@ -0,0 +1,10 @@
+package sura.pruebalegoback.domain.patient.gateway;
+
+import reactor.core.publisher.Flux;
+import sura.pruebalegoback.domain.patient.PatientChange;
+
+public interface PatientChangeFeed {
+
+    // Flujo compartido y sin fin; emite RESYNC cada vez que (re)establece la suscripción
+    Flux<PatientChange> changes();
+}
@@ -4,15 +4,61 @@ package sura.pruebalegoback.domain.patient.gateway;
 import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
 import sura.pruebalegoback.domain.patient.Patient;
+import sura.pruebalegoback.domain.patient.PatientField;
+import sura.pruebalegoback.domain.patient.PatientSearchCriteria;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.Set;
 
 public interface PatientRepository {
 
     Mono<Patient> save(Patient patient);
     Mono<Patient> findById(String id);
+
+    // Una sola consulta para todos los ids; los inexistentes simplemente no aparecen en el resultado
+    Flux<Patient> findAllByIds(Collection<String> ids);
     Flux<Patient> findAll();
+
+    /**
+     * Cada elemento es un paciente ya serializado como JSON UTF-8 por la base de datos,
+     * con las mismas propiedades que expone la API. Pensado para listados masivos sin mapeo en la JVM.
+     */
+    Flux<byte[]> findAllAsJson();
     Flux<Patient> findByActive(boolean active);
     Flux<Patient> findByDocumentNumber(String documentNumber);
     Flux<Patient> findByCity(String city);
+    Flux<Patient> findByAdmissionDateBetween(LocalDateTime from, LocalDateTime to);
+
+    /**
+     * Mismos listados leyendo solo las columnas necesarias para {@code fields} (ver {@link PatientField#storedFor}).
+     * Las propiedades no pedidas quedan sin valor en los pacientes devueltos.
+     */
+    Flux<Patient> findAll(Set<PatientField> fields);
+    Flux<Patient> findByActive(boolean active, Set<PatientField> fields);
+    Flux<Patient> findByCity(String city, Set<PatientField> fields);
+    Flux<Patient> findByAdmissionDateBetween(LocalDateTime from, LocalDateTime to, Set<PatientField> fields);
+
+    // Todos los filtros presentes en una sola consulta parametrizada, con orden y límite aplicados en la base de datos
+    Flux<Patient> search(PatientSearchCriteria criteria);
+    Mono<Long> countAll();
+    Mono<Long> countByCity(String city);
+
+    /**
+     * Estimaciones a partir de las estadísticas del planificador: no recorren la tabla y su
+     * precisión depende de qué tan reciente sea el último ANALYZE.
+     */
+    Mono<Long> estimateCountAll();
+    Mono<Long> estimateCountByCity(String city);
     Mono<Void> deleteById(String id);
     Mono<Patient> update(Patient patient);
+
+    /**
+     * Cambian el estado de todos los pacientes seleccionados en una sola sentencia y devuelven los ids
+     * afectados. Los que ya tenían el estado pedido no se modifican ni se devuelven.
+     */
+    Flux<String> updateActiveByIds(Collection<String> ids, boolean active);
+    Flux<String> updateActiveByCity(String city, boolean active);
+    Flux<String> archiveInactiveSince(LocalDateTime deactivatedBefore, int limit);
+    Mono<Patient> findArchivedById(String id);
 }
@@ -0,0 +1,13 @@
+package sura.pruebalegoback.domain.patient.gateway;
+
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+public interface QueryPlanGateway {
+
+    // Nombres de las consultas de solo lectura que admiten EXPLAIN ANALYZE
+    Flux<String> explainableQueries();
+
+    // Plan real (EXPLAIN ANALYZE, formato JSON) de la consulta con sus parámetros de ejemplo
+    Mono<String> explainAnalyze(String queryName);
+}
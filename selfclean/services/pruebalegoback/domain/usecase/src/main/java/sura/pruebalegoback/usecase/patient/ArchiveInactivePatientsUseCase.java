@@ -0,0 +1,38 @@
+package sura.pruebalegoback.usecase.patient;
+
+import lombok.RequiredArgsConstructor;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import reactor.core.publisher.Mono;
+import sura.pruebalegoback.domain.patient.gateway.PatientRepository;
+
+import java.time.LocalDateTime;
+
+@RequiredArgsConstructor
+public class ArchiveInactivePatientsUseCase {
+
+    private static final Logger log = LoggerFactory.getLogger(ArchiveInactivePatientsUseCase.class);
+    private final PatientRepository patientRepository;
+
+    /**
+     * Mueve al archivo los pacientes desactivados hace más de {@code inactiveDays} días,
+     * en lotes de {@code chunkSize} para mantener cortas las transacciones.
+     * Termina cuando un lote devuelve menos filas que el tamaño solicitado.
+     */
+    public Mono<Long> archiveInactivePatients(int inactiveDays, int chunkSize) {
+        if (inactiveDays < 0 || chunkSize <= 0) {
+            return Mono.error(new IllegalArgumentException("inactiveDays debe ser >= 0 y chunkSize > 0"));
+        }
+
+        LocalDateTime deactivatedBefore = LocalDateTime.now().minusDays(inactiveDays);
+        log.info("Archivando pacientes inactivos desde antes de {} en lotes de {}", deactivatedBefore, chunkSize);
+
+        return Mono.defer(() -> patientRepository.archiveInactiveSince(deactivatedBefore, chunkSize).count())
+                .doOnNext(moved -> log.debug("Lote archivado: {} pacientes", moved))
+                .repeat()
+                .takeUntil(moved -> moved < chunkSize)
+                .reduce(0L, Long::sum)
+                .doOnNext(total -> log.info("Archivado completado. Total de pacientes archivados: {}", total))
+                .doOnError(error -> log.error("Error al archivar pacientes inactivos: {}", error.getMessage()));
+    }
+}
@@ -0,0 +1,75 @@
+package sura.pruebalegoback.usecase.patient;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import reactor.core.publisher.Mono;
+import sura.pruebalegoback.domain.patient.Patient;
+import sura.pruebalegoback.domain.patient.ex.PatientBusinessException;
+import sura.pruebalegoback.domain.patient.gateway.PatientRepository;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+public class BatchGetPatientsUseCase {
+
+    private static final Logger log = LoggerFactory.getLogger(BatchGetPatientsUseCase.class);
+    private final PatientRepository patientRepository;
+    private final int maxIds;
+
+    public BatchGetPatientsUseCase(PatientRepository patientRepository, int maxIds) {
+        this.patientRepository = patientRepository;
+        this.maxIds = maxIds;
+    }
+
+    /**
+     * Recupera varios pacientes con una sola consulta. Los encontrados se devuelven en el orden
+     * solicitado; los ids duplicados se consultan una vez. Los pacientes archivados se reportan como faltantes.
+     */
+    public Mono<BatchResult> getPatients(Collection<String> ids) {
+        if (ids == null || ids.isEmpty()) {
+            return Mono.error(new PatientBusinessException("Debe indicar al menos un id de paciente"));
+        }
+        if (ids.stream().anyMatch(id -> id == null || id.isBlank())) {
+            return Mono.error(new PatientBusinessException("Los ids de paciente no pueden estar vacíos"));
+        }
+
+        Set<String> requested = new LinkedHashSet<>(ids);
+        if (requested.size() > maxIds) {
+            return Mono.error(new PatientBusinessException(
+                    "Se permiten como máximo " + maxIds + " ids por consulta; se recibieron " + requested.size()));
+        }
+        log.info("Consultando {} pacientes por lote", requested.size());
+
+        return patientRepository.findAllByIds(requested)
+                .collect(Collectors.toMap(Patient::getId, Function.identity(), (first, second) -> first))
+                .map(byId -> toResult(requested, byId))
+                .doOnNext(result -> log.info("Lote consultado: {} encontrados, {} faltantes",
+                        result.found().size(), result.missing().size()))
+                .doOnError(error -> log.error("Error al consultar pacientes por lote: {}", error.getMessage()));
+    }
+
+    private BatchResult toResult(Set<String> requested, Map<String, Patient> byId) {
+        List<Patient> found = new ArrayList<>(byId.size());
+        List<String> missing = new ArrayList<>();
+        for (String id : requested) {
+            Patient patient = byId.get(id);
+            if (patient != null) {
+                found.add(patient);
+            } else {
+                missing.add(id);
+            }
+        }
+        return new BatchResult(found, missing);
+    }
+
+    public record BatchResult(
+            List<Patient> found,
+            List<String> missing
+    ){}
+}
@@ -1,8 +1,5 @@
 package sura.pruebalegoback.usecase.patient;
 
-
-import lombok.RequiredArgsConstructor;
-
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import reactor.core.publisher.Mono;
@@ -10,6 +7,8 @@ import sura.pruebalegoback.domain.common.EventsGateway;
 import sura.pruebalegoback.domain.patient.Patient;
 import sura.pruebalegoback.domain.patient.PatientFactory;
 import sura.pruebalegoback.domain.patient.events.PatientCreated;
+import sura.pruebalegoback.domain.patient.ex.PatientBusinessException;
+import sura.pruebalegoback.domain.patient.gateway.DocumentNumberFilter;
 import sura.pruebalegoback.domain.patient.gateway.PatientRepository;
 
 import java.time.LocalDateTime;
@@ -18,13 +17,24 @@ import java.time.LocalDateTime;
 import static sura.pruebalegoback.domain.common.UniqueIDGenerator.uuid;
 
 
-@RequiredArgsConstructor
 public class CreatePatientUseCase {
 
     private static final Logger log = LoggerFactory.getLogger(CreatePatientUseCase.class);
 
     private final PatientRepository patientRepository;
     private final EventsGateway eventsGateway;
+    private final DocumentNumberFilter documentNumberFilter;
+
+    public CreatePatientUseCase(PatientRepository patientRepository, EventsGateway eventsGateway) {
+        this(patientRepository, eventsGateway, DocumentNumberFilter.alwaysCheck());
+    }
+
+    public CreatePatientUseCase(PatientRepository patientRepository, EventsGateway eventsGateway,
+                                DocumentNumberFilter documentNumberFilter) {
+        this.patientRepository = patientRepository;
+        this.eventsGateway = eventsGateway;
+        this.documentNumberFilter = documentNumberFilter;
+    }
 
     public Mono<Patient>createPatient(
             String firstName,
@@ -44,8 +54,10 @@ public class CreatePatientUseCase {
                 .flatMap(id -> PatientFactory.createPatient(id,firstName,lastName,documentNumber,
                         documentType,birthDate,address,phone,email,city,state))
                 .doOnNext(patient -> log.debug("Paciente validado: {}", patient.getId()))
+                .flatMap(this::ensureDocumentIsNew)
                 .flatMap(patientRepository::save)
                 .doOnNext(patient -> log.debug("Paciente guardado exitosamente: {}", patient.getId()))
+                .doOnNext(patient -> documentNumberFilter.add(patient.getDocumentNumber()))
                 .flatMap(this::publishPatienteCreatedEvent)
                 .doOnError(error -> log.error("Error al crear  paciente: {}", error.getMessage(), error));
 
@@ -53,6 +65,22 @@ public class CreatePatientUseCase {
 
     }
 
+    // El documento se identifica solo por su número, sin importar el tipo: la misma regla del filtro y del índice
+    // único uq_patients_document_number. Un número que el filtro no conoce seguro no existe: no hace falta
+    // consultar la base de datos. Es solo un atajo: el índice resuelve las altas concurrentes y el repositorio
+    // lo informa con el mismo DUPLICATE_DOCUMENT
+    private Mono<Patient> ensureDocumentIsNew(Patient patient) {
+        if (!documentNumberFilter.mightContain(patient.getDocumentNumber())) {
+            log.debug("Documento {} descartado por el filtro, sin consulta de duplicados", patient.getDocumentNumber());
+            return Mono.just(patient);
+        }
+        return patientRepository.findByDocumentNumber(patient.getDocumentNumber())
+                .hasElements()
+                .flatMap(exists -> exists
+                        ? Mono.error(PatientBusinessException.Type.DUPLICATE_DOCUMENT.build())
+                        : Mono.just(patient));
+    }
+
     private Mono<Patient> publishPatienteCreatedEvent(Patient patient) {
         return eventsGateway.emit(new PatientCreated(patient, LocalDateTime.now()))
                 .doOnSuccess(v -> log.info("Evento PatientCreated publicado para paciente: {}", patient.getId()))
@@ -3,16 +3,27 @@ package sura.pruebalegoback.usecase.patient;
 import lombok.RequiredArgsConstructor;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
+import reactor.core.publisher.Sinks;
+import sura.pruebalegoback.domain.common.EventsGateway;
 import sura.pruebalegoback.domain.patient.Patient;
+import sura.pruebalegoback.domain.patient.events.PatientsStatusChanged;
 import sura.pruebalegoback.domain.patient.ex.PatientBusinessException;
 import sura.pruebalegoback.domain.patient.gateway.PatientRepository;
 
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+
 @RequiredArgsConstructor
 public class DeletePatientUseCase {
 
     private static final Logger log = LoggerFactory.getLogger(DeletePatientUseCase.class);
+    static final int MAX_BULK_IDS = 1000;
+    static final int EVENT_BATCH_SIZE = 500;
     private final PatientRepository patientRepository;
+    private final EventsGateway eventsGateway;
 
 
     public Mono<Void>deletePatient(String id){
@@ -42,7 +53,7 @@ public class DeletePatientUseCase {
                 .switchIfEmpty(Mono.error(
                         PatientBusinessException.Type.PATIENT_ALREADY_INACTIVE.build()
                 ))
-                .map(patient -> patient.toBuilder().active(false).build())
+                .map(patient -> patient.toBuilder().active(false).deactivatedAt(LocalDateTime.now()).build())
                 .flatMap(patientRepository::update)
                 .doOnNext(patient -> log.info("Paciente desactivado"))
                 .onErrorResume(PatientBusinessException.class, Mono::error)
@@ -62,9 +73,78 @@ public class DeletePatientUseCase {
                 .switchIfEmpty(Mono.error(PatientBusinessException.Type.PATIENT_NOT_FOUND.build()))
                 .filter(patient -> !patient.isActive())
                 .switchIfEmpty(Mono.error(new PatientBusinessException("El paciente ya está activo")))
-                .map(patient -> patient.toBuilder().active(true).build())
+                .map(patient -> patient.toBuilder().active(true).deactivatedAt(null).build())
                 .flatMap(patientRepository::update)
                 .doOnNext(patient -> log.info("Paciente reactivado exitosamente: {}", patient.getId()));
     }
 
+    public Flux<String> deactivatePatients(Collection<String> ids) {
+        return changeStatusByIds(ids, false);
+    }
+
+    public Flux<String> reactivatePatients(Collection<String> ids) {
+        return changeStatusByIds(ids, true);
+    }
+
+    public Flux<String> deactivatePatientsByCity(String city) {
+        return changeStatusByCity(city, false);
+    }
+
+    public Flux<String> reactivatePatientsByCity(String city) {
+        return changeStatusByCity(city, true);
+    }
+
+    private Flux<String> changeStatusByIds(Collection<String> ids, boolean active) {
+        if (ids == null || ids.isEmpty() || ids.stream().anyMatch(id -> id == null || id.isBlank())) {
+            return Flux.error(new PatientBusinessException("Debe indicar ids de paciente válidos"));
+        }
+        if (ids.size() > MAX_BULK_IDS) {
+            return Flux.error(new PatientBusinessException(
+                    "Se permiten como máximo " + MAX_BULK_IDS + " ids por operación masiva"));
+        }
+        log.info("Cambio masivo de estado (activo={}) para {} pacientes", active, ids.size());
+        return publishInBatches(patientRepository.updateActiveByIds(ids, active), active);
+    }
+
+    private Flux<String> changeStatusByCity(String city, boolean active) {
+        if (city == null || city.isBlank()) {
+            return Flux.error(new PatientBusinessException("La ciudad es obligatoria"));
+        }
+        log.info("Cambio masivo de estado (activo={}) para los pacientes de {}", active, city);
+        return publishInBatches(patientRepository.updateActiveByCity(city, active), active);
+    }
+
+    /*
+     * El UPDATE ... RETURNING es una sola sentencia en autocommit: se confirma entera aunque el cliente se
+     * desconecte, y si falla no se confirma nada. Por eso los eventos se publican solo después de leer todos los
+     * ids afectados (la sentencia terminó y quedó confirmada), y la operación corre en una suscripción propia
+     * que la cancelación del cliente no interrumpe: este solo deja de recibir los ids.
+     */
+    private Flux<String> publishInBatches(Flux<String> affectedIds, boolean active) {
+        return Flux.defer(() -> {
+            Sinks.One<List<String>> completed = Sinks.one();
+            affectedIds
+                    .collectList()
+                    .flatMap(ids -> Flux.fromIterable(ids)
+                            .buffer(EVENT_BATCH_SIZE)
+                            .concatMap(batch -> publishStatusChanged(batch, active))
+                            .then(Mono.just(ids)))
+                    .subscribe(completed::tryEmitValue, error -> {
+                        log.error("Error en el cambio masivo de estado: {}", error.getMessage());
+                        completed.tryEmitError(error);
+                    });
+            return completed.asMono().flatMapMany(Flux::fromIterable);
+        });
+    }
+
+    private Mono<Void> publishStatusChanged(List<String> batch, boolean active) {
+        return eventsGateway.emit(new PatientsStatusChanged(List.copyOf(batch), active, LocalDateTime.now()))
+                .doOnSuccess(v -> log.info("Evento PatientsStatusChanged publicado para {} pacientes", batch.size()))
+                .onErrorResume(error -> {
+                    // El cambio ya está confirmado en la base de datos; igual que en la creación, no se revierte
+                    log.warn("Error al publicar PatientsStatusChanged para {} pacientes: {}", batch.size(), error.getMessage());
+                    return Mono.empty();
+                });
+    }
+
 }
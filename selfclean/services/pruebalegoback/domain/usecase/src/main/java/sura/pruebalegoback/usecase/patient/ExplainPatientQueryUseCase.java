@@ -0,0 +1,29 @@
+package sura.pruebalegoback.usecase.patient;
+
+import lombok.RequiredArgsConstructor;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import sura.pruebalegoback.domain.patient.ex.PatientBusinessException;
+import sura.pruebalegoback.domain.patient.gateway.QueryPlanGateway;
+
+@RequiredArgsConstructor
+public class ExplainPatientQueryUseCase {
+
+    private static final Logger log = LoggerFactory.getLogger(ExplainPatientQueryUseCase.class);
+    private final QueryPlanGateway queryPlanGateway;
+
+    public Flux<String> getExplainableQueries() {
+        return queryPlanGateway.explainableQueries();
+    }
+
+    public Mono<String> explain(String queryName) {
+        if (queryName == null || queryName.isBlank()) {
+            return Mono.error(new PatientBusinessException("El nombre de la consulta es obligatorio", "UNKNOWN_QUERY"));
+        }
+        return queryPlanGateway.explainAnalyze(queryName)
+                .doOnSuccess(plan -> log.info("Plan de ejecución obtenido para {}", queryName))
+                .doOnError(error -> log.error("Error al obtener el plan de {}: {}", queryName, error.getMessage()));
+    }
+}
@@ -21,6 +21,7 @@ public class GetPatientByIdUseCase {
         return patientRepository.findById(id)
                 .doOnNext(patient -> log.debug("Paciente encontrado: {} {}",
                         patient.getFirstName(), patient.getLastName()))
+                .switchIfEmpty(Mono.defer(() -> findInArchive(id)))
                 .switchIfEmpty(Mono.defer(()->{
                     log.warn("Paciente no encontrado");
                     return  Mono.error(PatientBusinessException.Type.PATIENT_NOT_FOUND.build());
@@ -37,6 +38,13 @@ public class GetPatientByIdUseCase {
                 });
     }
 
+    // Los pacientes inactivos por mucho tiempo se mueven a patients_archive;
+    // se consultan sólo cuando no existen en la tabla principal.
+    private Mono<Patient> findInArchive(String id) {
+        return patientRepository.findArchivedById(id)
+                .doOnNext(patient -> log.debug("Paciente {} recuperado desde el archivo", patient.getId()));
+    }
+
     //Demuestra: switchIfEmpty, Mono.defer, onErrorResume
 
 }
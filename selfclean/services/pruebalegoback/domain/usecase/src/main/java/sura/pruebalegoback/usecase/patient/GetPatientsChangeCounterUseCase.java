@@ -0,0 +1,27 @@
+package sura.pruebalegoback.usecase.patient;
+
+import lombok.RequiredArgsConstructor;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import reactor.core.publisher.Mono;
+import sura.pruebalegoback.domain.patient.gateway.PatientChangeCounterGateway;
+
+/**
+ * Versión de la colección de pacientes: los listados la usan como ETag para responder 304
+ * sin ejecutar la consulta. Vacío si no se pudo leer, en cuyo caso se responde sin ETag.
+ */
+@RequiredArgsConstructor
+public class GetPatientsChangeCounterUseCase {
+
+    private static final Logger log = LoggerFactory.getLogger(GetPatientsChangeCounterUseCase.class);
+
+    private final PatientChangeCounterGateway patientChangeCounterGateway;
+
+    public Mono<Long> execute() {
+        return patientChangeCounterGateway.current()
+                .onErrorResume(error -> {
+                    log.warn("No se pudo leer el contador de cambios de pacientes: {}", error.getMessage());
+                    return Mono.empty();
+                });
+    }
+}
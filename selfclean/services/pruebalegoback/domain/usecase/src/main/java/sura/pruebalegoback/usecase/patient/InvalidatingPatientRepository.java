@@ -0,0 +1,151 @@
+package sura.pruebalegoback.usecase.patient;
+
+import lombok.RequiredArgsConstructor;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import sura.pruebalegoback.domain.patient.Patient;
+import sura.pruebalegoback.domain.patient.PatientField;
+import sura.pruebalegoback.domain.patient.PatientSearchCriteria;
+import sura.pruebalegoback.domain.patient.gateway.PatientRepository;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.Set;
+
+/**
+ * Invalida en {@link PatientQueryCache} solo los listados que toca cada escritura. Lo reciben los casos de uso
+ * que crean, modifican, desactivan o archivan pacientes, de modo que los listados por ciudad y por estado de
+ * esta instancia reflejen el cambio de inmediato, sin esperar la notificación de la base de datos.
+ */
+@RequiredArgsConstructor
+public class InvalidatingPatientRepository implements PatientRepository {
+
+    private final PatientRepository delegate;
+    private final PatientQueryCache cache;
+
+    @Override
+    public Mono<Patient> save(Patient patient) {
+        return delegate.save(patient)
+            .doOnNext(cache::patientWritten);
+    }
+
+    @Override
+    public Mono<Patient> update(Patient patient) {
+        return delegate.update(patient)
+            .doOnNext(cache::patientWritten);
+    }
+
+    @Override
+    public Mono<Void> deleteById(String id) {
+        return delegate.deleteById(id)
+            .doFinally(signal -> cache.patientRemoved(id));
+    }
+
+    @Override
+    public Flux<String> updateActiveByIds(Collection<String> ids, boolean active) {
+        return delegate.updateActiveByIds(ids, active)
+            .doOnNext(id -> cache.statusChanged(id, active));
+    }
+
+    @Override
+    public Flux<String> updateActiveByCity(String city, boolean active) {
+        return delegate.updateActiveByCity(city, active)
+            .doFinally(signal -> cache.cityStatusChanged(city));
+    }
+
+    @Override
+    public Flux<String> archiveInactiveSince(LocalDateTime deactivatedBefore, int limit) {
+        return delegate.archiveInactiveSince(deactivatedBefore, limit)
+            .doOnNext(cache::patientRemoved);
+    }
+
+    @Override
+    public Mono<Patient> findById(String id) {
+        return delegate.findById(id);
+    }
+
+    @Override
+    public Flux<Patient> findAllByIds(Collection<String> ids) {
+        return delegate.findAllByIds(ids);
+    }
+
+    @Override
+    public Flux<Patient> findAll() {
+        return delegate.findAll();
+    }
+
+    @Override
+    public Flux<byte[]> findAllAsJson() {
+        return delegate.findAllAsJson();
+    }
+
+    @Override
+    public Flux<Patient> findByActive(boolean active) {
+        return delegate.findByActive(active);
+    }
+
+    @Override
+    public Flux<Patient> findByDocumentNumber(String documentNumber) {
+        return delegate.findByDocumentNumber(documentNumber);
+    }
+
+    @Override
+    public Flux<Patient> findByCity(String city) {
+        return delegate.findByCity(city);
+    }
+
+    @Override
+    public Flux<Patient> findByAdmissionDateBetween(LocalDateTime from, LocalDateTime to) {
+        return delegate.findByAdmissionDateBetween(from, to);
+    }
+
+    @Override
+    public Flux<Patient> findAll(Set<PatientField> fields) {
+        return delegate.findAll(fields);
+    }
+
+    @Override
+    public Flux<Patient> findByActive(boolean active, Set<PatientField> fields) {
+        return delegate.findByActive(active, fields);
+    }
+
+    @Override
+    public Flux<Patient> findByCity(String city, Set<PatientField> fields) {
+        return delegate.findByCity(city, fields);
+    }
+
+    @Override
+    public Flux<Patient> findByAdmissionDateBetween(LocalDateTime from, LocalDateTime to, Set<PatientField> fields) {
+        return delegate.findByAdmissionDateBetween(from, to, fields);
+    }
+
+    @Override
+    public Flux<Patient> search(PatientSearchCriteria criteria) {
+        return delegate.search(criteria);
+    }
+
+    @Override
+    public Mono<Long> countAll() {
+        return delegate.countAll();
+    }
+
+    @Override
+    public Mono<Long> countByCity(String city) {
+        return delegate.countByCity(city);
+    }
+
+    @Override
+    public Mono<Long> estimateCountAll() {
+        return delegate.estimateCountAll();
+    }
+
+    @Override
+    public Mono<Long> estimateCountByCity(String city) {
+        return delegate.estimateCountByCity(city);
+    }
+
+    @Override
+    public Mono<Patient> findArchivedById(String id) {
+        return delegate.findArchivedById(id);
+    }
+}
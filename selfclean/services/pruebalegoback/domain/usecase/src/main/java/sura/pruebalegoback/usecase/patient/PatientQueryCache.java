@@ -0,0 +1,290 @@
+package sura.pruebalegoback.usecase.patient;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import reactor.core.Disposable;
+import reactor.core.publisher.Flux;
+import sura.pruebalegoback.domain.patient.Patient;
+import sura.pruebalegoback.domain.patient.PatientChange;
+import sura.pruebalegoback.domain.patient.gateway.PatientChangeFeed;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Supplier;
+import java.util.function.UnaryOperator;
+
+/**
+ * Caché de resultados de los listados por ciudad y por estado activo, acotada por número de entradas (LRU)
+ * y por TTL. Los resultados con más de {@code maxResultSize} pacientes no se guardan: se transmiten tal cual.
+ * <p>
+ * La invalidación es selectiva: cada entrada se indexa por los ids que contiene, y una escritura sobre un
+ * paciente expulsa solo las entradas donde aparecía (ciudad y estado anteriores) más las que corresponden
+ * a su ciudad y estado nuevos. Las escrituras locales llegan por {@link InvalidatingPatientRepository} y las
+ * de otras instancias por {@link #listen(PatientChangeFeed)}.
+ * <p>
+ * Una carga que se solapa con cualquier invalidación no se guarda (generación global): bajo escrituras
+ * continuas la caché deja de llenarse en lugar de servir un listado que ya no es cierto.
+ * <p>
+ * Cada entrada guarda el valor del contador de cambios leído antes de cargarla. Ese valor, y no el actual,
+ * es la versión de un acierto: tras una escritura el contador avanza antes de que llegue la invalidación
+ * (NOTIFY de otra instancia o la escritura local que aún no terminó), y etiquetar el listado viejo con el
+ * contador nuevo haría que el cliente lo revalidara con 304 hasta la siguiente escritura.
+ */
+public class PatientQueryCache {
+
+    private static final Logger log = LoggerFactory.getLogger(PatientQueryCache.class);
+
+    private final int maxEntries;
+    private final int maxResultSize;
+    private final long ttlNanos;
+    private final Listener listener;
+    private final LinkedHashMap<Key, Entry> entries = new LinkedHashMap<>(16, 0.75f, true);
+    private final Map<String, Set<Key>> keysByPatient = new HashMap<>();
+    private long generation;
+    private Disposable changes;
+
+    public PatientQueryCache(int maxEntries, int maxResultSize, Duration ttl) {
+        this(maxEntries, maxResultSize, ttl, new Listener() {
+        });
+    }
+
+    public PatientQueryCache(int maxEntries, int maxResultSize, Duration ttl, Listener listener) {
+        this.maxEntries = maxEntries;
+        this.maxResultSize = maxResultSize;
+        this.ttlNanos = ttl.toNanos();
+        this.listener = listener;
+    }
+
+    // Sin entradas: todas las consultas van directo al repositorio
+    public static PatientQueryCache disabled() {
+        return new PatientQueryCache(0, 0, Duration.ZERO);
+    }
+
+    public Flux<Patient> byCity(String city, Supplier<Flux<Patient>> loader) {
+        return Flux.defer(() -> byCity(city, null, loader).patients());
+    }
+
+    public Flux<Patient> byActive(boolean active, Supplier<Flux<Patient>> loader) {
+        return Flux.defer(() -> byActive(active, null, loader).patients());
+    }
+
+    /**
+     * Resuelve en el momento de la llamada si el listado sale de la caché, para que la versión devuelta
+     * corresponda exactamente a los pacientes que se van a emitir. {@code changeCounter} es el contador leído
+     * antes de la consulta (null si no se conoce) y se guarda con la entrada si hay que cargarla.
+     */
+    public Listing byCity(String city, Long changeCounter, Supplier<Flux<Patient>> loader) {
+        return get(Key.city(city), changeCounter, loader);
+    }
+
+    public Listing byActive(boolean active, Long changeCounter, Supplier<Flux<Patient>> loader) {
+        return get(Key.active(active), changeCounter, loader);
+    }
+
+    public synchronized void listen(PatientChangeFeed feed) {
+        if (changes == null && maxEntries > 0) {
+            changes = feed.changes().subscribe(this::apply,
+                    error -> log.error("El canal de cambios terminó; los listados en caché dependen del TTL: {}",
+                            error.getMessage()));
+        }
+    }
+
+    public synchronized void close() {
+        if (changes != null) {
+            changes.dispose();
+            changes = null;
+        }
+    }
+
+    /** Paciente creado o modificado con los datos resultantes de la escritura. */
+    public void patientWritten(Patient patient) {
+        evict(patient.getId(), Key.city(patient.getCity()), Key.active(patient.isActive()));
+    }
+
+    public void patientRemoved(String patientId) {
+        evict(patientId);
+    }
+
+    public void statusChanged(String patientId, boolean active) {
+        evict(patientId, Key.active(active));
+    }
+
+    // Toda la ciudad cambia de estado: su listado y ambos listados por estado
+    public void cityStatusChanged(String city) {
+        evict(null, Key.city(city), Key.active(true), Key.active(false));
+    }
+
+    public synchronized void invalidateAll() {
+        generation++;
+        entries.clear();
+        keysByPatient.clear();
+    }
+
+    public synchronized int size() {
+        return entries.size();
+    }
+
+    void apply(PatientChange change) {
+        if (change.type() == PatientChange.Type.RESYNC) {
+            invalidateAll();
+            return;
+        }
+        List<Key> touched = new ArrayList<>(4);
+        if (change.city() != null) {
+            touched.add(Key.city(change.city()));
+        }
+        if (change.previousCity() != null) {
+            touched.add(Key.city(change.previousCity()));
+        }
+        if (change.active() != null) {
+            touched.add(Key.active(change.active()));
+        }
+        if (change.previousActive() != null) {
+            touched.add(Key.active(change.previousActive()));
+        }
+        evict(change.patientId(), touched.toArray(Key[]::new));
+    }
+
+    private Listing get(Key key, Long changeCounter, Supplier<Flux<Patient>> loader) {
+        if (maxEntries <= 0) {
+            return new Listing(changeCounter, Flux.defer(loader));
+        }
+        Entry cached = lookup(key);
+        // Una entrada cargada sin contador no sirve para etiquetar: se recarga con el de esta consulta
+        if (cached != null && (changeCounter == null || cached.changeCounter() != null)) {
+            return new Listing(cached.changeCounter(), Flux.defer(() -> {
+                listener.hit();
+                return Flux.fromIterable(cached.patients());
+            }));
+        }
+        long loadGeneration = currentGeneration();
+        return new Listing(changeCounter, Flux.defer(() -> {
+            listener.miss();
+            List<Patient> collected = new ArrayList<>();
+            // Se sigue transmitiendo aunque se supere el límite; solo se deja de acumular
+            return loader.get()
+                    .doOnNext(patient -> {
+                        if (collected.size() <= maxResultSize) {
+                            collected.add(patient);
+                        }
+                    })
+                    .doOnComplete(() -> {
+                        if (collected.size() > maxResultSize) {
+                            listener.oversized();
+                            log.debug("Listado {} con más de {} pacientes: no se guarda en caché", key, maxResultSize);
+                        } else {
+                            store(key, List.copyOf(collected), changeCounter, loadGeneration);
+                        }
+                    });
+        }));
+    }
+
+    private synchronized long currentGeneration() {
+        return generation;
+    }
+
+    private synchronized Entry lookup(Key key) {
+        Entry entry = entries.get(key);
+        if (entry == null) {
+            return null;
+        }
+        if (System.nanoTime() - entry.storedAtNanos > ttlNanos) {
+            remove(key);
+            return null;
+        }
+        return entry;
+    }
+
+    private synchronized void store(Key key, List<Patient> patients, Long changeCounter, long loadGeneration) {
+        if (loadGeneration != generation) {
+            return;
+        }
+        remove(key);
+        entries.put(key, new Entry(patients, changeCounter, System.nanoTime()));
+        for (Patient patient : patients) {
+            keysByPatient.computeIfAbsent(patient.getId(), id -> new HashSet<>(2)).add(key);
+        }
+        Iterator<Map.Entry<Key, Entry>> eldest = entries.entrySet().iterator();
+        while (entries.size() > maxEntries && eldest.hasNext()) {
+            Map.Entry<Key, Entry> evicted = eldest.next();
+            eldest.remove();
+            unindex(evicted.getKey(), evicted.getValue());
+        }
+    }
+
+    private synchronized void evict(String patientId, Key... touched) {
+        generation++;
+        if (patientId != null) {
+            Set<Key> containing = keysByPatient.remove(patientId);
+            if (containing != null) {
+                for (Key key : List.copyOf(containing)) {
+                    remove(key);
+                }
+            }
+        }
+        for (Key key : touched) {
+            remove(key);
+        }
+    }
+
+    private void remove(Key key) {
+        Entry entry = entries.remove(key);
+        if (entry != null) {
+            unindex(key, entry);
+        }
+    }
+
+    private void unindex(Key key, Entry entry) {
+        for (Patient patient : entry.patients) {
+            Set<Key> keys = keysByPatient.get(patient.getId());
+            if (keys != null && keys.remove(key) && keys.isEmpty()) {
+                keysByPatient.remove(patient.getId());
+            }
+        }
+    }
+
+    record Key(String query, Object parameter) {
+
+        static Key city(String city) {
+            return new Key("city", city);
+        }
+
+        static Key active(boolean active) {
+            return new Key("active", active);
+        }
+    }
+
+    private record Entry(List<Patient> patients, Long changeCounter, long storedAtNanos) {
+    }
+
+    /**
+     * Pacientes de un listado y el valor del contador de cambios del que parten: en un acierto el leído antes
+     * de cargar la entrada, en un fallo el recibido. Nunca es más nuevo que los pacientes; null si no se conoce.
+     */
+    public record Listing(Long changeCounter, Flux<Patient> patients) {
+
+        public Listing map(UnaryOperator<Flux<Patient>> operator) {
+            return new Listing(changeCounter, operator.apply(patients));
+        }
+    }
+
+    /** Puntos de observación para métricas; por defecto no hacen nada. */
+    public interface Listener {
+
+        default void hit() {
+        }
+
+        default void miss() {
+        }
+
+        default void oversized() {
+        }
+    }
+}
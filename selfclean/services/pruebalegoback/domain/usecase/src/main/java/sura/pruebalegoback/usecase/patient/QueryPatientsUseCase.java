@@ -1,26 +1,58 @@
 package sura.pruebalegoback.usecase.patient;
 
-import lombok.RequiredArgsConstructor;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
 import sura.pruebalegoback.domain.patient.Patient;
+import sura.pruebalegoback.domain.patient.PatientField;
+import sura.pruebalegoback.domain.patient.PatientSearchCriteria;
+import sura.pruebalegoback.domain.patient.ex.PatientBusinessException;
+import sura.pruebalegoback.domain.patient.gateway.DocumentNumberFilter;
 import sura.pruebalegoback.domain.patient.gateway.PatientRepository;
 
+import java.time.LocalDateTime;
 import java.util.List;
+import java.util.Set;
 
-@RequiredArgsConstructor
 public class QueryPatientsUseCase {
 
     private static final Logger log = LoggerFactory.getLogger(QueryPatientsUseCase.class);
+    static final int DEFAULT_SEARCH_LIMIT = 100;
+    static final int MAX_SEARCH_LIMIT = 1000;
     private final PatientRepository patientRepository;
+    private final DocumentNumberFilter documentNumberFilter;
+    private final PatientQueryCache queryCache;
 
+    public QueryPatientsUseCase(PatientRepository patientRepository) {
+        this(patientRepository, DocumentNumberFilter.alwaysCheck());
+    }
+
+    public QueryPatientsUseCase(PatientRepository patientRepository, DocumentNumberFilter documentNumberFilter) {
+        this(patientRepository, documentNumberFilter, PatientQueryCache.disabled());
+    }
+
+    // Los listados por ciudad y por estado se sirven desde queryCache (ver PatientQueryCache)
+    public QueryPatientsUseCase(PatientRepository patientRepository, DocumentNumberFilter documentNumberFilter,
+                                PatientQueryCache queryCache) {
+        this.patientRepository = patientRepository;
+        this.documentNumberFilter = documentNumberFilter;
+        this.queryCache = queryCache;
+    }
 
     public Flux<Patient> getAllPatients() {
+        return getAllPatients(PatientField.ALL);
+    }
+
+    /**
+     * Las variantes con {@code fields} leen solo lo necesario para esas propiedades; el resto queda sin valor
+     * en los pacientes devueltos. Los listados proyectados no pasan por {@link PatientQueryCache}, que guarda
+     * pacientes completos.
+     */
+    public Flux<Patient> getAllPatients(Set<PatientField> fields) {
         log.info("consultando todos los pacientes");
 
-        return patientRepository.findAll()
+        return (PatientField.isProjection(fields) ? patientRepository.findAll(fields) : patientRepository.findAll())
                 .doOnNext(patient -> log.debug("Pacientes encontrados: {}", patient.getId()))
                 .doOnComplete(() -> log.info("Consulta de pacientes completada"))
                 .onErrorResume(error -> {
@@ -29,37 +61,76 @@ public class QueryPatientsUseCase {
                 });
     }
 
+    public Flux<byte[]> getAllPatientsAsJson() {
+        log.info("Consultando todos los pacientes (JSON generado por la base de datos)");
+
+        return patientRepository.findAllAsJson()
+                .doOnComplete(() -> log.info("Consulta de pacientes en JSON completada"))
+                .doOnError(error -> log.error("Error al consultar pacientes en JSON: {}", error.getMessage()));
+    }
+
     public Flux<Patient> getActivePatients(){
+        return getActivePatients(PatientField.ALL);
+    }
+
+    public Flux<Patient> getActivePatients(Set<PatientField> fields){
+        return Flux.defer(() -> getActivePatients(fields, null).patients());
+    }
+
+    /**
+     * Como {@link #getActivePatients(Set)}, con la versión del contador de cambios de la que parte el listado
+     * para etiquetarlo: si sale de {@link PatientQueryCache} puede ser anterior a {@code changeCounter}.
+     */
+    public PatientQueryCache.Listing getActivePatients(Set<PatientField> fields, Long changeCounter){
         log.info("Consultando pacientes activos");
-        return patientRepository.findByActive(true)
-                .filter(Patient::isActive)
-                .doOnNext(patient -> log.debug("Paciente Activo: {} {} ",
-                               patient.getFirstName(), patient.getLastName()))
-                .onErrorResume(error ->{
-                    log.error("Error al consultar pacientes activos: {}", error.getMessage());
-                    return Flux.empty();
-                });
+        // active se lee siempre: el filtro de abajo lo necesita
+        return (PatientField.isProjection(fields)
+                        ? new PatientQueryCache.Listing(changeCounter,
+                                patientRepository.findByActive(true, PatientField.with(fields, PatientField.ACTIVE)))
+                        : queryCache.byActive(true, changeCounter, () -> patientRepository.findByActive(true)))
+                .map(patients -> patients
+                    .filter(Patient::isActive)
+                    .doOnNext(patient -> log.debug("Paciente Activo: {} {} ",
+                                   patient.getFirstName(), patient.getLastName()))
+                    .onErrorResume(error ->{
+                        log.error("Error al consultar pacientes activos: {}", error.getMessage());
+                        return Flux.empty();
+                    }));
     }
 
     public Flux<Patient>getPatientByCity(String city){
+        return getPatientByCity(city, PatientField.ALL);
+    }
+
+    public Flux<Patient>getPatientByCity(String city, Set<PatientField> fields){
+        return Flux.defer(() -> getPatientByCity(city, fields, null).patients());
+    }
+
+    public PatientQueryCache.Listing getPatientByCity(String city, Set<PatientField> fields, Long changeCounter){
         log.info("Buscando pacientes de ciudad: {}" ,city);
-        return patientRepository.findByCity(city)
-                .filter(patient -> patient.getCity() != null)
-                .filter(patient -> patient.getCity().equalsIgnoreCase(city))
-                .map(patient -> {
-                    log.debug("Paciente encontrado en : {} {} ", city,patient.getFullName());
-                    return patient;
-                })
-                .onErrorResume(error ->{
-                    log.error("Eror al consultar pacientes por ciudad. ", error.getMessage());
-                    return Flux.empty();
-                });
+        return (PatientField.isProjection(fields)
+                        ? new PatientQueryCache.Listing(changeCounter,
+                                patientRepository.findByCity(city, PatientField.with(fields, PatientField.CITY)))
+                        : findByCity(city, changeCounter))
+                .map(patients -> patients
+                    .filter(patient -> patient.getCity() != null)
+                    .filter(patient -> patient.getCity().equalsIgnoreCase(city))
+                    .map(patient -> {
+                        log.debug("Paciente encontrado en : {} {} ", city,patient.getFullName());
+                        return patient;
+                    })
+                    .onErrorResume(error ->{
+                        log.error("Eror al consultar pacientes por ciudad. ", error.getMessage());
+                        return Flux.empty();
+                    }));
     }
 
     public Flux<Patient>getPatientsByDocumentNumber(String document){
         log.info("Buscando paciente por documento");
 
-        return patientRepository.findByDocumentNumber(document)
+        return Flux.defer(() -> documentNumberFilter.mightContain(document)
+                        ? patientRepository.findByDocumentNumber(document)
+                        : Flux.<Patient>empty())
                 .doOnNext(patient -> log.debug("Paciente con documento {}  encontrado: {}",
                        document ,patient.getId()))
                 .switchIfEmpty(Flux.defer(() -> {
@@ -68,6 +139,84 @@ public class QueryPatientsUseCase {
         }));
     }
 
+    public Flux<Patient> getPatientsAdmittedBetween(LocalDateTime from, LocalDateTime to) {
+        return getPatientsAdmittedBetween(from, to, PatientField.ALL);
+    }
+
+    public Flux<Patient> getPatientsAdmittedBetween(LocalDateTime from, LocalDateTime to, Set<PatientField> fields) {
+        log.info("Consultando pacientes ingresados entre {} y {}", from, to);
+
+        if (from == null || to == null || from.isAfter(to)) {
+            return Flux.error(new PatientBusinessException(
+                    "Rango de fechas de ingreso inválido: 'from' debe ser anterior o igual a 'to'"));
+        }
+
+        return (PatientField.isProjection(fields)
+                        ? patientRepository.findByAdmissionDateBetween(from, to, fields)
+                        : patientRepository.findByAdmissionDateBetween(from, to))
+                .doOnComplete(() -> log.info("Consulta de ingresos entre {} y {} completada", from, to));
+    }
+
+    public Flux<Patient> searchPatients(PatientSearchCriteria criteria) {
+        log.info("Búsqueda combinada de pacientes: {}", criteria);
+
+        PatientBusinessException invalid = validate(criteria);
+        if (invalid != null) {
+            return Flux.error(invalid);
+        }
+
+        PatientSearchCriteria effective = criteria.toBuilder()
+                .sortBy(criteria.getSortBy() != null ? criteria.getSortBy() : PatientSearchCriteria.SortField.ADMISSION_DATE)
+                .limit(criteria.getLimit() != null ? criteria.getLimit() : DEFAULT_SEARCH_LIMIT)
+                .build();
+
+        return patientRepository.search(effective)
+                .doOnComplete(() -> log.info("Búsqueda combinada de pacientes completada"))
+                .doOnError(error -> log.error("Error en la búsqueda combinada de pacientes: {}", error.getMessage()));
+    }
+
+    private PatientBusinessException validate(PatientSearchCriteria criteria) {
+        if (criteria.getMinAge() != null && criteria.getMinAge() < 0
+                || criteria.getMaxAge() != null && criteria.getMaxAge() < 0) {
+            return new PatientBusinessException("Las edades de búsqueda no pueden ser negativas");
+        }
+        if (criteria.getMinAge() != null && criteria.getMaxAge() != null
+                && criteria.getMinAge() > criteria.getMaxAge()) {
+            return new PatientBusinessException("Rango de edad inválido: 'minAge' debe ser menor o igual a 'maxAge'");
+        }
+        if (criteria.getAdmittedFrom() != null && criteria.getAdmittedTo() != null
+                && criteria.getAdmittedFrom().isAfter(criteria.getAdmittedTo())) {
+            return new PatientBusinessException(
+                    "Rango de fechas de ingreso inválido: 'admittedFrom' debe ser anterior o igual a 'admittedTo'");
+        }
+        if (criteria.getLimit() != null && (criteria.getLimit() <= 0 || criteria.getLimit() > MAX_SEARCH_LIMIT)) {
+            return new PatientBusinessException("El límite de la búsqueda debe estar entre 1 y " + MAX_SEARCH_LIMIT);
+        }
+        return null;
+    }
+
+    /**
+     * Total de pacientes, opcionalmente filtrado por ciudad. Con {@code exact=false} se devuelve la
+     * estimación del planificador de PostgreSQL, que responde en tiempo constante pero puede desviarse
+     * (ver README, sección "Conteos").
+     */
+    public Mono<PatientCount> countPatients(String city, boolean exact) {
+        boolean byCity = city != null && !city.isBlank();
+        log.info("Contando pacientes{} (modo {})", byCity ? " de ciudad " + city : "", exact ? "exacto" : "aproximado");
+
+        Mono<Long> count;
+        if (byCity) {
+            count = exact ? patientRepository.countByCity(city) : patientRepository.estimateCountByCity(city);
+        } else {
+            count = exact ? patientRepository.countAll() : patientRepository.estimateCountAll();
+        }
+
+        return count
+                .defaultIfEmpty(0L)
+                .map(total -> new PatientCount(total, exact))
+                .doOnError(error -> log.error("Error al contar pacientes: {}", error.getMessage()));
+    }
+
     public Flux<PatientSummary>getPatientsWithAge(Integer minAge, Integer maxAge){
         log.info("Consultando pacientes con edad entre  {} y {} ", minAge, maxAge);
 
@@ -94,13 +243,36 @@ public class QueryPatientsUseCase {
     public Mono<List<Patient>>getPatientsByMultipleCities(List<String>cities){
         log.info("Consultando pacientes en multiples ciudades: {}" ,cities);
 
-        return Flux.fromIterable(cities)
-                .flatMap(patientRepository::findByCity)
-                .distinct(Patient::getId)
+        return Flux.defer(() -> getPatientsByMultipleCities(cities, null).patients())
                 .collectList()
                 .doOnNext(patients -> log.info("Total de pacientes encontrados: {}", patients.size()));
     }
 
+    // La versión del conjunto es la más antigua de sus ciudades: ninguna parte del listado es anterior a ella
+    public PatientQueryCache.Listing getPatientsByMultipleCities(List<String> cities, Long changeCounter){
+        List<PatientQueryCache.Listing> listings = cities.stream()
+                .map(city -> findByCity(city, changeCounter))
+                .toList();
+        Long version = changeCounter;
+        for (PatientQueryCache.Listing listing : listings) {
+            version = version == null || listing.changeCounter() == null
+                    ? null
+                    : Math.min(version, listing.changeCounter());
+        }
+        return new PatientQueryCache.Listing(version, Flux.fromIterable(listings)
+                .flatMap(PatientQueryCache.Listing::patients)
+                .distinct(Patient::getId));
+    }
+
+    private PatientQueryCache.Listing findByCity(String city, Long changeCounter) {
+        return queryCache.byCity(city, changeCounter, () -> patientRepository.findByCity(city));
+    }
+
+    public record PatientCount(
+            long count,
+            boolean exact
+    ){}
+
     public record PatientSummary(
             String id,
             String fullName,
@@ -8,6 +8,7 @@ import reactor.core.publisher.Mono;
 import sura.pruebalegoback.domain.patient.Patient;
 import sura.pruebalegoback.domain.patient.PatientFactory;
 import sura.pruebalegoback.domain.patient.ex.PatientBusinessException;
+import sura.pruebalegoback.domain.patient.ex.PatientVersionConflictException;
 import sura.pruebalegoback.domain.patient.gateway.PatientRepository;
 
 @RequiredArgsConstructor
@@ -16,6 +17,15 @@ public class UpdatePatientUseCase {
     private final PatientRepository patientRepository;
 
     public Mono<Patient>updatePatient(String id, PatientUpdateData updateData ){
+        return updatePatient(id, updateData, null);
+    }
+
+    /**
+     * Actualiza el paciente sólo si su versión actual coincide con {@code expectedVersion}
+     * (null omite la verificación). La escritura es además un compare-and-set sobre la columna
+     * version, por lo que una modificación concurrente entre la lectura y el guardado también falla.
+     */
+    public Mono<Patient>updatePatient(String id, PatientUpdateData updateData, Long expectedVersion){
         log.info("Actualizando paciente:");
 
         // Validar teléfono primero si se está actualizando
@@ -26,6 +36,9 @@ public class UpdatePatientUseCase {
         return phoneValidation
                 .then(patientRepository.findById(id))
                 .switchIfEmpty(Mono.error(PatientBusinessException.Type.PATIENT_NOT_FOUND.build()))
+                .flatMap(existingPatient -> expectedVersion == null || expectedVersion.equals(existingPatient.getVersion())
+                        ? Mono.just(existingPatient)
+                        : Mono.error(new PatientVersionConflictException(id, expectedVersion)))
                 .map(existingPatient -> mergePatientData(existingPatient, updateData))
                 .doOnNext(patient -> log.info("Paciente actualizado exitosamente: {}", patient.getId()))
                 .flatMap(patientRepository::update)
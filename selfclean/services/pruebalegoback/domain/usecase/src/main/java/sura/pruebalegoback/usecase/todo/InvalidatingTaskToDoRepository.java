@@ -0,0 +1,50 @@
+package sura.pruebalegoback.usecase.todo;
+
+import lombok.RequiredArgsConstructor;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import sura.pruebalegoback.domain.todo.TaskToDo;
+import sura.pruebalegoback.domain.todo.gateway.TaskToDoRepository;
+
+/**
+ * Invalida el {@link TaskListCache} después de cada escritura. Lo reciben los casos de uso que crean,
+ * asignan, completan o reasignan tareas, de modo que {@link QueryTasksUseCase#findAll()} las vea de inmediato.
+ */
+@RequiredArgsConstructor
+public class InvalidatingTaskToDoRepository implements TaskToDoRepository {
+
+    private final TaskToDoRepository delegate;
+    private final TaskListCache cache;
+
+    @Override
+    public Mono<TaskToDo> save(TaskToDo taskToDo) {
+        return invalidatingAfter(delegate.save(taskToDo));
+    }
+
+    @Override
+    public Mono<Void> saveAll(Flux<TaskToDo> tasks) {
+        return invalidatingAfter(delegate.saveAll(tasks));
+    }
+
+    @Override
+    public Mono<TaskToDo> findById(String id) {
+        return delegate.findById(id);
+    }
+
+    @Override
+    public Flux<TaskToDo> findAll() {
+        return delegate.findAll();
+    }
+
+    @Override
+    public Flux<TaskToDo> findAllUserOpenTasks(String userId) {
+        return delegate.findAllUserOpenTasks(userId);
+    }
+
+    // doOnTerminate y no doFinally: quien encadena findAll() tras la escritura se suscribe al recibir onComplete,
+    // así que la invalidación tiene que ocurrir antes. Una escritura cancelada pudo confirmarse igual
+    private <T> Mono<T> invalidatingAfter(Mono<T> write) {
+        return write.doOnTerminate(cache::invalidate)
+            .doOnCancel(cache::invalidate);
+    }
+}
@@ -1,6 +1,5 @@
 package sura.pruebalegoback.usecase.todo;
 
-import lombok.RequiredArgsConstructor;
 import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
 import reactor.util.function.Tuple2;
@@ -12,22 +11,31 @@ import sura.pruebalegoback.domain.user.gateway.UserGateway;
 
 import java.time.Duration;
 
-import static reactor.core.publisher.Flux.defer;
 import static reactor.core.publisher.Mono.just;
 import static reactor.core.publisher.Mono.zip;
 
-@RequiredArgsConstructor
 public class QueryTasksUseCase {
 
 
     private final TaskToDoRepository tasks;
     private final UserGateway usersGateway;
 
-    //Caché de 30 segundos para optimizar las consultas a la lista de todas las tareas (Opcional)
-    private final Flux<TaskToDo> allTasks = defer(this::doFindAll).cache(Duration.ofSeconds(30));
+    //Caché stale-while-revalidate de la lista de todas las tareas; las escrituras la invalidan
+    //cuando el repositorio de los demás casos de uso es un InvalidatingTaskToDoRepository
+    private final TaskListCache allTasks;
+
+    public QueryTasksUseCase(TaskToDoRepository tasks, UserGateway usersGateway) {
+        this(tasks, usersGateway, new TaskListCache(Duration.ofSeconds(30)));
+    }
+
+    public QueryTasksUseCase(TaskToDoRepository tasks, UserGateway usersGateway, TaskListCache allTasks) {
+        this.tasks = tasks;
+        this.usersGateway = usersGateway;
+        this.allTasks = allTasks;
+    }
 
     public Flux<TaskToDo> findAll() {
-        return allTasks;
+        return allTasks.get(this::doFindAll);
     }
 
     public Mono<Tuple2<TaskToDo, User>> findTodoWithDetails(String id) {
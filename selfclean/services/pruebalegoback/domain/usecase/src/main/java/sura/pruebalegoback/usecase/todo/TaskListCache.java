@@ -0,0 +1,126 @@
+package sura.pruebalegoback.usecase.todo;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import sura.pruebalegoback.domain.todo.TaskToDo;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Supplier;
+
+/**
+ * Caché de la lista completa de tareas con stale-while-revalidate:
+ * <ul>
+ *     <li>Dentro de {@code freshFor} se sirve la copia sin consultar.</li>
+ *     <li>Vencida, se sirve la copia anterior y se recarga en segundo plano (una sola recarga a la vez).</li>
+ *     <li>Tras {@link #invalidate()} (escrituras de tareas) la siguiente lectura espera la recarga,
+ *     de modo que quien escribe ve su cambio.</li>
+ * </ul>
+ * Cada carga guarda la generación vigente al empezar: si una escritura invalida mientras se carga,
+ * el resultado queda marcado como inválido y no oculta esa escritura.
+ */
+public class TaskListCache {
+
+    private static final Logger log = LoggerFactory.getLogger(TaskListCache.class);
+
+    private final Duration freshFor;
+    private final Listener listener;
+    private final AtomicLong generation = new AtomicLong();
+    private final AtomicReference<Snapshot> snapshot = new AtomicReference<>();
+    private final AtomicReference<Load> inFlight = new AtomicReference<>();
+
+    public TaskListCache(Duration freshFor) {
+        this(freshFor, new Listener() {
+        });
+    }
+
+    public TaskListCache(Duration freshFor, Listener listener) {
+        this.freshFor = freshFor;
+        this.listener = listener;
+    }
+
+    public Flux<TaskToDo> get(Supplier<Flux<TaskToDo>> loader) {
+        return Flux.defer(() -> {
+            Snapshot current = snapshot.get();
+            long requiredGeneration = generation.get();
+            if (current == null || current.generation < requiredGeneration) {
+                return refresh(loader, requiredGeneration).flatMapIterable(Snapshot::tasks);
+            }
+            Duration age = Duration.ofNanos(System.nanoTime() - current.loadedAtNanos);
+            if (age.compareTo(freshFor) > 0) {
+                listener.staleServed(age);
+                refresh(loader, current.generation).subscribe(loaded -> { }, error ->
+                        log.warn("Falló la recarga en segundo plano de las tareas: {}", error.getMessage()));
+            }
+            return Flux.fromIterable(current.tasks);
+        });
+    }
+
+    public void invalidate() {
+        generation.incrementAndGet();
+    }
+
+    // Antigüedad de la copia vigente; cero si todavía no hay copia
+    public Duration age() {
+        Snapshot current = snapshot.get();
+        return current == null ? Duration.ZERO : Duration.ofNanos(System.nanoTime() - current.loadedAtNanos);
+    }
+
+    // Reutiliza la recarga en curso solo si empezó después de la última invalidación que le importa al llamador
+    private Mono<Snapshot> refresh(Supplier<Flux<TaskToDo>> loader, long requiredGeneration) {
+        while (true) {
+            Load running = inFlight.get();
+            if (running != null && running.generation >= requiredGeneration) {
+                return running.result;
+            }
+            Load load = newLoad(loader);
+            if (inFlight.compareAndSet(running, load)) {
+                return load.result;
+            }
+        }
+    }
+
+    private Load newLoad(Supplier<Flux<TaskToDo>> loader) {
+        long loadGeneration = generation.get();
+        AtomicReference<Load> self = new AtomicReference<>();
+        Mono<Snapshot> result = Mono.defer(() -> {
+                    long startedAt = System.nanoTime();
+                    return loader.get()
+                            .collectList()
+                            .map(tasks -> new Snapshot(List.copyOf(tasks), loadGeneration, System.nanoTime()))
+                            .doOnSuccess(loaded -> {
+                                // Una carga lenta nunca pisa a otra más reciente
+                                snapshot.accumulateAndGet(loaded, (previous, next) ->
+                                        previous == null || next.generation >= previous.generation ? next : previous);
+                                listener.refreshed(Duration.ofNanos(System.nanoTime() - startedAt), true);
+                            })
+                            .doOnError(error ->
+                                    listener.refreshed(Duration.ofNanos(System.nanoTime() - startedAt), false));
+                })
+                .doFinally(signal -> inFlight.compareAndSet(self.get(), null))
+                .cache();
+        Load load = new Load(loadGeneration, result);
+        self.set(load);
+        return load;
+    }
+
+    private record Snapshot(List<TaskToDo> tasks, long generation, long loadedAtNanos) {
+    }
+
+    private record Load(long generation, Mono<Snapshot> result) {
+    }
+
+    /** Puntos de observación para métricas; por defecto no hacen nada. */
+    public interface Listener {
+
+        default void refreshed(Duration latency, boolean success) {
+        }
+
+        default void staleServed(Duration staleness) {
+        }
+    }
+}
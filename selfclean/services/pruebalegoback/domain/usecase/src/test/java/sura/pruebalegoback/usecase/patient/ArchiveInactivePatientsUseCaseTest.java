@@ -0,0 +1,76 @@
+package sura.pruebalegoback.usecase.patient;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import reactor.core.publisher.Flux;
+import reactor.test.StepVerifier;
+import sura.pruebalegoback.domain.patient.gateway.PatientRepository;
+
+import java.time.LocalDateTime;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoInteractions;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+class ArchiveInactivePatientsUseCaseTest {
+
+    @Mock
+    private PatientRepository patientRepository;
+
+    private ArchiveInactivePatientsUseCase archiveInactivePatientsUseCase;
+
+    @BeforeEach
+    void setUp() {
+        archiveInactivePatientsUseCase = new ArchiveInactivePatientsUseCase(patientRepository);
+    }
+
+    @Test
+    void shouldArchiveInChunksUntilAPartialChunk() {
+        // Given
+        when(patientRepository.archiveInactiveSince(any(LocalDateTime.class), eq(2)))
+                .thenReturn(Flux.just("1", "2"), Flux.just("3", "4"), Flux.just("5"));
+
+        // When
+        var result = archiveInactivePatientsUseCase.archiveInactivePatients(30, 2);
+
+        // Then
+        StepVerifier.create(result)
+                .expectNext(5L)
+                .verifyComplete();
+        verify(patientRepository, times(3)).archiveInactiveSince(any(LocalDateTime.class), eq(2));
+    }
+
+    @Test
+    void shouldCompleteWithZeroWhenNothingToArchive() {
+        // Given
+        when(patientRepository.archiveInactiveSince(any(LocalDateTime.class), eq(100)))
+                .thenReturn(Flux.empty());
+
+        // When
+        var result = archiveInactivePatientsUseCase.archiveInactivePatients(30, 100);
+
+        // Then
+        StepVerifier.create(result)
+                .expectNext(0L)
+                .verifyComplete();
+    }
+
+    @Test
+    void shouldRejectInvalidChunkSize() {
+        // When
+        var result = archiveInactivePatientsUseCase.archiveInactivePatients(30, 0);
+
+        // Then
+        StepVerifier.create(result)
+                .expectError(IllegalArgumentException.class)
+                .verify();
+        verifyNoInteractions(patientRepository);
+    }
+}
@@ -0,0 +1,92 @@
+package sura.pruebalegoback.usecase.patient;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import reactor.core.publisher.Flux;
+import reactor.test.StepVerifier;
+import sura.pruebalegoback.domain.patient.Patient;
+import sura.pruebalegoback.domain.patient.ex.PatientBusinessException;
+import sura.pruebalegoback.domain.patient.gateway.PatientRepository;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+class BatchGetPatientsUseCaseTest {
+
+    @Mock
+    private PatientRepository patientRepository;
+
+    private BatchGetPatientsUseCase batchGetPatientsUseCase;
+
+    @BeforeEach
+    void setUp() {
+        batchGetPatientsUseCase = new BatchGetPatientsUseCase(patientRepository, 3);
+    }
+
+    @Test
+    void shouldReturnFoundPatientsInRequestOrderAndMissingIds() {
+        // Given
+        when(patientRepository.findAllByIds(anyCollection()))
+                .thenReturn(Flux.just(createTestPatient("3"), createTestPatient("1")));
+
+        // When
+        var result = batchGetPatientsUseCase.getPatients(List.of("1", "2", "3", "1"));
+
+        // Then
+        StepVerifier.create(result)
+                .assertNext(batch -> {
+                    assertEquals(List.of("1", "3"), batch.found().stream().map(Patient::getId).toList());
+                    assertEquals(List.of("2"), batch.missing());
+                })
+                .verifyComplete();
+    }
+
+    @Test
+    void shouldRejectMoreIdsThanAllowed() {
+        // When
+        var result = batchGetPatientsUseCase.getPatients(List.of("1", "2", "3", "4"));
+
+        // Then
+        StepVerifier.create(result)
+                .expectError(PatientBusinessException.class)
+                .verify();
+        verify(patientRepository, never()).findAllByIds(anyCollection());
+    }
+
+    @Test
+    void shouldRejectEmptyIdList() {
+        // When
+        var result = batchGetPatientsUseCase.getPatients(List.of());
+
+        // Then
+        StepVerifier.create(result)
+                .expectError(PatientBusinessException.class)
+                .verify();
+    }
+
+    private Patient createTestPatient(String id) {
+        return Patient.builder()
+                .id(id)
+                .firstName("John")
+                .lastName("Doe")
+                .documentNumber("12345678")
+                .documentType("CC")
+                .birthDate(LocalDate.of(1990, 1, 1))
+                .city("Medellín")
+                .state("Antioquia")
+                .admissionDate(LocalDateTime.now())
+                .active(true)
+                .build();
+    }
+}
@@ -5,15 +5,22 @@ import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
+import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
 import reactor.test.StepVerifier;
 import sura.pruebalegoback.domain.common.EventsGateway;
 import sura.pruebalegoback.domain.patient.Patient;
+import sura.pruebalegoback.domain.patient.ex.PatientBusinessException;
+import sura.pruebalegoback.domain.patient.gateway.DocumentNumberFilter;
 import sura.pruebalegoback.domain.patient.gateway.PatientRepository;
 
 import java.time.LocalDateTime;
 
+import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
 @ExtendWith(MockitoExtension.class)
@@ -25,6 +32,9 @@ class CreatePatientUseCaseTest {
     @Mock
     private EventsGateway eventsGateway;
 
+    @Mock
+    private DocumentNumberFilter documentNumberFilter;
+
     private CreatePatientUseCase createPatientUseCase;
 
     @BeforeEach
@@ -62,6 +72,7 @@ class CreatePatientUseCaseTest {
                 .active(true)
                 .build();
 
+        when(patientRepository.findByDocumentNumber(documentNumber)).thenReturn(Flux.empty());
         when(patientRepository.save(any(Patient.class))).thenReturn(Mono.just(expectedPatient));
         when(eventsGateway.emit(any())).thenReturn(Mono.empty());
 
@@ -143,6 +154,7 @@ class CreatePatientUseCaseTest {
                 .active(true)
                 .build();
 
+        when(patientRepository.findByDocumentNumber(documentNumber)).thenReturn(Flux.empty());
         when(patientRepository.save(any(Patient.class))).thenReturn(Mono.just(expectedPatient));
         when(eventsGateway.emit(any())).thenReturn(Mono.error(new RuntimeException("Event publishing failed")));
 
@@ -159,4 +171,60 @@ class CreatePatientUseCaseTest {
                 })
                 .verifyComplete();
     }
+
+    @Test
+    void shouldRejectDuplicateDocumentNumber() {
+        // Given
+        Patient existing = Patient.builder().id("existing-id").documentNumber("12345678").build();
+        when(patientRepository.findByDocumentNumber("12345678")).thenReturn(Flux.just(existing));
+
+        // When
+        var result = createPatientUseCase.createPatient("John", "Doe", "12345678", "CC", "1990-01-01",
+                "123 Main St", "+1234567890", "john.doe@example.com", "Bogotá", "Cundinamarca");
+
+        // Then
+        StepVerifier.create(result)
+                .expectError(PatientBusinessException.class)
+                .verify();
+        verify(patientRepository, never()).save(any(Patient.class));
+    }
+
+    @Test
+    void shouldRejectDuplicateDetectedOnInsert() {
+        // Given
+        when(patientRepository.findByDocumentNumber("12345678")).thenReturn(Flux.empty());
+        when(patientRepository.save(any(Patient.class)))
+                .thenReturn(Mono.error(PatientBusinessException.Type.DUPLICATE_DOCUMENT.build()));
+
+        // When
+        var result = createPatientUseCase.createPatient("John", "Doe", "12345678", "CC", "1990-01-01",
+                "123 Main St", "+1234567890", "john.doe@example.com", "Bogotá", "Cundinamarca");
+
+        // Then
+        StepVerifier.create(result)
+                .expectErrorMessage(PatientBusinessException.Type.DUPLICATE_DOCUMENT.getMessage())
+                .verify();
+        verify(eventsGateway, never()).emit(any());
+    }
+
+    @Test
+    void shouldSkipDuplicateLookupWhenFilterRulesOutDocument() {
+        // Given
+        createPatientUseCase = new CreatePatientUseCase(patientRepository, eventsGateway, documentNumberFilter);
+        Patient saved = Patient.builder().id("test-id").documentNumber("87654321").active(true).build();
+        when(documentNumberFilter.mightContain("87654321")).thenReturn(false);
+        when(patientRepository.save(any(Patient.class))).thenReturn(Mono.just(saved));
+        when(eventsGateway.emit(any())).thenReturn(Mono.empty());
+
+        // When
+        var result = createPatientUseCase.createPatient("John", "Doe", "87654321", "CC", "1990-01-01",
+                "123 Main St", "+1234567890", "john.doe@example.com", "Bogotá", "Cundinamarca");
+
+        // Then
+        StepVerifier.create(result)
+                .assertNext(patient -> assertEquals("test-id", patient.getId()))
+                .verifyComplete();
+        verify(patientRepository, never()).findByDocumentNumber(anyString());
+        verify(documentNumberFilter).add("87654321");
+    }
 }
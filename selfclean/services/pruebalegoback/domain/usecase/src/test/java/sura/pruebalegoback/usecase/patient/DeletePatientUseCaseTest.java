@@ -0,0 +1,130 @@
+package sura.pruebalegoback.usecase.patient;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.test.StepVerifier;
+import sura.pruebalegoback.domain.common.Event;
+import sura.pruebalegoback.domain.common.EventsGateway;
+import sura.pruebalegoback.domain.patient.events.PatientsStatusChanged;
+import sura.pruebalegoback.domain.patient.ex.PatientBusinessException;
+import sura.pruebalegoback.domain.patient.gateway.PatientRepository;
+
+import java.util.List;
+import java.util.stream.IntStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+class DeletePatientUseCaseTest {
+
+    @Mock
+    private PatientRepository patientRepository;
+
+    @Mock
+    private EventsGateway eventsGateway;
+
+    private DeletePatientUseCase deletePatientUseCase;
+
+    @BeforeEach
+    void setUp() {
+        deletePatientUseCase = new DeletePatientUseCase(patientRepository, eventsGateway);
+    }
+
+    @Test
+    void shouldDeactivateCityAndPublishOneEventPerBatch() {
+        // Given
+        List<String> affected = IntStream.range(0, DeletePatientUseCase.EVENT_BATCH_SIZE + 1)
+                .mapToObj(i -> "id-" + i)
+                .toList();
+        when(patientRepository.updateActiveByCity("Medellín", false)).thenReturn(Flux.fromIterable(affected));
+        when(eventsGateway.emit(any(Event.class))).thenReturn(Mono.empty());
+
+        // When
+        var result = deletePatientUseCase.deactivatePatientsByCity("Medellín");
+
+        // Then
+        StepVerifier.create(result)
+                .expectNextSequence(affected)
+                .verifyComplete();
+
+        ArgumentCaptor<Event> events = ArgumentCaptor.forClass(Event.class);
+        verify(eventsGateway, times(2)).emit(events.capture());
+        PatientsStatusChanged first = (PatientsStatusChanged) events.getAllValues().get(0);
+        assertEquals(DeletePatientUseCase.EVENT_BATCH_SIZE, first.getPatientIds().size());
+        assertFalse(first.isActive());
+    }
+
+    @Test
+    void shouldPublishEveryBatchEvenWhenClientCancels() {
+        // Given
+        List<String> affected = IntStream.range(0, DeletePatientUseCase.EVENT_BATCH_SIZE + 1)
+                .mapToObj(i -> "id-" + i)
+                .toList();
+        when(patientRepository.updateActiveByCity("Medellín", false)).thenReturn(Flux.fromIterable(affected));
+        when(eventsGateway.emit(any(Event.class))).thenReturn(Mono.empty());
+
+        // When
+        var result = deletePatientUseCase.deactivatePatientsByCity("Medellín");
+
+        // Then
+        StepVerifier.create(result)
+                .expectNext("id-0")
+                .thenCancel()
+                .verify();
+        verify(eventsGateway, times(2)).emit(any(Event.class));
+    }
+
+    @Test
+    void shouldNotPublishWhenUpdateFailsBeforeCompleting() {
+        // Given
+        when(patientRepository.updateActiveByIds(List.of("1", "2"), false))
+                .thenReturn(Flux.concat(Flux.just("1"), Flux.error(new RuntimeException("conexión perdida"))));
+
+        // When
+        var result = deletePatientUseCase.deactivatePatients(List.of("1", "2"));
+
+        // Then
+        StepVerifier.create(result)
+                .expectErrorMessage("conexión perdida")
+                .verify();
+        verify(eventsGateway, never()).emit(any(Event.class));
+    }
+
+    @Test
+    void shouldReturnAffectedIdsEvenWhenEventPublicationFails() {
+        // Given
+        when(patientRepository.updateActiveByIds(List.of("1", "2"), true)).thenReturn(Flux.just("2"));
+        when(eventsGateway.emit(any(Event.class))).thenReturn(Mono.error(new RuntimeException("broker caído")));
+
+        // When
+        var result = deletePatientUseCase.reactivatePatients(List.of("1", "2"));
+
+        // Then
+        StepVerifier.create(result)
+                .expectNext("2")
+                .verifyComplete();
+    }
+
+    @Test
+    void shouldRejectBulkChangeWithoutCity() {
+        // When
+        var result = deletePatientUseCase.deactivatePatientsByCity(" ");
+
+        // Then
+        StepVerifier.create(result)
+                .expectError(PatientBusinessException.class)
+                .verify();
+        verify(eventsGateway, never()).emit(any(Event.class));
+    }
+}
@@ -81,6 +81,7 @@ class GetPatientByIdUseCaseTest {
         // Given
         String patientId = "non-existent-id";
         when(patientRepository.findById(patientId)).thenReturn(Mono.empty());
+        when(patientRepository.findArchivedById(patientId)).thenReturn(Mono.empty());
 
         // When
         var result = getPatientByIdUseCase.execute(patientId);
@@ -91,6 +92,35 @@ class GetPatientByIdUseCaseTest {
                 .verify();
     }
 
+    @Test
+    void shouldFallBackToArchiveWhenPatientNotInMainTable() {
+        // Given
+        String patientId = "archived-id";
+        Patient archivedPatient = Patient.builder()
+                .id(patientId)
+                .firstName("John")
+                .lastName("Doe")
+                .birthDate(LocalDate.of(1990, 1, 1))
+                .admissionDate(LocalDateTime.now().minusYears(3))
+                .active(false)
+                .deactivatedAt(LocalDateTime.now().minusYears(2))
+                .build();
+
+        when(patientRepository.findById(patientId)).thenReturn(Mono.empty());
+        when(patientRepository.findArchivedById(patientId)).thenReturn(Mono.just(archivedPatient));
+
+        // When
+        var result = getPatientByIdUseCase.execute(patientId);
+
+        // Then
+        StepVerifier.create(result)
+                .assertNext(patient -> {
+                    assertEquals(patientId, patient.getId());
+                    assertFalse(patient.isActive());
+                })
+                .verifyComplete();
+    }
+
     @Test
     void shouldHandleRepositoryError() {
         // Given
@@ -0,0 +1,54 @@
+package sura.pruebalegoback.usecase.patient;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import reactor.core.publisher.Mono;
+import reactor.test.StepVerifier;
+import sura.pruebalegoback.domain.patient.gateway.PatientChangeCounterGateway;
+
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+class GetPatientsChangeCounterUseCaseTest {
+
+    @Mock
+    private PatientChangeCounterGateway patientChangeCounterGateway;
+
+    private GetPatientsChangeCounterUseCase getPatientsChangeCounterUseCase;
+
+    @BeforeEach
+    void setUp() {
+        getPatientsChangeCounterUseCase = new GetPatientsChangeCounterUseCase(patientChangeCounterGateway);
+    }
+
+    @Test
+    void shouldReturnCurrentCounter() {
+        // Given
+        when(patientChangeCounterGateway.current()).thenReturn(Mono.just(17L));
+
+        // When
+        var result = getPatientsChangeCounterUseCase.execute();
+
+        // Then
+        StepVerifier.create(result)
+                .expectNext(17L)
+                .verifyComplete();
+    }
+
+    @Test
+    void shouldCompleteEmptyWhenCounterCannotBeRead() {
+        // Given
+        when(patientChangeCounterGateway.current())
+                .thenReturn(Mono.error(new RuntimeException("relation does not exist")));
+
+        // When
+        var result = getPatientsChangeCounterUseCase.execute();
+
+        // Then
+        StepVerifier.create(result)
+                .verifyComplete();
+    }
+}
@@ -0,0 +1,194 @@
+package sura.pruebalegoback.usecase.patient;
+
+import org.junit.jupiter.api.Test;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Sinks;
+import reactor.test.StepVerifier;
+import sura.pruebalegoback.domain.patient.Patient;
+import sura.pruebalegoback.domain.patient.PatientChange;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class PatientQueryCacheTest {
+
+    private final Patient ana = patient("1", "Medellín", true);
+    private final Patient luis = patient("2", "Bogotá", true);
+    private final Patient sara = patient("3", "Cali", false);
+
+    private final AtomicInteger medellinLoads = new AtomicInteger();
+    private final AtomicInteger bogotaLoads = new AtomicInteger();
+    private final AtomicInteger activeLoads = new AtomicInteger();
+
+    private final PatientQueryCache cache = new PatientQueryCache(16, 10, Duration.ofMinutes(5));
+
+    @Test
+    public void shouldServeRepeatedQueryFromCache() {
+        StepVerifier.create(medellin()).expectNext(ana).verifyComplete();
+        StepVerifier.create(medellin()).expectNext(ana).verifyComplete();
+
+        assertThat(medellinLoads).hasValue(1);
+    }
+
+    @Test
+    public void shouldEvictOnlyListsTouchedByWrittenPatient() {
+        StepVerifier.create(medellin()).expectNext(ana).verifyComplete();
+        StepVerifier.create(bogota()).expectNext(luis).verifyComplete();
+        StepVerifier.create(active()).expectNext(ana, luis).verifyComplete();
+
+        // Ana se muda de Medellín a Cali: caen Medellín (donde estaba) y activos (donde sigue), no Bogotá
+        cache.patientWritten(ana.toBuilder().city("Cali").build());
+
+        StepVerifier.create(medellin()).expectNext(ana).verifyComplete();
+        StepVerifier.create(bogota()).expectNext(luis).verifyComplete();
+        StepVerifier.create(active()).expectNext(ana, luis).verifyComplete();
+        assertThat(medellinLoads).hasValue(2);
+        assertThat(bogotaLoads).hasValue(1);
+        assertThat(activeLoads).hasValue(2);
+    }
+
+    @Test
+    public void shouldEvictNewCityOfPatientNotYetListed() {
+        StepVerifier.create(bogota()).expectNext(luis).verifyComplete();
+
+        cache.patientWritten(patient("4", "Bogotá", false));
+
+        StepVerifier.create(bogota()).expectNext(luis).verifyComplete();
+        assertThat(bogotaLoads).hasValue(2);
+    }
+
+    @Test
+    public void shouldEvictOldAndNewValuesFromRemoteChange() {
+        StepVerifier.create(bogota()).expectNext(luis).verifyComplete();
+        StepVerifier.create(medellin()).expectNext(ana).verifyComplete();
+
+        // Cambio hecho en otra instancia sobre un paciente que aún no estaba en ningún listado cacheado
+        cache.apply(new PatientChange(PatientChange.Type.UPDATE, "9", 3L, "123", "Bogotá", true, "Pasto", false));
+
+        StepVerifier.create(bogota()).expectNext(luis).verifyComplete();
+        StepVerifier.create(medellin()).expectNext(ana).verifyComplete();
+        assertThat(bogotaLoads).hasValue(2);
+        assertThat(medellinLoads).hasValue(1);
+    }
+
+    @Test
+    public void shouldClearEverythingOnResync() {
+        StepVerifier.create(medellin()).expectNext(ana).verifyComplete();
+
+        cache.apply(PatientChange.resync());
+
+        assertThat(cache.size()).isZero();
+    }
+
+    @Test
+    public void shouldStreamButNotCacheResultsAboveSizeCap() {
+        PatientQueryCache small = new PatientQueryCache(16, 1, Duration.ofMinutes(5));
+
+        StepVerifier.create(small.byActive(true, () -> Flux.just(ana, luis))).expectNext(ana, luis).verifyComplete();
+
+        assertThat(small.size()).isZero();
+    }
+
+    @Test
+    public void shouldNotStoreLoadThatOverlapsInvalidation() {
+        Sinks.Many<Patient> slowLoad = Sinks.many().unicast().onBackpressureBuffer();
+        StepVerifier.create(cache.byCity("Medellín", slowLoad::asFlux))
+                .then(() -> {
+                    slowLoad.tryEmitNext(ana);
+                    cache.patientWritten(ana.toBuilder().active(false).build());
+                    slowLoad.tryEmitComplete();
+                })
+                .expectNext(ana)
+                .verifyComplete();
+
+        assertThat(cache.size()).isZero();
+    }
+
+    @Test
+    public void shouldDropLeastRecentlyUsedEntryBeyondMaxEntries() {
+        PatientQueryCache tiny = new PatientQueryCache(1, 10, Duration.ofMinutes(5));
+
+        StepVerifier.create(tiny.byCity("Medellín", () -> Flux.just(ana))).expectNext(ana).verifyComplete();
+        StepVerifier.create(tiny.byCity("Cali", () -> Flux.just(sara))).expectNext(sara).verifyComplete();
+
+        assertThat(tiny.size()).isEqualTo(1);
+    }
+
+    @Test
+    public void shouldVersionHitWithCounterReadBeforeItsLoad() {
+        StepVerifier.create(cache.byCity("Medellín", 5L, this::loadMedellin).patients()).expectNext(ana).verifyComplete();
+
+        // El contador ya avanzó (escritura en otra instancia) pero la invalidación aún no llega
+        PatientQueryCache.Listing hit = cache.byCity("Medellín", 7L, this::loadMedellin);
+
+        assertThat(hit.changeCounter()).isEqualTo(5L);
+        StepVerifier.create(hit.patients()).expectNext(ana).verifyComplete();
+        assertThat(medellinLoads).hasValue(1);
+    }
+
+    @Test
+    public void shouldVersionMissWithCounterItWasGiven() {
+        PatientQueryCache.Listing miss = cache.byCity("Medellín", 7L, this::loadMedellin);
+
+        assertThat(miss.changeCounter()).isEqualTo(7L);
+        StepVerifier.create(miss.patients()).expectNext(ana).verifyComplete();
+        assertThat(cache.byCity("Medellín", 9L, this::loadMedellin).changeCounter()).isEqualTo(7L);
+    }
+
+    @Test
+    public void shouldReloadEntryWithoutCounterWhenCounterIsKnown() {
+        StepVerifier.create(medellin()).expectNext(ana).verifyComplete();
+
+        PatientQueryCache.Listing listing = cache.byCity("Medellín", 7L, this::loadMedellin);
+
+        assertThat(listing.changeCounter()).isEqualTo(7L);
+        StepVerifier.create(listing.patients()).expectNext(ana).verifyComplete();
+        assertThat(medellinLoads).hasValue(2);
+    }
+
+    @Test
+    public void shouldAlwaysQueryWhenDisabled() {
+        PatientQueryCache disabled = PatientQueryCache.disabled();
+
+        StepVerifier.create(disabled.byCity("Medellín", this::loadMedellin)).expectNext(ana).verifyComplete();
+        StepVerifier.create(disabled.byCity("Medellín", this::loadMedellin)).expectNext(ana).verifyComplete();
+
+        assertThat(medellinLoads).hasValue(2);
+    }
+
+    private Flux<Patient> medellin() {
+        return cache.byCity("Medellín", this::loadMedellin);
+    }
+
+    private Flux<Patient> bogota() {
+        return cache.byCity("Bogotá", () -> {
+            bogotaLoads.incrementAndGet();
+            return Flux.just(luis);
+        });
+    }
+
+    private Flux<Patient> active() {
+        return cache.byActive(true, () -> {
+            activeLoads.incrementAndGet();
+            return Flux.fromIterable(List.of(ana, luis));
+        });
+    }
+
+    private Flux<Patient> loadMedellin() {
+        medellinLoads.incrementAndGet();
+        return Flux.just(ana);
+    }
+
+    private static Patient patient(String id, String city, boolean active) {
+        return Patient.builder()
+                .id(id)
+                .firstName("Paciente")
+                .lastName(id)
+                .city(city)
+                .active(active)
+                .build();
+    }
+}
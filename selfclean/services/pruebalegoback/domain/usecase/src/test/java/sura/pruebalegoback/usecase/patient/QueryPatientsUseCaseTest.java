@@ -9,15 +9,26 @@ import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
 import reactor.test.StepVerifier;
 import sura.pruebalegoback.domain.patient.Patient;
+import sura.pruebalegoback.domain.patient.PatientField;
+import sura.pruebalegoback.domain.patient.PatientSearchCriteria;
+import sura.pruebalegoback.domain.patient.ex.PatientBusinessException;
+import sura.pruebalegoback.domain.patient.gateway.DocumentNumberFilter;
 import sura.pruebalegoback.domain.patient.gateway.PatientRepository;
 
+import java.time.Duration;
 import java.time.LocalDate;
 import java.time.LocalDateTime;
+import java.util.EnumSet;
 import java.util.List;
 
 import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.ArgumentMatchers.anyBoolean;
 import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.argThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
 @ExtendWith(MockitoExtension.class)
@@ -112,6 +123,78 @@ class QueryPatientsUseCaseTest {
                 .verifyComplete();
     }
 
+    @Test
+    void shouldServeRepeatedCityListingFromQueryCacheUntilAPatientThereChanges() {
+        // Given
+        PatientQueryCache queryCache = new PatientQueryCache(16, 100, Duration.ofMinutes(5));
+        queryPatientsUseCase = new QueryPatientsUseCase(patientRepository, DocumentNumberFilter.alwaysCheck(), queryCache);
+        Patient patient = createTestPatient("1", "John", "Doe");
+        when(patientRepository.findByCity("Bogotá")).thenReturn(Flux.just(patient));
+
+        // When
+        StepVerifier.create(queryPatientsUseCase.getPatientByCity("Bogotá")).expectNextCount(1).verifyComplete();
+        StepVerifier.create(queryPatientsUseCase.getPatientByCity("Bogotá")).expectNextCount(1).verifyComplete();
+        queryCache.patientWritten(patient.toBuilder().city("Cali").build());
+        StepVerifier.create(queryPatientsUseCase.getPatientByCity("Bogotá")).expectNextCount(1).verifyComplete();
+
+        // Then
+        verify(patientRepository, times(2)).findByCity("Bogotá");
+    }
+
+    @Test
+    void shouldVersionMultipleCitiesWithOldestCachedCounter() {
+        // Given
+        PatientQueryCache queryCache = new PatientQueryCache(16, 100, Duration.ofMinutes(5));
+        queryPatientsUseCase = new QueryPatientsUseCase(patientRepository, DocumentNumberFilter.alwaysCheck(), queryCache);
+        Patient bogota = createTestPatient("1", "John", "Doe").toBuilder().city("Bogotá").build();
+        Patient medellin = createTestPatient("2", "Jane", "Smith").toBuilder().city("Medellín").build();
+        when(patientRepository.findByCity("Bogotá")).thenReturn(Flux.just(bogota));
+        when(patientRepository.findByCity("Medellín")).thenReturn(Flux.just(medellin));
+        StepVerifier.create(queryPatientsUseCase.getPatientByCity("Bogotá", PatientField.ALL, 4L).patients())
+                .expectNextCount(1)
+                .verifyComplete();
+
+        // When
+        var listing = queryPatientsUseCase.getPatientsByMultipleCities(List.of("Bogotá", "Medellín"), 9L);
+
+        // Then
+        assertEquals(4L, listing.changeCounter());
+        StepVerifier.create(listing.patients()).expectNextCount(2).verifyComplete();
+    }
+
+    @Test
+    void shouldReadOnlyRequestedFieldsPlusCityForProjectedCityListing() {
+        // Given
+        Patient patient = Patient.builder().id("1").city("Bogotá").build();
+        when(patientRepository.findByCity("Bogotá", EnumSet.of(PatientField.ID, PatientField.CITY)))
+                .thenReturn(Flux.just(patient));
+
+        // When
+        var result = queryPatientsUseCase.getPatientByCity("Bogotá", EnumSet.of(PatientField.ID));
+
+        // Then
+        StepVerifier.create(result)
+                .assertNext(p -> assertEquals("1", p.getId()))
+                .verifyComplete();
+        verify(patientRepository, never()).findByCity("Bogotá");
+    }
+
+    @Test
+    void shouldKeepActiveFilterWhenProjectionOmitsActive() {
+        // Given
+        Patient active = Patient.builder().id("1").active(true).build();
+        when(patientRepository.findByActive(true, EnumSet.of(PatientField.ID, PatientField.ACTIVE)))
+                .thenReturn(Flux.just(active));
+
+        // When
+        var result = queryPatientsUseCase.getActivePatients(EnumSet.of(PatientField.ID));
+
+        // Then
+        StepVerifier.create(result)
+                .assertNext(p -> assertEquals("1", p.getId()))
+                .verifyComplete();
+    }
+
     @Test
     void shouldReturnPatientsByDocumentNumber() {
         // Given
@@ -135,6 +218,22 @@ class QueryPatientsUseCaseTest {
                 .verifyComplete();
     }
 
+    @Test
+    void shouldNotQueryRepositoryForDocumentRuledOutByFilter() {
+        // Given
+        DocumentNumberFilter filter = mock(DocumentNumberFilter.class);
+        when(filter.mightContain("99999999")).thenReturn(false);
+        queryPatientsUseCase = new QueryPatientsUseCase(patientRepository, filter);
+
+        // When
+        var result = queryPatientsUseCase.getPatientsByDocumentNumber("99999999");
+
+        // Then
+        StepVerifier.create(result)
+                .verifyComplete();
+        verify(patientRepository, never()).findByDocumentNumber(anyString());
+    }
+
     @Test
     void shouldReturnPatientsByAgeRange() {
         // Given
@@ -184,6 +283,131 @@ class QueryPatientsUseCaseTest {
                 .verifyComplete();
     }
 
+    @Test
+    void shouldReturnPatientsAdmittedBetweenDates() {
+        // Given
+        LocalDateTime from = LocalDateTime.of(2024, 1, 1, 0, 0);
+        LocalDateTime to = LocalDateTime.of(2024, 1, 1, 23, 59);
+        Patient patient = createTestPatient("1", "John", "Doe").toBuilder()
+                .admissionDate(LocalDateTime.of(2024, 1, 1, 8, 30))
+                .build();
+
+        when(patientRepository.findByAdmissionDateBetween(from, to)).thenReturn(Flux.just(patient));
+
+        // When
+        var result = queryPatientsUseCase.getPatientsAdmittedBetween(from, to);
+
+        // Then
+        StepVerifier.create(result)
+                .assertNext(p -> assertEquals("1", p.getId()))
+                .verifyComplete();
+    }
+
+    @Test
+    void shouldRejectInvertedAdmissionRange() {
+        // Given
+        LocalDateTime from = LocalDateTime.of(2024, 1, 2, 0, 0);
+        LocalDateTime to = LocalDateTime.of(2024, 1, 1, 0, 0);
+
+        // When
+        var result = queryPatientsUseCase.getPatientsAdmittedBetween(from, to);
+
+        // Then
+        StepVerifier.create(result)
+                .expectError(PatientBusinessException.class)
+                .verify();
+    }
+
+    @Test
+    void shouldApplyDefaultSortAndLimitToSearch() {
+        // Given
+        Patient patient = createTestPatient("1", "John", "Doe");
+        PatientSearchCriteria criteria = PatientSearchCriteria.builder()
+                .cities(List.of("Medellín"))
+                .active(true)
+                .build();
+        when(patientRepository.search(argThat(c ->
+                c.getLimit() == QueryPatientsUseCase.DEFAULT_SEARCH_LIMIT
+                        && c.getSortBy() == PatientSearchCriteria.SortField.ADMISSION_DATE
+                        && c.getCities().equals(List.of("Medellín")))))
+                .thenReturn(Flux.just(patient));
+
+        // When
+        var result = queryPatientsUseCase.searchPatients(criteria);
+
+        // Then
+        StepVerifier.create(result)
+                .assertNext(p -> assertEquals("1", p.getId()))
+                .verifyComplete();
+    }
+
+    @Test
+    void shouldRejectSearchWithInvertedAgeRange() {
+        // Given
+        PatientSearchCriteria criteria = PatientSearchCriteria.builder()
+                .minAge(60)
+                .maxAge(30)
+                .build();
+
+        // When
+        var result = queryPatientsUseCase.searchPatients(criteria);
+
+        // Then
+        StepVerifier.create(result)
+                .expectError(PatientBusinessException.class)
+                .verify();
+    }
+
+    @Test
+    void shouldRejectSearchLimitAboveMaximum() {
+        // Given
+        PatientSearchCriteria criteria = PatientSearchCriteria.builder()
+                .limit(QueryPatientsUseCase.MAX_SEARCH_LIMIT + 1)
+                .build();
+
+        // When
+        var result = queryPatientsUseCase.searchPatients(criteria);
+
+        // Then
+        StepVerifier.create(result)
+                .expectError(PatientBusinessException.class)
+                .verify();
+    }
+
+    @Test
+    void shouldUsePlannerEstimateForApproximateCityCount() {
+        // Given
+        when(patientRepository.estimateCountByCity("Medellín")).thenReturn(Mono.just(1200L));
+
+        // When
+        var result = queryPatientsUseCase.countPatients("Medellín", false);
+
+        // Then
+        StepVerifier.create(result)
+                .assertNext(count -> {
+                    assertEquals(1200L, count.count());
+                    assertFalse(count.exact());
+                })
+                .verifyComplete();
+    }
+
+    @Test
+    void shouldCountAllPatientsExactlyWhenNoCityGiven() {
+        // Given
+        when(patientRepository.countAll()).thenReturn(Mono.just(42L));
+
+        // When
+        var result = queryPatientsUseCase.countPatients(" ", true);
+
+        // Then
+        StepVerifier.create(result)
+                .assertNext(count -> {
+                    assertEquals(42L, count.count());
+                    assertTrue(count.exact());
+                })
+                .verifyComplete();
+    }
+
     @Test
     void shouldHandleRepositoryError() {
         // Given
@@ -9,6 +9,7 @@ import reactor.core.publisher.Mono;
 import reactor.test.StepVerifier;
 import sura.pruebalegoback.domain.patient.Patient;
 import sura.pruebalegoback.domain.patient.ex.PatientBusinessException;
+import sura.pruebalegoback.domain.patient.ex.PatientVersionConflictException;
 import sura.pruebalegoback.domain.patient.gateway.PatientRepository;
 
 import java.time.LocalDate;
@@ -17,6 +18,8 @@ import java.time.LocalDateTime;
 import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
 @ExtendWith(MockitoExtension.class)
@@ -204,4 +207,33 @@ class UpdatePatientUseCaseTest {
                 .expectError(PatientBusinessException.class)
                 .verify();
     }
+
+    @Test
+    void shouldRejectUpdateWhenVersionDoesNotMatch() {
+        // Given
+        String patientId = "test-id";
+        Patient existingPatient = Patient.builder()
+                .id(patientId)
+                .firstName("John")
+                .lastName("Doe")
+                .birthDate(LocalDate.of(1990, 1, 1))
+                .admissionDate(LocalDateTime.now())
+                .active(true)
+                .version(3L)
+                .build();
+        UpdatePatientUseCase.PatientUpdateData updateData = new UpdatePatientUseCase.PatientUpdateData(
+                "John Updated", null, null, null, null, null, null
+        );
+
+        when(patientRepository.findById(patientId)).thenReturn(Mono.just(existingPatient));
+
+        // When
+        var result = updatePatientUseCase.updatePatient(patientId, updateData, 2L);
+
+        // Then
+        StepVerifier.create(result)
+                .expectError(PatientVersionConflictException.class)
+                .verify();
+        verify(patientRepository, never()).update(any(Patient.class));
+    }
 }
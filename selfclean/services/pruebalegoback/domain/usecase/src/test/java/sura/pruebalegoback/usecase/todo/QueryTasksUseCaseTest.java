@@ -3,7 +3,6 @@ package sura.pruebalegoback.usecase.todo;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
-import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
 import reactor.core.publisher.Flux;
@@ -15,16 +14,19 @@ import sura.pruebalegoback.domain.user.User;
 import sura.pruebalegoback.domain.user.gateway.UserGateway;
 import sura.pruebalegoback.domain.todo.gateway.TaskToDoRepository;
 
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
 import java.util.concurrent.atomic.AtomicInteger;
 
 import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.Mockito.when;
 import static reactor.function.TupleUtils.consumer;
 
 @ExtendWith(MockitoExtension.class)
 public class QueryTasksUseCaseTest {
 
-    @InjectMocks
     private QueryTasksUseCase useCase;
 
     @Mock
@@ -42,6 +44,11 @@ public class QueryTasksUseCaseTest {
     private final String userId = "56";
     private final User user = User.builder().id("56").name("Daniel").lastName("Ospina").build();
 
+    @BeforeEach
+    public void setUp() {
+        useCase = new QueryTasksUseCase(repository, userGateway);
+    }
+
     @Test
     public void findAll() {
         final Flux<TaskToDo> tasks = Flux.just(
@@ -60,6 +67,25 @@ public class QueryTasksUseCaseTest {
         assertThat(queryCount).hasValue(1);
     }
 
+    @Test
+    public void findAllChainedAfterSaveSeesTheWrite() {
+        List<TaskToDo> stored = new ArrayList<>(List.of(task1));
+        when(repository.findAll()).thenAnswer(invocation -> Flux.fromIterable(List.copyOf(stored)));
+        when(repository.save(any(TaskToDo.class))).thenAnswer(invocation -> Mono.fromCallable(() -> {
+            stored.add(invocation.getArgument(0));
+            return invocation.<TaskToDo>getArgument(0);
+        }));
+        TaskListCache cache = new TaskListCache(Duration.ofMinutes(1));
+        InvalidatingTaskToDoRepository writer = new InvalidatingTaskToDoRepository(repository, cache);
+        useCase = new QueryTasksUseCase(repository, userGateway, cache);
+        StepVerifier.create(useCase.findAll()).expectNext(task1).verifyComplete();
+
+        // La lectura se suscribe al recibir onComplete de la escritura: la invalidación tiene que ir antes
+        StepVerifier.create(writer.save(task2).thenMany(useCase.findAll()))
+                .expectNext(task1, task2)
+                .verifyComplete();
+    }
+
     @Test
     public void findTodoWithDetails() {
         when(repository.findById(taskId)).thenReturn(Mono.just(task1));
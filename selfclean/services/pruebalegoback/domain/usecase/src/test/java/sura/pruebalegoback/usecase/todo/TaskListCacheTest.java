@@ -0,0 +1,101 @@
+package sura.pruebalegoback.usecase.todo;
+
+import org.junit.jupiter.api.Test;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Sinks;
+import reactor.test.StepVerifier;
+import sura.pruebalegoback.domain.todo.TaskToDo;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class TaskListCacheTest {
+
+    private final TaskToDo task1 = TaskToDo.builder().id("1").name("Task 1").build();
+    private final TaskToDo task2 = TaskToDo.builder().id("2").name("Task 2").build();
+
+    private final List<TaskToDo> stored = new ArrayList<>(List.of(task1));
+    private final AtomicInteger loads = new AtomicInteger();
+
+    private Flux<TaskToDo> loadTasks() {
+        loads.incrementAndGet();
+        return Flux.fromIterable(List.copyOf(stored));
+    }
+
+    @Test
+    public void shouldServeCachedTasksWhileFresh() {
+        TaskListCache cache = new TaskListCache(Duration.ofMinutes(1));
+
+        StepVerifier.create(cache.get(this::loadTasks)).expectNext(task1).verifyComplete();
+        StepVerifier.create(cache.get(this::loadTasks)).expectNext(task1).verifyComplete();
+
+        assertThat(loads).hasValue(1);
+    }
+
+    @Test
+    public void shouldReloadBeforeServingAfterInvalidation() {
+        TaskListCache cache = new TaskListCache(Duration.ofMinutes(1));
+        StepVerifier.create(cache.get(this::loadTasks)).expectNext(task1).verifyComplete();
+
+        stored.add(task2);
+        cache.invalidate();
+
+        StepVerifier.create(cache.get(this::loadTasks)).expectNext(task1, task2).verifyComplete();
+        assertThat(loads).hasValue(2);
+    }
+
+    @Test
+    public void shouldServeStaleTasksAndRefreshInBackground() {
+        List<Duration> staleness = new ArrayList<>();
+        TaskListCache cache = new TaskListCache(Duration.ZERO, new TaskListCache.Listener() {
+            @Override
+            public void staleServed(Duration age) {
+                staleness.add(age);
+            }
+        });
+        StepVerifier.create(cache.get(this::loadTasks)).expectNext(task1).verifyComplete();
+
+        Sinks.One<Boolean> release = Sinks.one();
+        stored.add(task2);
+        Flux<TaskToDo> slowLoad = release.asMono().thenMany(Flux.defer(this::loadTasks));
+
+        // La copia vencida se entrega sin esperar la recarga
+        StepVerifier.create(cache.get(() -> slowLoad)).expectNext(task1).verifyComplete();
+        assertThat(staleness).hasSize(1);
+
+        release.tryEmitValue(true);
+        StepVerifier.create(cache.get(this::loadTasks)).expectNext(task1, task2).verifyComplete();
+        assertThat(loads.get()).isGreaterThanOrEqualTo(2);
+    }
+
+    @Test
+    public void shouldNotReuseLoadStartedBeforeInvalidation() {
+        TaskListCache cache = new TaskListCache(Duration.ofMinutes(1));
+        Sinks.One<Boolean> release = Sinks.one();
+        Flux<TaskToDo> slowLoad = release.asMono().thenMany(Flux.defer(this::loadTasks));
+
+        List<TaskToDo> firstReader = new ArrayList<>();
+        cache.get(() -> slowLoad).subscribe(firstReader::add);
+
+        stored.add(task2);
+        cache.invalidate();
+
+        StepVerifier.create(cache.get(this::loadTasks)).expectNext(task1, task2).verifyComplete();
+        release.tryEmitValue(true);
+        assertThat(firstReader).containsExactly(task1, task2);
+    }
+
+    @Test
+    public void shouldRetryAfterFailedLoad() {
+        TaskListCache cache = new TaskListCache(Duration.ofMinutes(1));
+
+        StepVerifier.create(cache.get(() -> Flux.error(new RuntimeException("Database error"))))
+                .expectError(RuntimeException.class)
+                .verify();
+        StepVerifier.create(cache.get(this::loadTasks)).expectNext(task1).verifyComplete();
+    }
+}
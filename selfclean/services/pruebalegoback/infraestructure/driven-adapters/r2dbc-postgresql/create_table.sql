@@ -11,11 +11,118 @@ CREATE TABLE patients (
     city VARCHAR(100),
     state VARCHAR(100),
     admission_date TIMESTAMP NOT NULL,
-    active BOOLEAN NOT NULL
+    active BOOLEAN NOT NULL,
+    deactivated_at TIMESTAMP,
+    version BIGINT NOT NULL DEFAULT 0
+);
+
+-- Pacientes inactivos por más de N días, movidos por el job de archivado.
+-- Se mantiene fuera de la tabla caliente para que findAll/findByCity y sus índices no crezcan indefinidamente.
+CREATE TABLE patients_archive (
+    id VARCHAR(255) PRIMARY KEY,
+    first_name VARCHAR(255) NOT NULL,
+    last_name VARCHAR(255) NOT NULL,
+    document_number VARCHAR(255) NOT NULL,
+    document_type VARCHAR(50) NOT NULL,
+    birth_date DATE NOT NULL,
+    address TEXT,
+    phone VARCHAR(20),
+    email VARCHAR(255),
+    city VARCHAR(100),
+    state VARCHAR(100),
+    admission_date TIMESTAMP NOT NULL,
+    active BOOLEAN NOT NULL,
+    deactivated_at TIMESTAMP,
+    version BIGINT NOT NULL DEFAULT 0,
+    archived_at TIMESTAMP NOT NULL
 );
 
 -- Índices para mejorar rendimiento
-CREATE INDEX idx_patients_document_number ON patients(document_number);
+-- Un número de documento identifica a un solo paciente, sea cual sea su tipo: la misma regla que aplican la
+-- validación del caso de uso y el filtro de Bloom, que solo cubren las altas no concurrentes. El índice sirve
+-- además las búsquedas por documento.
+-- En una base existente requiere que no haya números repetidos; revisarlo (y depurarlos) antes de crearlo con
+--   SELECT document_number, array_agg(id) FROM patients GROUP BY document_number HAVING count(*) > 1;
+-- y después borrar el índice anterior: DROP INDEX idx_patients_document_number;
+CREATE UNIQUE INDEX uq_patients_document_number ON patients(document_number);
 CREATE INDEX idx_patients_city ON patients(city);
 CREATE INDEX idx_patients_active ON patients(active);
-CREATE INDEX idx_patients_admission_date ON patients(admission_date);
+CREATE INDEX idx_patients_deactivated_at ON patients(deactivated_at) WHERE active = false;
+-- Las filas llegan aproximadamente en orden de ingreso, por lo que un índice BRIN
+-- resuelve los rangos de admission_date con una fracción del tamaño de un B-tree
+CREATE INDEX idx_patients_admission_date ON patients USING BRIN (admission_date) WITH (pages_per_range = 32);
+
+-- Contador de cambios de patients: base de los ETags de los listados (GET /patients, /city/{city}, ...).
+-- El valor es la suma de 16 filas. Cada sentencia que modifica filas incrementa la fila que le toca a su
+-- backend, así los escritores concurrentes casi nunca esperan el mismo bloqueo de fila. Se incrementa dentro
+-- de la misma transacción, así que nunca se ve un valor nuevo antes de que los datos que lo provocaron sean
+-- visibles (un nextval() sí lo adelantaría: un listado leído antes del commit quedaría con el ETag nuevo).
+CREATE TABLE patients_change_counter (
+    slot SMALLINT PRIMARY KEY CHECK (slot BETWEEN 0 AND 15),
+    counter BIGINT NOT NULL
+);
+INSERT INTO patients_change_counter (slot, counter) SELECT s, 0 FROM generate_series(0, 15) AS s;
+
+-- Las tablas de transición permiten omitir las sentencias que no tocaron filas (UPDATE o DELETE sin coincidencias)
+CREATE FUNCTION bump_patients_change_counter() RETURNS trigger AS $$
+BEGIN
+    IF TG_OP = 'TRUNCATE' OR EXISTS (SELECT 1 FROM changed_rows) THEN
+        UPDATE patients_change_counter SET counter = counter + 1 WHERE slot = pg_backend_pid() % 16;
+    END IF;
+    RETURN NULL;
+END;
+$$ LANGUAGE plpgsql;
+
+-- Un trigger con tablas de transición admite un solo evento, por eso hay uno por operación
+CREATE TRIGGER patients_change_counter_insert
+    AFTER INSERT ON patients REFERENCING NEW TABLE AS changed_rows
+    FOR EACH STATEMENT EXECUTE FUNCTION bump_patients_change_counter();
+
+CREATE TRIGGER patients_change_counter_update
+    AFTER UPDATE ON patients REFERENCING NEW TABLE AS changed_rows
+    FOR EACH STATEMENT EXECUTE FUNCTION bump_patients_change_counter();
+
+CREATE TRIGGER patients_change_counter_delete
+    AFTER DELETE ON patients REFERENCING OLD TABLE AS changed_rows
+    FOR EACH STATEMENT EXECUTE FUNCTION bump_patients_change_counter();
+
+CREATE TRIGGER patients_change_counter_truncate
+    AFTER TRUNCATE ON patients
+    FOR EACH STATEMENT EXECUTE FUNCTION bump_patients_change_counter();
+
+-- Notifica cada cambio de patients por el canal patients_changed, que escuchan todas las instancias para
+-- invalidar sus cachés locales. pg_notify se entrega al confirmar. El payload es JSON porque lleva varios
+-- campos de texto libre (documento y ciudades); ciudad y estado anteriores permiten invalidar listados.
+CREATE FUNCTION notify_patient_change() RETURNS trigger AS $$
+BEGIN
+    IF TG_OP = 'DELETE' THEN
+        PERFORM pg_notify('patients_changed', json_build_object(
+            'op', TG_OP, 'version', OLD.version + 1, 'id', OLD.id, 'documentNumber', OLD.document_number,
+            'previousCity', OLD.city, 'previousActive', OLD.active)::text);
+    ELSIF TG_OP = 'UPDATE' THEN
+        PERFORM pg_notify('patients_changed', json_build_object(
+            'op', TG_OP, 'version', NEW.version, 'id', NEW.id, 'documentNumber', NEW.document_number,
+            'city', NEW.city, 'active', NEW.active, 'previousCity', OLD.city, 'previousActive', OLD.active)::text);
+    ELSE
+        PERFORM pg_notify('patients_changed', json_build_object(
+            'op', TG_OP, 'version', NEW.version, 'id', NEW.id, 'documentNumber', NEW.document_number,
+            'city', NEW.city, 'active', NEW.active)::text);
+    END IF;
+    RETURN NULL;
+END;
+$$ LANGUAGE plpgsql;
+
+CREATE FUNCTION notify_patients_truncate() RETURNS trigger AS $$
+BEGIN
+    PERFORM pg_notify('patients_changed', '{"op":"RESYNC"}');
+    RETURN NULL;
+END;
+$$ LANGUAGE plpgsql;
+
+CREATE TRIGGER patients_notify_change
+    AFTER INSERT OR UPDATE OR DELETE ON patients
+    FOR EACH ROW EXECUTE FUNCTION notify_patient_change();
+
+CREATE TRIGGER patients_notify_truncate
+    AFTER TRUNCATE ON patients
+    FOR EACH STATEMENT EXECUTE FUNCTION notify_patients_truncate();
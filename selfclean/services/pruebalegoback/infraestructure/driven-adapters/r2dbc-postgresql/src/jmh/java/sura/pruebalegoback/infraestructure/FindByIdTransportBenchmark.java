@@ -0,0 +1,76 @@
+package sura.pruebalegoback.infraestructure;
+
+import io.r2dbc.postgresql.PostgresqlConnectionConfiguration;
+import io.r2dbc.postgresql.PostgresqlConnectionFactory;
+import io.r2dbc.postgresql.api.PostgresqlConnection;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.util.concurrent.TimeUnit;
+
+/*
+ * Latencia de la consulta de findById por TCP loopback frente a socket Unix, sobre una única conexión
+ * (sin pool) para aislar el costo del transporte. Requiere un PostgreSQL local con datos en patients:
+ *
+ *   ./gradlew :driven-adapters-r2dbc-postgresql:jmh -Pjmh.includes=FindByIdTransportBenchmark \
+ *       -Dbench.pg.host=localhost -Dbench.pg.port=5432 -Dbench.pg.socket=/var/run/postgresql/.s.PGSQL.5432
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SampleTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class FindByIdTransportBenchmark {
+
+    private static final String FIND_BY_ID = "SELECT * FROM patients WHERE id = $1";
+
+    @Param({"tcp", "socket"})
+    private String transport;
+
+    private PostgresqlConnection connection;
+    private String patientId;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        PostgresqlConnectionConfiguration.Builder builder = PostgresqlConnectionConfiguration.builder()
+            .database(System.getProperty("bench.pg.database", "clinica_db"))
+            .username(System.getProperty("bench.pg.username", "postgres"))
+            .password(System.getProperty("bench.pg.password", "1234"));
+
+        if ("socket".equals(transport)) {
+            builder.socket(System.getProperty("bench.pg.socket", "/var/run/postgresql/.s.PGSQL.5432"));
+        } else {
+            builder.host(System.getProperty("bench.pg.host", "localhost"))
+                .port(Integer.getInteger("bench.pg.port", 5432));
+        }
+
+        connection = new PostgresqlConnectionFactory(builder.build()).create().block();
+        patientId = Flux.from(connection.createStatement("SELECT id FROM patients LIMIT 1").execute())
+            .flatMap(result -> result.map((row, metadata) -> row.get("id", String.class)))
+            .blockFirst();
+
+        if (patientId == null) {
+            throw new IllegalStateException("La tabla patients está vacía; cargue datos antes de ejecutar el benchmark");
+        }
+    }
+
+    @Benchmark
+    public String findById() {
+        return Flux.from(connection.createStatement(FIND_BY_ID).bind(0, patientId).execute())
+            .flatMap(result -> result.map((row, metadata) -> row.get("id", String.class)))
+            .blockLast();
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        Mono.from(connection.close()).block();
+    }
+}
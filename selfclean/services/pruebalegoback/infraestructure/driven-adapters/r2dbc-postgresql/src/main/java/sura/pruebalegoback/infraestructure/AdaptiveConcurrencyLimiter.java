@@ -0,0 +1,293 @@
+package sura.pruebalegoback.infraestructure;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.extern.slf4j.Slf4j;
+import reactor.core.Disposable;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.MonoSink;
+
+import java.time.Duration;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Límite de concurrencia adaptativo (AIMD con gradiente de latencia) delante del pool de conexiones.
+ * <p>
+ * El pool se crea con el tamaño máximo permitido y este limitador decide cuántas conexiones pueden
+ * estar en uso a la vez. En cada intervalo de muestreo:
+ * <ul>
+ *     <li>si la mayoría de las consultas catalogadas ({@link PatientQuery}) con muestras suficientes supera
+ *     {@code latencyTolerance} veces su propia línea base mientras el pool está en uso, la base de datos está
+ *     saturada y el límite se reduce multiplicativamente ({@code backoffRatio});</li>
+ *     <li>si no, y la espera media por una conexión supera {@code acquireWaitTarget}, el límite crece en uno;</li>
+ *     <li>si el pico de conexiones en uso no llega a la mitad del límite, se reduce en uno para liberar
+ *     backends (el pool los cierra tras {@code maxIdleTime}).</li>
+ * </ul>
+ * Cada consulta se compara solo consigo misma: una ráfaga de listados o conteos pesados no cambia la línea
+ * base de las lecturas puntuales, y una sola consulta lenta no basta para reducir el límite.
+ */
+@Slf4j
+public class AdaptiveConcurrencyLimiter {
+
+    private static final double BASELINE_DRIFT = 0.01;
+    private static final double IDLE_UTILIZATION = 0.5;
+    private static final int MIN_SAMPLES_TO_VOTE = 3;
+
+    private final int minLimit;
+    private final int maxLimit;
+    private final Duration sampleInterval;
+    private final long acquireWaitTargetNanos;
+    private final double latencyTolerance;
+    private final double backoffRatio;
+    private final MeterRegistry meterRegistry;
+
+    private final AtomicInteger limit;
+    private final AtomicInteger inFlight = new AtomicInteger();
+    private final AtomicInteger peakInFlight = new AtomicInteger();
+    private final Queue<Waiter> waiters = new ConcurrentLinkedQueue<>();
+
+    private final LongAdder acquireWaitNanos = new LongAdder();
+    private final LongAdder acquireCount = new LongAdder();
+    private final Map<String, QueryLatency> latencies = new ConcurrentHashMap<>();
+
+    private final Timer acquireWaitTimer;
+    private final Timer statementLatencyTimer;
+    private Disposable controlLoop;
+
+    public AdaptiveConcurrencyLimiter(int minLimit, int maxLimit, int initialLimit, Duration sampleInterval,
+                                      Duration acquireWaitTarget, double latencyTolerance, double backoffRatio,
+                                      MeterRegistry meterRegistry) {
+        if (minLimit <= 0 || maxLimit < minLimit) {
+            throw new IllegalArgumentException("Se requiere 0 < minLimit <= maxLimit");
+        }
+        this.minLimit = minLimit;
+        this.maxLimit = maxLimit;
+        this.sampleInterval = sampleInterval;
+        this.acquireWaitTargetNanos = acquireWaitTarget.toNanos();
+        this.latencyTolerance = latencyTolerance;
+        this.backoffRatio = backoffRatio;
+        this.meterRegistry = meterRegistry;
+        this.limit = new AtomicInteger(Math.max(minLimit, Math.min(maxLimit, initialLimit)));
+
+        Gauge.builder("r2dbc.pool.adaptive.limit", limit, AtomicInteger::get)
+            .description("Conexiones que pueden estar en uso simultáneamente")
+            .register(meterRegistry);
+        Gauge.builder("r2dbc.pool.adaptive.in-flight", inFlight, AtomicInteger::get)
+            .register(meterRegistry);
+        Gauge.builder("r2dbc.pool.adaptive.waiting", waiters, Queue::size)
+            .register(meterRegistry);
+        this.acquireWaitTimer = Timer.builder("r2dbc.pool.adaptive.acquire.wait")
+            .description("Tiempo hasta obtener una conexión (límite adaptativo + pool)")
+            .register(meterRegistry);
+        this.statementLatencyTimer = Timer.builder("r2dbc.pool.adaptive.statement.latency")
+            .description("Tiempo hasta el primer resultado de cada sentencia")
+            .register(meterRegistry);
+    }
+
+    public void start() {
+        controlLoop = Flux.interval(sampleInterval, sampleInterval)
+            .subscribe(tick -> adjust(), error -> log.error("Control adaptativo del pool detenido: {}", error.getMessage(), error));
+        log.info("Control adaptativo del pool iniciado: límite {} (min {}, max {})", limit.get(), minLimit, maxLimit);
+    }
+
+    public void stop() {
+        if (controlLoop != null) {
+            controlLoop.dispose();
+        }
+    }
+
+    /**
+     * Emite un permiso cuando hay capacidad. Un permiso entregado a un suscriptor ya cancelado
+     * se descarta y se libera automáticamente.
+     */
+    public Mono<Permit> acquire() {
+        return Mono.<Permit>create(sink -> {
+                Waiter waiter = new Waiter(sink);
+                if (waiters.isEmpty() && tryAcquire()) {
+                    waiter.grant();
+                    return;
+                }
+                waiters.offer(waiter);
+                sink.onCancel(() -> {
+                    waiter.cancel();
+                    waiters.remove(waiter);
+                });
+                drain();
+            })
+            .doOnDiscard(Permit.class, Permit::release);
+    }
+
+    public void recordAcquireWait(long nanos) {
+        acquireWaitNanos.add(nanos);
+        acquireCount.increment();
+        acquireWaitTimer.record(nanos, TimeUnit.NANOSECONDS);
+    }
+
+    /**
+     * @param queryName nombre de la {@link PatientQuery}; null para SQL no catalogado, que solo se mide en el
+     *                  timer y no participa en el control (su latencia depende de la forma de cada búsqueda)
+     */
+    public void recordStatementLatency(String queryName, long nanos) {
+        statementLatencyTimer.record(nanos, TimeUnit.NANOSECONDS);
+        if (queryName != null) {
+            latencies.computeIfAbsent(queryName, name -> new QueryLatency()).record(nanos);
+        }
+    }
+
+    public int currentLimit() {
+        return limit.get();
+    }
+
+    void adjust() {
+        long acquires = acquireCount.sumThenReset();
+        long avgAcquireWait = acquires == 0 ? 0 : acquireWaitNanos.sumThenReset() / acquires;
+        int peak = peakInFlight.getAndSet(inFlight.get());
+
+        int voting = 0;
+        int slow = 0;
+        for (QueryLatency latency : latencies.values()) {
+            switch (latency.sample(latencyTolerance)) {
+                case SLOW -> {
+                    voting++;
+                    slow++;
+                }
+                case NORMAL -> voting++;
+                case NOT_ENOUGH -> {
+                }
+            }
+        }
+
+        int current = limit.get();
+        boolean busy = peak >= current * IDLE_UTILIZATION;
+        int next = current;
+        String reason = null;
+
+        if (busy && slow * 2 > voting) {
+            next = Math.max(minLimit, (int) Math.floor(current * backoffRatio));
+            reason = "latency";
+        } else if (acquires > 0 && avgAcquireWait > acquireWaitTargetNanos) {
+            next = Math.min(maxLimit, current + 1);
+            reason = "acquire-wait";
+        } else if (peak < current * IDLE_UTILIZATION) {
+            next = Math.max(minLimit, current - 1);
+            reason = "idle";
+        }
+
+        if (next != current && limit.compareAndSet(current, next)) {
+            String direction = next > current ? "increase" : "decrease";
+            log.debug("Límite del pool {} -> {} ({}; espera media {} µs, consultas lentas {} de {}, pico en uso {})",
+                current, next, reason, avgAcquireWait / 1_000, slow, voting, peak);
+            Counter.builder("r2dbc.pool.adaptive.adjustments")
+                .tag("direction", direction)
+                .tag("reason", reason)
+                .register(meterRegistry)
+                .increment();
+            drain();
+        }
+    }
+
+    private boolean tryAcquire() {
+        while (true) {
+            int current = inFlight.get();
+            if (current >= limit.get()) {
+                return false;
+            }
+            if (inFlight.compareAndSet(current, current + 1)) {
+                peakInFlight.accumulateAndGet(current + 1, Math::max);
+                return true;
+            }
+        }
+    }
+
+    private void release() {
+        inFlight.decrementAndGet();
+        drain();
+    }
+
+    private void drain() {
+        while (!waiters.isEmpty() && tryAcquire()) {
+            Waiter next = waiters.poll();
+            if (next == null || !next.grant()) {
+                inFlight.decrementAndGet();
+            }
+        }
+    }
+
+    private enum Vote { SLOW, NORMAL, NOT_ENOUGH }
+
+    /**
+     * Latencias de una consulta en el intervalo actual y su línea base: el mínimo observado, que se relaja
+     * lentamente para seguir cambios legítimos (más datos, otro plan). Solo el lazo de control llama a sample.
+     */
+    private static final class QueryLatency {
+
+        private final LongAdder totalNanos = new LongAdder();
+        private final LongAdder count = new LongAdder();
+        private long baselineNanos = Long.MAX_VALUE;
+
+        private void record(long nanos) {
+            totalNanos.add(nanos);
+            count.increment();
+        }
+
+        private Vote sample(double tolerance) {
+            long samples = count.sumThenReset();
+            long total = totalNanos.sumThenReset();
+            if (samples == 0) {
+                return Vote.NOT_ENOUGH;
+            }
+            long average = total / samples;
+            long previous = baselineNanos;
+            baselineNanos = previous == Long.MAX_VALUE
+                ? average
+                : Math.min(average, (long) (previous * (1 + BASELINE_DRIFT)));
+            if (previous == Long.MAX_VALUE || samples < MIN_SAMPLES_TO_VOTE) {
+                return Vote.NOT_ENOUGH;
+            }
+            return average > previous * tolerance ? Vote.SLOW : Vote.NORMAL;
+        }
+    }
+
+    public final class Permit {
+
+        private final AtomicBoolean released = new AtomicBoolean();
+
+        public void release() {
+            if (released.compareAndSet(false, true)) {
+                AdaptiveConcurrencyLimiter.this.release();
+            }
+        }
+    }
+
+    private final class Waiter {
+
+        private final MonoSink<Permit> sink;
+        private final AtomicBoolean done = new AtomicBoolean();
+
+        private Waiter(MonoSink<Permit> sink) {
+            this.sink = sink;
+        }
+
+        private boolean grant() {
+            if (!done.compareAndSet(false, true)) {
+                return false;
+            }
+            sink.success(new Permit());
+            return true;
+        }
+
+        private void cancel() {
+            done.compareAndSet(false, true);
+        }
+    }
+}
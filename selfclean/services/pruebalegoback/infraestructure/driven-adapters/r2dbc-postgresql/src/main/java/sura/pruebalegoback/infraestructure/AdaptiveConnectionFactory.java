@@ -0,0 +1,245 @@
+package sura.pruebalegoback.infraestructure;
+
+import io.r2dbc.pool.ConnectionPool;
+import io.r2dbc.spi.Batch;
+import io.r2dbc.spi.Connection;
+import io.r2dbc.spi.ConnectionFactory;
+import io.r2dbc.spi.ConnectionFactoryMetadata;
+import io.r2dbc.spi.ConnectionMetadata;
+import io.r2dbc.spi.IsolationLevel;
+import io.r2dbc.spi.Result;
+import io.r2dbc.spi.Statement;
+import io.r2dbc.spi.TransactionDefinition;
+import io.r2dbc.spi.ValidationDepth;
+import io.r2dbc.spi.Wrapped;
+import org.reactivestreams.Publisher;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * {@link ConnectionFactory} que entrega conexiones del pool solo cuando el
+ * {@link AdaptiveConcurrencyLimiter} lo permite. El permiso se devuelve al cerrar la conexión y la
+ * latencia de cada sentencia (hasta su primer resultado) alimenta el control del límite, identificada por
+ * su {@link PatientQuery} para que cada consulta se compare con su propia línea base.
+ * <p>
+ * Implementa {@link Wrapped} en factoría y conexiones para que {@code unwrap} siga llegando a la
+ * conexión nativa de PostgreSQL (cancelación de consultas).
+ */
+public class AdaptiveConnectionFactory implements ConnectionFactory, Wrapped<ConnectionFactory> {
+
+    private final ConnectionPool pool;
+    private final AdaptiveConcurrencyLimiter limiter;
+
+    public AdaptiveConnectionFactory(ConnectionPool pool, AdaptiveConcurrencyLimiter limiter) {
+        this.pool = pool;
+        this.limiter = limiter;
+    }
+
+    @Override
+    public Publisher<? extends Connection> create() {
+        return Mono.defer(() -> {
+            long start = System.nanoTime();
+            return limiter.acquire()
+                .flatMap(permit -> Mono.from(pool.create())
+                    .<Connection>map(connection -> new LimitedConnection(connection, permit))
+                    .doOnSuccess(connection -> limiter.recordAcquireWait(System.nanoTime() - start))
+                    .doOnError(error -> permit.release())
+                    .doOnCancel(permit::release));
+        });
+    }
+
+    @Override
+    public ConnectionFactoryMetadata getMetadata() {
+        return pool.getMetadata();
+    }
+
+    @Override
+    public ConnectionFactory unwrap() {
+        return pool;
+    }
+
+    private final class LimitedConnection implements Connection, Wrapped<Connection> {
+
+        private final Connection delegate;
+        private final AdaptiveConcurrencyLimiter.Permit permit;
+        private final AtomicBoolean closed = new AtomicBoolean();
+
+        private LimitedConnection(Connection delegate, AdaptiveConcurrencyLimiter.Permit permit) {
+            this.delegate = delegate;
+            this.permit = permit;
+        }
+
+        @Override
+        public Publisher<Void> close() {
+            return Mono.defer(() -> closed.compareAndSet(false, true)
+                ? Mono.from(delegate.close()).doFinally(signal -> permit.release())
+                : Mono.empty());
+        }
+
+        @Override
+        public Statement createStatement(String sql) {
+            String queryName = PatientQuery.bySql(sql).map(PatientQuery::queryName).orElse(null);
+            return new TimedStatement(delegate.createStatement(sql), queryName);
+        }
+
+        @Override
+        public Connection unwrap() {
+            return delegate;
+        }
+
+        @Override
+        public Publisher<Void> beginTransaction() {
+            return delegate.beginTransaction();
+        }
+
+        @Override
+        public Publisher<Void> beginTransaction(TransactionDefinition definition) {
+            return delegate.beginTransaction(definition);
+        }
+
+        @Override
+        public Publisher<Void> commitTransaction() {
+            return delegate.commitTransaction();
+        }
+
+        @Override
+        public Batch createBatch() {
+            return delegate.createBatch();
+        }
+
+        @Override
+        public Publisher<Void> createSavepoint(String name) {
+            return delegate.createSavepoint(name);
+        }
+
+        @Override
+        public boolean isAutoCommit() {
+            return delegate.isAutoCommit();
+        }
+
+        @Override
+        public ConnectionMetadata getMetadata() {
+            return delegate.getMetadata();
+        }
+
+        @Override
+        public IsolationLevel getTransactionIsolationLevel() {
+            return delegate.getTransactionIsolationLevel();
+        }
+
+        @Override
+        public Publisher<Void> releaseSavepoint(String name) {
+            return delegate.releaseSavepoint(name);
+        }
+
+        @Override
+        public Publisher<Void> rollbackTransaction() {
+            return delegate.rollbackTransaction();
+        }
+
+        @Override
+        public Publisher<Void> rollbackTransactionToSavepoint(String name) {
+            return delegate.rollbackTransactionToSavepoint(name);
+        }
+
+        @Override
+        public Publisher<Void> setAutoCommit(boolean autoCommit) {
+            return delegate.setAutoCommit(autoCommit);
+        }
+
+        @Override
+        public Publisher<Void> setLockWaitTimeout(Duration timeout) {
+            return delegate.setLockWaitTimeout(timeout);
+        }
+
+        @Override
+        public Publisher<Void> setStatementTimeout(Duration timeout) {
+            return delegate.setStatementTimeout(timeout);
+        }
+
+        @Override
+        public Publisher<Void> setTransactionIsolationLevel(IsolationLevel isolationLevel) {
+            return delegate.setTransactionIsolationLevel(isolationLevel);
+        }
+
+        @Override
+        public Publisher<Boolean> validate(ValidationDepth depth) {
+            return delegate.validate(depth);
+        }
+    }
+
+    private final class TimedStatement implements Statement, Wrapped<Statement> {
+
+        private final Statement delegate;
+        private final String queryName;
+
+        private TimedStatement(Statement delegate, String queryName) {
+            this.delegate = delegate;
+            this.queryName = queryName;
+        }
+
+        @Override
+        public Publisher<? extends Result> execute() {
+            return Flux.defer(() -> {
+                long start = System.nanoTime();
+                AtomicBoolean recorded = new AtomicBoolean();
+                return Flux.from(delegate.execute())
+                    .doOnNext(result -> {
+                        if (recorded.compareAndSet(false, true)) {
+                            limiter.recordStatementLatency(queryName, System.nanoTime() - start);
+                        }
+                    });
+            });
+        }
+
+        @Override
+        public Statement add() {
+            delegate.add();
+            return this;
+        }
+
+        @Override
+        public Statement bind(int index, Object value) {
+            delegate.bind(index, value);
+            return this;
+        }
+
+        @Override
+        public Statement bind(String name, Object value) {
+            delegate.bind(name, value);
+            return this;
+        }
+
+        @Override
+        public Statement bindNull(int index, Class<?> type) {
+            delegate.bindNull(index, type);
+            return this;
+        }
+
+        @Override
+        public Statement bindNull(String name, Class<?> type) {
+            delegate.bindNull(name, type);
+            return this;
+        }
+
+        @Override
+        public Statement returnGeneratedValues(String... columns) {
+            delegate.returnGeneratedValues(columns);
+            return this;
+        }
+
+        @Override
+        public Statement fetchSize(int rows) {
+            delegate.fetchSize(rows);
+            return this;
+        }
+
+        @Override
+        public Statement unwrap() {
+            return delegate;
+        }
+    }
+}
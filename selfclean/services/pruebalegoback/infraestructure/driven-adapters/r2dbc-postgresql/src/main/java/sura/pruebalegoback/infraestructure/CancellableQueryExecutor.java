@@ -0,0 +1,184 @@
+package sura.pruebalegoback.infraestructure;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.r2dbc.postgresql.api.PostgresqlConnection;
+import io.r2dbc.spi.Connection;
+import io.r2dbc.spi.ConnectionFactory;
+import io.r2dbc.spi.Row;
+import io.r2dbc.spi.RowMetadata;
+import io.r2dbc.spi.Statement;
+import io.r2dbc.spi.Wrapped;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.r2dbc.core.R2dbcEntityTemplate;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Schedulers;
+
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.function.BiFunction;
+
+/**
+ * Ejecuta consultas de lectura de larga duración de forma que, si el suscriptor cancela
+ * (p. ej. el cliente HTTP se desconecta), se envíe un CancelRequest a PostgreSQL y la consulta deje de
+ * consumir el backend.
+ * <p>
+ * El CancelRequest viaja por una conexión aparte y se completa en cuanto se envía: el error 57014 y el
+ * ReadyForQuery de la consulta cancelada llegan después por la conexión original, que ya nadie lee. Por eso esa
+ * conexión no vuelve a usarse: se cierra la conexión física y el pool, que la valida al entregarla, la descarta
+ * y abre otra en su lugar.
+ * <p>
+ * En los listados ({@link #streamListing}) las filas se piden de a {@code fetchSize} (portal con Execute
+ * limitado): el driver solo pide el siguiente lote cuando el suscriptor tiene demanda, así un cliente lento
+ * frena la lectura en PostgreSQL en vez de acumular el resultado completo en memoria. Mientras tanto la
+ * conexión y su transacción implícita siguen abiertas, así que el listado se cancela si pasa más de
+ * {@code idleTimeout} sin una fila nueva (cliente detenido) o más de {@code maxDuration} en total.
+ */
+@Slf4j
+@Component
+public class CancellableQueryExecutor {
+
+    private static final int MAX_UNWRAP_DEPTH = 10;
+
+    private final ConnectionFactory connectionFactory;
+    private final MeterRegistry meterRegistry;
+    private final int fetchSize;
+    private final Duration idleTimeout;
+    private final Duration maxDuration;
+
+    @Autowired
+    public CancellableQueryExecutor(R2dbcEntityTemplate r2dbcEntityTemplate, MeterRegistry meterRegistry,
+                                    @Value("${app.r2dbc.stream-fetch-size:256}") int fetchSize,
+                                    @Value("${app.r2dbc.stream-idle-timeout:PT30S}") Duration idleTimeout,
+                                    @Value("${app.r2dbc.stream-max-duration:PT10M}") Duration maxDuration) {
+        this(r2dbcEntityTemplate.getDatabaseClient().getConnectionFactory(), meterRegistry, fetchSize, idleTimeout,
+            maxDuration);
+    }
+
+    CancellableQueryExecutor(ConnectionFactory connectionFactory, MeterRegistry meterRegistry, int fetchSize,
+                             Duration idleTimeout, Duration maxDuration) {
+        this.connectionFactory = connectionFactory;
+        this.meterRegistry = meterRegistry;
+        this.fetchSize = fetchSize;
+        this.idleTimeout = idleTimeout;
+        this.maxDuration = maxDuration;
+    }
+
+    /** Consulta de resultado acotado (p. ej. un lote de ids): se lee completa, sin lotes ni plazos. */
+    public <T> Flux<T> stream(String queryName, String sql, BiFunction<Row, RowMetadata, T> mapper, Object... parameters) {
+        return run(queryName, sql, mapper, 0, parameters);
+    }
+
+    /** Listado que se transmite al cliente a su ritmo: lotes de {@code fetchSize} y plazos de inactividad y total. */
+    public <T> Flux<T> streamListing(String queryName, String sql, BiFunction<Row, RowMetadata, T> mapper,
+                                     Object... parameters) {
+        return Flux.defer(() -> {
+            long deadline = now() + maxDuration.toMillis();
+            // Fuera de usingWhen: el plazo cancela la consulta (CancelRequest y cierre) y luego propaga el error
+            return run(queryName, sql, mapper, fetchSize, parameters)
+                .timeout(nextRowTimeout(deadline), row -> nextRowTimeout(deadline))
+                .doOnError(TimeoutException.class, error -> {
+                    log.warn("Listado {} cancelado: más de {} sin consumir filas o más de {} en total",
+                        queryName, idleTimeout, maxDuration);
+                    Counter.builder("r2dbc.queries.stream.timeout")
+                        .description("Listados cancelados por un cliente detenido o por superar la duración máxima")
+                        .tag("query", queryName)
+                        .register(meterRegistry)
+                        .increment();
+                });
+        });
+    }
+
+    private <T> Flux<T> run(String queryName, String sql, BiFunction<Row, RowMetadata, T> mapper, int batchSize,
+                            Object... parameters) {
+        return Flux.usingWhen(
+            Mono.<Connection>from(connectionFactory.create()),
+            connection -> execute(connection, sql, mapper, batchSize, parameters),
+            Connection::close,
+            (connection, error) -> connection.close(),
+            connection -> cancelAndDiscard(queryName, connection));
+    }
+
+    private Mono<Long> nextRowTimeout(long deadline) {
+        long remaining = Math.max(0, deadline - now());
+        return Mono.delay(Duration.ofMillis(Math.min(idleTimeout.toMillis(), remaining)));
+    }
+
+    // Reloj del scheduler de Mono.delay: en las pruebas con tiempo virtual avanza con él
+    private static long now() {
+        return Schedulers.parallel().now(TimeUnit.MILLISECONDS);
+    }
+
+    private <T> Flux<T> execute(Connection connection, String sql, BiFunction<Row, RowMetadata, T> mapper,
+                                int batchSize, Object... parameters) {
+        Statement statement = connection.createStatement(sql);
+        for (int i = 0; i < parameters.length; i++) {
+            statement.bind(i, parameters[i]);
+        }
+        if (batchSize > 0) {
+            statement.fetchSize(batchSize);
+        }
+        return Flux.from(statement.execute())
+            .concatMap(result -> result.map(mapper));
+    }
+
+    private Mono<Void> cancelAndDiscard(String queryName, Connection connection) {
+        PostgresqlConnection postgresqlConnection = unwrap(connection);
+        if (postgresqlConnection == null) {
+            log.warn("No se pudo cancelar la consulta {}: la conexión no es de PostgreSQL", queryName);
+            return Mono.from(connection.close());
+        }
+
+        // Cerrar la física primero: al devolver la envoltura del pool ya no es válida y no se entrega de nuevo
+        Mono<Void> closePhysical = Mono.from(postgresqlConnection.close())
+            .onErrorResume(error -> {
+                log.warn("Error al cerrar la conexión de la consulta cancelada {}: {}", queryName, error.getMessage());
+                return Mono.empty();
+            });
+        Mono<Void> release = postgresqlConnection == connection ? Mono.empty() : Mono.from(connection.close());
+        return cancelOnServer(queryName, postgresqlConnection)
+            .then(closePhysical)
+            .then(release);
+    }
+
+    private Mono<Void> cancelOnServer(String queryName, PostgresqlConnection postgresqlConnection) {
+        log.info("Cliente canceló la consulta {}; enviando CancelRequest a PostgreSQL", queryName);
+        return postgresqlConnection.cancelRequest()
+            .doOnSuccess(v -> cancelledCounter(queryName).increment())
+            .onErrorResume(error -> {
+                log.warn("Error al cancelar la consulta {} en PostgreSQL: {}", queryName, error.getMessage());
+                Counter.builder("r2dbc.queries.cancel.failed")
+                    .tag("query", queryName)
+                    .register(meterRegistry)
+                    .increment();
+                return Mono.empty();
+            });
+    }
+
+    private Counter cancelledCounter(String queryName) {
+        return Counter.builder("r2dbc.queries.cancelled")
+            .description("Consultas canceladas en PostgreSQL porque el suscriptor abandonó la petición")
+            .tag("query", queryName)
+            .register(meterRegistry);
+    }
+
+    // El pool (y otros decoradores) envuelven la conexión real del driver
+    private static PostgresqlConnection unwrap(Connection connection) {
+        Object current = connection;
+        for (int depth = 0; depth < MAX_UNWRAP_DEPTH; depth++) {
+            if (current instanceof PostgresqlConnection postgresqlConnection) {
+                return postgresqlConnection;
+            }
+            if (!(current instanceof Wrapped<?> wrapped)) {
+                return null;
+            }
+            current = wrapped.unwrap();
+        }
+        return null;
+    }
+}
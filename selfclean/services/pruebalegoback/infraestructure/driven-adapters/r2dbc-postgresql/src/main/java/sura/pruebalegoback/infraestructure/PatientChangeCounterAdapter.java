@@ -0,0 +1,22 @@
+package sura.pruebalegoback.infraestructure;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.data.r2dbc.core.R2dbcEntityTemplate;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.Mono;
+import sura.pruebalegoback.domain.patient.gateway.PatientChangeCounterGateway;
+
+@Component
+@RequiredArgsConstructor
+public class PatientChangeCounterAdapter implements PatientChangeCounterGateway {
+
+    private final R2dbcEntityTemplate r2dbcEntityTemplate;
+
+    @Override
+    public Mono<Long> current() {
+        return r2dbcEntityTemplate.getDatabaseClient()
+            .sql(PatientQueries.CURRENT_CHANGE_COUNTER)
+            .map((row, metadata) -> row.get(0, Long.class))
+            .one();
+    }
+}
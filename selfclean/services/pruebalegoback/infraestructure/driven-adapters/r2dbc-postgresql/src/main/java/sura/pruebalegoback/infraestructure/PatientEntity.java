@@ -7,6 +7,7 @@ import lombok.Builder;
 import lombok.Data;
 import lombok.NoArgsConstructor;
 import org.springframework.data.annotation.Id;
+import org.springframework.data.annotation.Version;
 import org.springframework.data.relational.core.mapping.Column;
 import org.springframework.data.relational.core.mapping.Table;
 
@@ -58,4 +59,12 @@ public class PatientEntity {
     
     @Column("active")
     private Boolean active;
+
+    @Column("deactivated_at")
+    private LocalDateTime deactivatedAt;
+
+    // null => INSERT; en otro caso UPDATE ... WHERE version = :version (compare-and-set)
+    @Version
+    @Column("version")
+    private Long version;
 }
\ No newline at end of file
@@ -0,0 +1,152 @@
+package sura.pruebalegoback.infraestructure;
+
+import sura.pruebalegoback.domain.patient.PatientField;
+
+import java.util.Set;
+
+/**
+ * SQL de todas las consultas sobre pacientes, en un único lugar para que {@link PatientReactiveRepository},
+ * {@link PatientRepositoryAdapter} y el catálogo {@link PatientQuery} (planes de ejecución) usen el mismo texto.
+ * Se usan marcadores nativos de PostgreSQL ({@code $1}, {@code $2}, ...).
+ */
+final class PatientQueries {
+
+    static final String FIND_BY_ID = "SELECT * FROM patients WHERE id = $1";
+
+    static final String FIND_ALL_BY_IDS = "SELECT * FROM patients WHERE id = ANY($1)";
+
+    static final String FIND_ALL = "SELECT * FROM patients";
+
+    // Suma de las filas que mantienen los triggers patients_change_counter_*; sum(bigint) devuelve numeric
+    static final String CURRENT_CHANGE_COUNTER = "SELECT sum(counter)::bigint FROM patients_change_counter";
+
+    static final String FIND_BY_ACTIVE = "SELECT * FROM patients WHERE active = $1";
+
+    static final String FIND_BY_DOCUMENT_NUMBER = "SELECT * FROM patients WHERE document_number = $1";
+
+    static final String FIND_BY_CITY = "SELECT * FROM patients WHERE city = $1";
+
+    // Resuelto con el índice BRIN de admission_date; las filas salen en orden físico (≈ orden de ingreso)
+    static final String FIND_BY_ADMISSION_DATE_BETWEEN =
+            "SELECT * FROM patients WHERE admission_date BETWEEN $1 AND $2";
+
+    // Mismas propiedades y orden que PatientResponse; age replica Patient.getAge() (diferencia de años)
+    static final String FIND_ALL_AS_JSON = """
+            SELECT json_build_object(
+                'id', id,
+                'firstName', first_name,
+                'lastName', last_name,
+                'documentNumber', document_number,
+                'documentType', document_type,
+                'birthDate', birth_date,
+                'address', address,
+                'phone', phone,
+                'email', email,
+                'city', city,
+                'state', state,
+                'admissionDate', admission_date,
+                'active', active,
+                'fullName', first_name || ' ' || last_name,
+                'age', (date_part('year', current_date) - date_part('year', birth_date))::int
+            ) AS patient
+            FROM patients
+            """;
+
+    // Mueve un lote de pacientes inactivos a patients_archive en una sola sentencia atómica.
+    // SKIP LOCKED permite que varias instancias ejecuten el job sin bloquearse entre sí.
+    static final String ARCHIVE_INACTIVE_SINCE = """
+            WITH moved AS (
+                DELETE FROM patients
+                WHERE id IN (
+                    SELECT id FROM patients
+                    WHERE active = false AND deactivated_at < $1
+                    ORDER BY deactivated_at
+                    LIMIT $2
+                    FOR UPDATE SKIP LOCKED)
+                RETURNING *)
+            INSERT INTO patients_archive (id, first_name, last_name, document_number, document_type,
+                                          birth_date, address, phone, email, city, state,
+                                          admission_date, active, deactivated_at, version, archived_at)
+            SELECT id, first_name, last_name, document_number, document_type,
+                   birth_date, address, phone, email, city, state,
+                   admission_date, active, deactivated_at, version, now()
+            FROM moved
+            RETURNING id
+            """;
+
+    static final String COUNT_ALL = "SELECT count(*) FROM patients";
+
+    static final String COUNT_BY_CITY = "SELECT count(*) FROM patients WHERE city = $1";
+
+    // Filas según el último ANALYZE/autovacuum; -1 si la tabla nunca se ha analizado
+    static final String ESTIMATE_COUNT_ALL =
+            "SELECT reltuples::bigint FROM pg_class WHERE oid = 'patients'::regclass";
+
+    // Se lee "Plan Rows" del nodo raíz: la estimación de filas del planificador para la ciudad
+    static final String ESTIMATE_COUNT_BY_CITY = "EXPLAIN (FORMAT JSON) SELECT 1 FROM patients WHERE city = $1";
+
+    // Cambio de estado masivo: misma semántica que deactivate/reactivate individuales
+    // (deactivated_at y versión), sin leer las filas antes
+    static final String UPDATE_ACTIVE_BY_IDS = """
+            UPDATE patients
+            SET active = $2,
+                deactivated_at = CASE WHEN $2 THEN NULL ELSE localtimestamp END,
+                version = version + 1
+            WHERE id = ANY($1) AND active <> $2
+            RETURNING id
+            """;
+
+    static final String UPDATE_ACTIVE_BY_CITY = """
+            UPDATE patients
+            SET active = $2,
+                deactivated_at = CASE WHEN $2 THEN NULL ELSE localtimestamp END,
+                version = version + 1
+            WHERE city = $1 AND active <> $2
+            RETURNING id
+            """;
+
+    static final String FIND_ARCHIVED_BY_ID = "SELECT * FROM patients_archive WHERE id = $1";
+
+    static final String DELETE_BY_ID = "DELETE FROM patients WHERE id = $1";
+
+    private static final String SELECT_ALL_COLUMNS = "SELECT * ";
+
+    /**
+     * Variante de una consulta {@code SELECT * ...} que lee solo las columnas de las propiedades pedidas
+     * (ver {@link PatientField#storedFor}); el resto del texto, y por tanto el plan, no cambia.
+     */
+    static String project(String selectAllSql, Set<PatientField> fields) {
+        if (!selectAllSql.startsWith(SELECT_ALL_COLUMNS)) {
+            throw new IllegalArgumentException("Solo se proyectan consultas SELECT *: " + selectAllSql);
+        }
+        return "SELECT " + String.join(", ", columns(fields)) + " " + selectAllSql.substring(SELECT_ALL_COLUMNS.length());
+    }
+
+    static String[] columns(Set<PatientField> fields) {
+        return PatientField.storedFor(fields).stream()
+                .map(PatientQueries::column)
+                .toArray(String[]::new);
+    }
+
+    private static String column(PatientField field) {
+        return switch (field) {
+            case ID -> "id";
+            case FIRST_NAME -> "first_name";
+            case LAST_NAME -> "last_name";
+            case DOCUMENT_NUMBER -> "document_number";
+            case DOCUMENT_TYPE -> "document_type";
+            case BIRTH_DATE -> "birth_date";
+            case ADDRESS -> "address";
+            case PHONE -> "phone";
+            case EMAIL -> "email";
+            case CITY -> "city";
+            case STATE -> "state";
+            case ADMISSION_DATE -> "admission_date";
+            case ACTIVE -> "active";
+            case FULL_NAME, AGE -> throw new IllegalArgumentException("Propiedad derivada sin columna: " + field);
+        };
+    }
+
+    private PatientQueries() {
+    }
+}
@@ -0,0 +1,105 @@
+package sura.pruebalegoback.infraestructure;
+
+import java.time.LocalDateTime;
+import java.util.Arrays;
+import java.util.Map;
+import java.util.Optional;
+import java.util.function.Function;
+import java.util.regex.Pattern;
+import java.util.stream.Collectors;
+
+/**
+ * Catálogo de las consultas de pacientes con los metadatos necesarios para revisar su plan de ejecución:
+ * parámetros de ejemplo representativos, si es de solo lectura (solo esas admiten EXPLAIN ANALYZE en vivo)
+ * y si un Seq Scan es aceptable (listados completos).
+ */
+public enum PatientQuery {
+
+    FIND_BY_ID("findById", PatientQueries.FIND_BY_ID, true, false,
+            "plan-sample-id"),
+    FIND_ALL_BY_IDS("findAllByIds", PatientQueries.FIND_ALL_BY_IDS, true, false,
+            (Object) new String[]{"plan-sample-id", "seed-100", "seed-200"}),
+    FIND_ALL("findAll", PatientQueries.FIND_ALL, true, true),
+    FIND_ALL_AS_JSON("findAllAsJson", PatientQueries.FIND_ALL_AS_JSON, true, true),
+    // Con active = true el Seq Scan es el plan correcto (la mayoría está activa); se revisa el caso selectivo
+    FIND_BY_ACTIVE("findByActive", PatientQueries.FIND_BY_ACTIVE, true, false,
+            false),
+    FIND_BY_DOCUMENT_NUMBER("findByDocumentNumber", PatientQueries.FIND_BY_DOCUMENT_NUMBER, true, false,
+            "1000012345"),
+    FIND_BY_CITY("findByCity", PatientQueries.FIND_BY_CITY, true, false,
+            "Ciudad 42"),
+    FIND_BY_ADMISSION_DATE_BETWEEN("findByAdmissionDateBetween", PatientQueries.FIND_BY_ADMISSION_DATE_BETWEEN, true, false,
+            LocalDateTime.of(2022, 1, 1, 0, 0), LocalDateTime.of(2022, 1, 2, 0, 0)),
+    // count(*) total recorre la tabla (o el índice completo): es el costo que evita el modo aproximado
+    COUNT_ALL("countAll", PatientQueries.COUNT_ALL, true, true),
+    COUNT_BY_CITY("countByCity", PatientQueries.COUNT_BY_CITY, true, false,
+            "Ciudad 42"),
+    FIND_ARCHIVED_BY_ID("findArchivedById", PatientQueries.FIND_ARCHIVED_BY_ID, true, false,
+            "plan-sample-id"),
+    DELETE_BY_ID("deleteById", PatientQueries.DELETE_BY_ID, false, false,
+            "plan-sample-id"),
+    UPDATE_ACTIVE_BY_IDS("updateActiveByIds", PatientQueries.UPDATE_ACTIVE_BY_IDS, false, false,
+            new String[]{"plan-sample-id", "seed-100"}, false),
+    UPDATE_ACTIVE_BY_CITY("updateActiveByCity", PatientQueries.UPDATE_ACTIVE_BY_CITY, false, false,
+            "Ciudad 42", false),
+    ARCHIVE_INACTIVE_SINCE("archiveInactiveSince", PatientQueries.ARCHIVE_INACTIVE_SINCE, false, false,
+            LocalDateTime.of(2021, 1, 1, 0, 0), 500);
+
+    private static final Pattern WHITESPACE = Pattern.compile("\\s+");
+
+    // Por SQL literal y normalizado: los decoradores de conexión reciben el texto tal como lo envía el adaptador
+    private static final Map<String, PatientQuery> BY_SQL = Arrays.stream(values())
+            .collect(Collectors.toUnmodifiableMap(PatientQuery::sql, Function.identity(), (first, second) -> first));
+    private static final Map<String, PatientQuery> BY_NORMALIZED_SQL = Arrays.stream(values())
+            .collect(Collectors.toUnmodifiableMap(query -> normalizeWhitespace(query.sql()), Function.identity(),
+                    (first, second) -> first));
+
+    private final String queryName;
+    private final String sql;
+    private final boolean readOnly;
+    private final boolean seqScanAllowed;
+    private final Object[] sampleParameters;
+
+    PatientQuery(String queryName, String sql, boolean readOnly, boolean seqScanAllowed, Object... sampleParameters) {
+        this.queryName = queryName;
+        this.sql = sql;
+        this.readOnly = readOnly;
+        this.seqScanAllowed = seqScanAllowed;
+        this.sampleParameters = sampleParameters;
+    }
+
+    public static Optional<PatientQuery> byName(String queryName) {
+        return Arrays.stream(values())
+                .filter(query -> query.queryName.equals(queryName))
+                .findFirst();
+    }
+
+    public static Optional<PatientQuery> bySql(String sql) {
+        PatientQuery query = BY_SQL.get(sql);
+        return query != null ? Optional.of(query) : Optional.ofNullable(BY_NORMALIZED_SQL.get(normalizeWhitespace(sql)));
+    }
+
+    static String normalizeWhitespace(String sql) {
+        return WHITESPACE.matcher(sql.strip()).replaceAll(" ");
+    }
+
+    public String queryName() {
+        return queryName;
+    }
+
+    public String sql() {
+        return sql;
+    }
+
+    public boolean readOnly() {
+        return readOnly;
+    }
+
+    public boolean seqScanAllowed() {
+        return seqScanAllowed;
+    }
+
+    public Object[] sampleParameters() {
+        return sampleParameters.clone();
+    }
+}
@@ -6,18 +6,20 @@ import org.springframework.stereotype.Repository;
 import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
 
+import java.time.LocalDateTime;
+
 @Repository
 public interface PatientReactiveRepository extends ReactiveCrudRepository<PatientEntity, String> {
     
-    @Query("SELECT * FROM patients WHERE active = :active")
-    Flux<PatientEntity> findByActive(Boolean active);
-    
-    @Query("SELECT * FROM patients WHERE document_number = :documentNumber")
+    @Query(PatientQueries.FIND_BY_DOCUMENT_NUMBER)
     Flux<PatientEntity> findByDocumentNumber(String documentNumber);
-    
-    @Query("SELECT * FROM patients WHERE city = :city")
-    Flux<PatientEntity> findByCity(String city);
-    
-    @Query("DELETE FROM patients WHERE id = :id")
+
+    @Query(PatientQueries.ARCHIVE_INACTIVE_SINCE)
+    Flux<String> archiveInactiveSince(LocalDateTime deactivatedBefore, int limit);
+
+    @Query(PatientQueries.FIND_ARCHIVED_BY_ID)
+    Mono<PatientEntity> findArchivedById(String id);
+
+    @Query(PatientQueries.DELETE_BY_ID)
     Mono<Void> deleteById(String id);
 }
@@ -1,45 +1,74 @@
 package sura.pruebalegoback.infraestructure;
 
 import lombok.RequiredArgsConstructor;
+import io.r2dbc.postgresql.api.PostgresqlException;
+import io.r2dbc.postgresql.codec.Json;
+import io.r2dbc.spi.Row;
+import io.r2dbc.spi.RowMetadata;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.data.domain.Sort;
 import org.springframework.data.r2dbc.core.R2dbcEntityTemplate;
+import org.springframework.data.relational.core.query.Criteria;
+import org.springframework.data.relational.core.query.Query;
 import org.springframework.stereotype.Component;
 import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
 import sura.pruebalegoback.domain.patient.Patient;
+import sura.pruebalegoback.domain.patient.PatientField;
+import sura.pruebalegoback.domain.patient.PatientSearchCriteria;
+import sura.pruebalegoback.domain.patient.ex.PatientBusinessException;
+import sura.pruebalegoback.domain.patient.ex.PatientVersionConflictException;
 import sura.pruebalegoback.domain.patient.gateway.PatientRepository;
 
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.Set;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
 @Slf4j
 @Component
 @RequiredArgsConstructor
 public class PatientRepositoryAdapter implements PatientRepository {
-    
+
+    private static final Pattern PLAN_ROWS = Pattern.compile("\"Plan Rows\"\\s*:\\s*(\\d+)");
+    // Índice único de create_table.sql sobre document_number
+    private static final String DOCUMENT_UNIQUE_INDEX = "uq_patients_document_number";
+
     private final PatientReactiveRepository reactiveRepository;
     private final R2dbcEntityTemplate r2dbcEntityTemplate;
+    private final CancellableQueryExecutor cancellableQueryExecutor;
 
     @Override
     public Mono<Patient> save(Patient patient) {
         log.debug("Guardando paciente: {}", patient.getId());
         PatientEntity entity = toEntity(patient);
-        
-        // Verificar si el paciente existe en la base de datos
-        return reactiveRepository.findById(patient.getId())
-            .hasElement()
-            .flatMap(exists -> {
-                if (exists) {
-                    // Si existe, actualizar usando el repositorio
-                    log.debug("Paciente existente, actualizando: {}", patient.getId());
-                    return reactiveRepository.save(entity)
-                        .map(this::toDomain);
-                } else {
-                    // Si no existe, insertar usando R2dbcEntityTemplate
-                    log.debug("Paciente nuevo, insertando: {}", patient.getId());
-                    return r2dbcEntityTemplate.insert(PatientEntity.class)
-                        .using(entity)
-                        .map(this::toDomain);
-                }
-            })
-            .doOnNext(p -> log.debug("Paciente guardado exitosamente: {}", p.getId()));
+
+        // La columna version decide la operación sin consultar antes la base de datos:
+        // sin versión es un paciente nuevo, con versión es una actualización condicionada
+        if (entity.getVersion() == null) {
+            log.debug("Paciente nuevo, insertando: {}", patient.getId());
+            return r2dbcEntityTemplate.insert(PatientEntity.class)
+                .using(entity)
+                .map(this::toDomain)
+                // Dos altas concurrentes del mismo documento pasan ambas la verificación del caso de uso
+                .onErrorMap(DataIntegrityViolationException.class, error -> violatesDocumentIndex(error)
+                    ? PatientBusinessException.Type.DUPLICATE_DOCUMENT.build()
+                    : error)
+                .doOnNext(p -> log.debug("Paciente guardado exitosamente: {}", p.getId()));
+        }
+
+        log.debug("Paciente existente, actualizando: {}", patient.getId());
+        return update(patient);
+    }
+
+    private static boolean violatesDocumentIndex(DataIntegrityViolationException error) {
+        return error.getCause() instanceof PostgresqlException postgresqlException
+            && postgresqlException.getErrorDetails().getConstraintName()
+                .filter(DOCUMENT_UNIQUE_INDEX::equals)
+                .isPresent();
     }
 
     @Override
@@ -50,18 +79,34 @@ public class PatientRepositoryAdapter implements PatientRepository {
             .doOnNext(p -> log.debug("Paciente encontrado: {}", p.getId()));
     }
 
+    @Override
+    public Flux<Patient> findAllByIds(Collection<String> ids) {
+        log.debug("Buscando {} pacientes por ID", ids.size());
+        // El arreglo completo es un único parámetro ($1): el SQL no cambia con el número de ids
+        return cancellableQueryExecutor.stream(PatientQuery.FIND_ALL_BY_IDS.queryName(), PatientQuery.FIND_ALL_BY_IDS.sql(),
+                this::readEntity, (Object) ids.toArray(String[]::new))
+            .map(this::toDomain);
+    }
+
     @Override
     public Flux<Patient> findAll() {
         log.debug("Buscando todos los pacientes");
-        return reactiveRepository.findAll()
+        return streamEntities(PatientQuery.FIND_ALL)
             .map(this::toDomain)
             .doOnNext(p -> log.debug("Paciente recuperado: {}", p.getId()));
     }
 
+    @Override
+    public Flux<byte[]> findAllAsJson() {
+        log.debug("Buscando todos los pacientes serializados por PostgreSQL");
+        return cancellableQueryExecutor.streamListing(PatientQuery.FIND_ALL_AS_JSON.queryName(), PatientQuery.FIND_ALL_AS_JSON.sql(),
+            (row, metadata) -> row.get("patient", Json.class).asArray());
+    }
+
     @Override
     public Flux<Patient> findByActive(boolean active) {
         log.debug("Buscando pacientes activos: {}", active);
-        return reactiveRepository.findByActive(active)
+        return streamEntities(PatientQuery.FIND_BY_ACTIVE, active)
             .map(this::toDomain)
             .doOnNext(p -> log.debug("Paciente activo encontrado: {}", p.getId()));
     }
@@ -77,11 +122,132 @@ public class PatientRepositoryAdapter implements PatientRepository {
     @Override
     public Flux<Patient> findByCity(String city) {
         log.debug("Buscando pacientes por ciudad: {}", city);
-        return reactiveRepository.findByCity(city)
+        return streamEntities(PatientQuery.FIND_BY_CITY, city)
             .map(this::toDomain)
             .doOnNext(p -> log.debug("Paciente de ciudad encontrado: {}", p.getId()));
     }
 
+    @Override
+    public Flux<Patient> findByAdmissionDateBetween(LocalDateTime from, LocalDateTime to) {
+        log.debug("Buscando pacientes ingresados entre {} y {}", from, to);
+        return streamEntities(PatientQuery.FIND_BY_ADMISSION_DATE_BETWEEN, from, to)
+            .map(this::toDomain);
+    }
+
+    @Override
+    public Flux<Patient> findAll(Set<PatientField> fields) {
+        log.debug("Buscando todos los pacientes (propiedades: {})", fields);
+        return streamProjected(PatientQuery.FIND_ALL, fields)
+            .map(this::toDomain);
+    }
+
+    @Override
+    public Flux<Patient> findByActive(boolean active, Set<PatientField> fields) {
+        log.debug("Buscando pacientes activos: {} (propiedades: {})", active, fields);
+        return streamProjected(PatientQuery.FIND_BY_ACTIVE, fields, active)
+            .map(this::toDomain);
+    }
+
+    @Override
+    public Flux<Patient> findByCity(String city, Set<PatientField> fields) {
+        log.debug("Buscando pacientes por ciudad: {} (propiedades: {})", city, fields);
+        return streamProjected(PatientQuery.FIND_BY_CITY, fields, city)
+            .map(this::toDomain);
+    }
+
+    @Override
+    public Flux<Patient> findByAdmissionDateBetween(LocalDateTime from, LocalDateTime to, Set<PatientField> fields) {
+        log.debug("Buscando pacientes ingresados entre {} y {} (propiedades: {})", from, to, fields);
+        return streamProjected(PatientQuery.FIND_BY_ADMISSION_DATE_BETWEEN, fields, from, to)
+            .map(this::toDomain);
+    }
+
+    @Override
+    public Flux<Patient> search(PatientSearchCriteria criteria) {
+        Query query = Query.query(toCriteria(criteria))
+            // id desempata para que el orden (y por tanto el límite) sea determinista
+            .sort(Sort.by(criteria.isDescending() ? Sort.Direction.DESC : Sort.Direction.ASC,
+                    criteria.getSortBy().getProperty())
+                .and(Sort.by("id")))
+            .limit(criteria.getLimit());
+        if (PatientField.isProjection(criteria.getFields())) {
+            query = query.columns(PatientQueries.columns(criteria.getFields()));
+        }
+        log.debug("Búsqueda combinada de pacientes: {}", query.getCriteria().orElse(null));
+
+        return r2dbcEntityTemplate.select(PatientEntity.class)
+            .matching(query)
+            .all()
+            .map(this::toDomain);
+    }
+
+    // Cada filtro se traduce a un predicado sobre la columna indexada, nunca a una expresión sobre ella
+    private Criteria toCriteria(PatientSearchCriteria criteria) {
+        Criteria where = Criteria.empty();
+        if (criteria.getCities() != null && !criteria.getCities().isEmpty()) {
+            where = where.and("city").in(criteria.getCities());
+        }
+        if (criteria.getActive() != null) {
+            where = where.and("active").is(criteria.getActive());
+        }
+        if (criteria.getDocumentType() != null) {
+            where = where.and("documentType").is(criteria.getDocumentType());
+        }
+        if (criteria.bornOnOrAfter() != null) {
+            where = where.and("birthDate").greaterThanOrEquals(criteria.bornOnOrAfter());
+        }
+        if (criteria.bornBefore() != null) {
+            where = where.and("birthDate").lessThan(criteria.bornBefore());
+        }
+        if (criteria.getAdmittedFrom() != null) {
+            where = where.and("admissionDate").greaterThanOrEquals(criteria.getAdmittedFrom());
+        }
+        if (criteria.getAdmittedTo() != null) {
+            where = where.and("admissionDate").lessThanOrEquals(criteria.getAdmittedTo());
+        }
+        return where;
+    }
+
+    @Override
+    public Mono<Long> countAll() {
+        log.debug("Contando todos los pacientes");
+        return r2dbcEntityTemplate.getDatabaseClient().sql(PatientQuery.COUNT_ALL.sql())
+            .map((row, metadata) -> row.get(0, Long.class))
+            .one();
+    }
+
+    @Override
+    public Mono<Long> countByCity(String city) {
+        log.debug("Contando pacientes de ciudad: {}", city);
+        return r2dbcEntityTemplate.getDatabaseClient().sql(PatientQuery.COUNT_BY_CITY.sql())
+            .bind(0, city)
+            .map((row, metadata) -> row.get(0, Long.class))
+            .one();
+    }
+
+    @Override
+    public Mono<Long> estimateCountAll() {
+        log.debug("Estimando el total de pacientes con pg_class.reltuples");
+        return r2dbcEntityTemplate.getDatabaseClient().sql(PatientQueries.ESTIMATE_COUNT_ALL)
+            .map((row, metadata) -> row.get(0, Long.class))
+            .one()
+            // Sin estadísticas todavía (tabla recién creada): se paga una vez el conteo exacto
+            .flatMap(estimate -> estimate >= 0 ? Mono.just(estimate) : countAll());
+    }
+
+    @Override
+    public Mono<Long> estimateCountByCity(String city) {
+        log.debug("Estimando pacientes de ciudad {} con el planificador", city);
+        return r2dbcEntityTemplate.getDatabaseClient().sql(PatientQueries.ESTIMATE_COUNT_BY_CITY)
+            .bind(0, city)
+            .map((row, metadata) -> row.get(0, Json.class).asString())
+            .one()
+            .map(plan -> {
+                Matcher matcher = PLAN_ROWS.matcher(plan);
+                return matcher.find() ? Long.parseLong(matcher.group(1)) : 0L;
+            });
+    }
+
     @Override
     public Mono<Void> deleteById(String id) {
         log.debug("Eliminando paciente: {}", id);
@@ -94,9 +260,65 @@ public class PatientRepositoryAdapter implements PatientRepository {
         log.debug("Actualizando paciente: {}", patient.getId());
         return reactiveRepository.save(toEntity(patient))
             .map(this::toDomain)
+            .onErrorMap(OptimisticLockingFailureException.class,
+                error -> new PatientVersionConflictException(patient.getId(), patient.getVersion()))
             .doOnNext(p -> log.debug("Paciente actualizado: {}", p.getId()));
     }
 
+    @Override
+    public Flux<String> updateActiveByIds(Collection<String> ids, boolean active) {
+        log.debug("Cambiando estado activo={} de {} pacientes", active, ids.size());
+        return r2dbcEntityTemplate.getDatabaseClient().sql(PatientQuery.UPDATE_ACTIVE_BY_IDS.sql())
+            .bind(0, ids.toArray(String[]::new))
+            .bind(1, active)
+            .map((row, metadata) -> row.get("id", String.class))
+            .all();
+    }
+
+    @Override
+    public Flux<String> updateActiveByCity(String city, boolean active) {
+        log.debug("Cambiando estado activo={} de los pacientes de ciudad {}", active, city);
+        return r2dbcEntityTemplate.getDatabaseClient().sql(PatientQuery.UPDATE_ACTIVE_BY_CITY.sql())
+            .bind(0, city)
+            .bind(1, active)
+            .map((row, metadata) -> row.get("id", String.class))
+            .all();
+    }
+
+    @Override
+    public Flux<String> archiveInactiveSince(LocalDateTime deactivatedBefore, int limit) {
+        log.debug("Archivando hasta {} pacientes inactivos desde antes de {}", limit, deactivatedBefore);
+        return reactiveRepository.archiveInactiveSince(deactivatedBefore, limit);
+    }
+
+    @Override
+    public Mono<Patient> findArchivedById(String id) {
+        log.debug("Buscando paciente archivado por ID: {}", id);
+        return reactiveRepository.findArchivedById(id)
+            .map(this::toDomain)
+            .doOnNext(p -> log.debug("Paciente archivado encontrado: {}", p.getId()));
+    }
+
+    // Listados potencialmente grandes: se ejecutan con CancellableQueryExecutor para que
+    // una desconexión del cliente cancele la consulta también en PostgreSQL
+    private Flux<PatientEntity> streamEntities(PatientQuery query, Object... parameters) {
+        return stream(query, query.sql(), parameters);
+    }
+
+    // Las columnas no leídas quedan en null en la entidad: el conversor solo lee las presentes en la fila
+    private Flux<PatientEntity> streamProjected(PatientQuery query, Set<PatientField> fields, Object... parameters) {
+        String sql = PatientField.isProjection(fields) ? PatientQueries.project(query.sql(), fields) : query.sql();
+        return stream(query, sql, parameters);
+    }
+
+    private Flux<PatientEntity> stream(PatientQuery query, String sql, Object... parameters) {
+        return cancellableQueryExecutor.streamListing(query.queryName(), sql, this::readEntity, parameters);
+    }
+
+    private PatientEntity readEntity(Row row, RowMetadata metadata) {
+        return r2dbcEntityTemplate.getConverter().read(PatientEntity.class, row, metadata);
+    }
+
     private PatientEntity toEntity(Patient patient) {
         return PatientEntity.builder()
             .id(patient.getId())
@@ -112,6 +334,8 @@ public class PatientRepositoryAdapter implements PatientRepository {
             .state(patient.getState())
             .admissionDate(patient.getAdmissionDate())
             .active(patient.isActive())
+            .deactivatedAt(patient.getDeactivatedAt())
+            .version(patient.getVersion())
             .build();
     }
 
@@ -129,7 +353,10 @@ public class PatientRepositoryAdapter implements PatientRepository {
             .city(entity.getCity())
             .state(entity.getState())
             .admissionDate(entity.getAdmissionDate())
-            .active(entity.getActive())
+            // null solo si la columna no se leyó (proyección); en la tabla es NOT NULL
+            .active(Boolean.TRUE.equals(entity.getActive()))
+            .deactivatedAt(entity.getDeactivatedAt())
+            .version(entity.getVersion())
             .build();
     }
 }
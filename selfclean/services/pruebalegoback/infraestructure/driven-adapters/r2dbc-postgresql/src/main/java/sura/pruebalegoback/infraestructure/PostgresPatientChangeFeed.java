@@ -0,0 +1,110 @@
+package sura.pruebalegoback.infraestructure;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.r2dbc.postgresql.PostgresqlConnectionFactory;
+import io.r2dbc.postgresql.api.Notification;
+import io.r2dbc.postgresql.api.PostgresqlConnection;
+import io.r2dbc.postgresql.api.PostgresqlResult;
+import lombok.extern.slf4j.Slf4j;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.util.retry.Retry;
+import sura.pruebalegoback.domain.patient.PatientChange;
+import sura.pruebalegoback.domain.patient.gateway.PatientChangeFeed;
+import sura.pruebalegoback.infraestructure.helpers.json.codec.JsonMappers;
+
+import java.time.Duration;
+
+/**
+ * Escucha el canal {@code patients_changed} (trigger {@code patients_notify_change}) en una conexión propia,
+ * fuera del pool: LISTEN solo entrega notificaciones a la conexión que lo ejecutó y esta queda ocupada
+ * mientras la aplicación viva. Un {@code SELECT 1} periódico detecta conexiones muertas; al reconectar se
+ * emite {@link PatientChange#resync()} porque las notificaciones enviadas mientras tanto se perdieron.
+ */
+@Slf4j
+public class PostgresPatientChangeFeed implements PatientChangeFeed {
+
+    static final String CHANNEL = "patients_changed";
+
+    private static final Duration HEARTBEAT_TIMEOUT = Duration.ofSeconds(10);
+    // El payload lo arma el trigger con los mismos nombres en camelCase que la API
+    private static final ObjectMapper JSON = JsonMappers.web();
+
+    private final Flux<PatientChange> changes;
+
+    public PostgresPatientChangeFeed(PostgresqlConnectionFactory connectionFactory, Duration heartbeatInterval) {
+        this.changes = Flux.usingWhen(connectionFactory.create(),
+                connection -> listen(connection, heartbeatInterval),
+                PostgresqlConnection::close)
+            // getNotifications() termina si la conexión se cierra: se trata como error para reconectar
+            .concatWith(Mono.error(() -> new IllegalStateException("Canal " + CHANNEL + " cerrado")))
+            // transientErrors: tras reconectar y recibir algo la espera vuelve a 1 s; sin él, cada caída sumaría
+            // al mismo contador y tras unas pocas la aplicación esperaría siempre el máximo
+            .retryWhen(Retry.backoff(Long.MAX_VALUE, Duration.ofSeconds(1))
+                .maxBackoff(Duration.ofSeconds(30))
+                .transientErrors(true)
+                .doBeforeRetry(signal -> log.warn("Reconectando al canal {} (intento {}): {}",
+                    CHANNEL, signal.totalRetries() + 1, signal.failure().getMessage())))
+            .publish()
+            .refCount();
+    }
+
+    @Override
+    public Flux<PatientChange> changes() {
+        return changes;
+    }
+
+    private Flux<PatientChange> listen(PostgresqlConnection connection, Duration heartbeatInterval) {
+        Flux<PatientChange> heartbeat = Flux.interval(heartbeatInterval)
+            .concatMap(tick -> connection.createStatement("SELECT 1").execute()
+                .flatMap(PostgresqlResult::getRowsUpdated)
+                .then()
+                .timeout(HEARTBEAT_TIMEOUT))
+            .thenMany(Flux.empty());
+
+        return connection.createStatement("LISTEN " + CHANNEL).execute()
+            .flatMap(PostgresqlResult::getRowsUpdated)
+            .then()
+            .doOnSuccess(v -> log.info("Escuchando cambios de pacientes en el canal {}", CHANNEL))
+            .thenMany(Flux.just(PatientChange.resync())
+                .concatWith(Flux.merge(
+                    connection.getNotifications().<PatientChange>handle((notification, sink) -> {
+                        PatientChange change = parse(notification);
+                        if (change != null) {
+                            sink.next(change);
+                        }
+                    }),
+                    heartbeat)));
+    }
+
+    // {"op", "version", "id", "documentNumber", "city", "active", "previousCity", "previousActive"}
+    static PatientChange parse(Notification notification) {
+        String payload = notification.getParameter();
+        try {
+            JsonNode json = JSON.readTree(payload == null ? "" : payload);
+            PatientChange.Type type = PatientChange.Type.valueOf(json.path("op").asText());
+            if (type == PatientChange.Type.RESYNC) {
+                return PatientChange.resync();
+            }
+            if (!json.hasNonNull("id") || !json.path("version").canConvertToLong()) {
+                throw new IllegalArgumentException("faltan id o version");
+            }
+            return new PatientChange(type, json.get("id").asText(), json.get("version").asLong(),
+                text(json, "documentNumber"), text(json, "city"), bool(json, "active"),
+                text(json, "previousCity"), bool(json, "previousActive"));
+        } catch (JsonProcessingException | IllegalArgumentException e) {
+            log.warn("Notificación de {} con formato inesperado: {}", CHANNEL, payload);
+            return null;
+        }
+    }
+
+    private static String text(JsonNode json, String field) {
+        return json.hasNonNull(field) ? json.get(field).asText() : null;
+    }
+
+    private static Boolean bool(JsonNode json, String field) {
+        return json.hasNonNull(field) ? json.get(field).asBoolean() : null;
+    }
+}
@@ -0,0 +1,109 @@
+package sura.pruebalegoback.infraestructure;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import io.r2dbc.proxy.core.Bindings;
+import io.r2dbc.proxy.core.BoundValue;
+import io.r2dbc.proxy.core.QueryExecutionInfo;
+import io.r2dbc.proxy.core.QueryInfo;
+import io.r2dbc.proxy.listener.ProxyExecutionListener;
+import lombok.extern.slf4j.Slf4j;
+
+import java.time.Duration;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.stream.Collectors;
+
+/**
+ * Listener de r2dbc-proxy que registra la latencia de cada sentencia en el timer {@code r2dbc.query},
+ * etiquetado con un nombre normalizado (el de {@link PatientQuery} cuando el SQL está catalogado, si no
+ * {@code <verbo>:<tabla>}), y escribe en el log solo las sentencias que superan el umbral. Los valores
+ * de los parámetros nunca se registran: solo su posición y tipo.
+ */
+@Slf4j
+public class QueryMetricsListener implements ProxyExecutionListener {
+
+    private static final int MAX_CACHED_NAMES = 500;
+    private static final Pattern VERB = Pattern.compile("^\\s*(select|insert|update|delete|with|explain)\\b",
+            Pattern.CASE_INSENSITIVE);
+    private static final Pattern TABLE = Pattern.compile("\\b(?:from|into|update)\\s+\"?([a-z_][a-z0-9_]*)",
+            Pattern.CASE_INSENSITIVE);
+
+    private final MeterRegistry meterRegistry;
+    private final Duration slowQueryThreshold;
+    private final Map<String, String> names = new ConcurrentHashMap<>();
+
+    public QueryMetricsListener(MeterRegistry meterRegistry, Duration slowQueryThreshold) {
+        this.meterRegistry = meterRegistry;
+        this.slowQueryThreshold = slowQueryThreshold;
+    }
+
+    @Override
+    public void afterQuery(QueryExecutionInfo execInfo) {
+        Duration elapsed = execInfo.getExecuteDuration();
+        String outcome = execInfo.isSuccess() ? "success" : "error";
+
+        for (QueryInfo query : execInfo.getQueries()) {
+            String name = statementName(query.getQuery());
+            Timer.builder("r2dbc.query")
+                .description("Latencia de ejecución de sentencias SQL")
+                .tag("query", name)
+                .tag("outcome", outcome)
+                .publishPercentileHistogram()
+                .register(meterRegistry)
+                .record(elapsed);
+
+            if (elapsed.compareTo(slowQueryThreshold) >= 0) {
+                log.warn("Consulta lenta [{}] {} ms ({}): {} parámetros {}", name, elapsed.toMillis(), outcome,
+                    PatientQuery.normalizeWhitespace(query.getQuery()), redact(query));
+            }
+        }
+    }
+
+    String statementName(String sql) {
+        String cached = names.get(sql);
+        if (cached != null) {
+            return cached;
+        }
+        String name = PatientQuery.bySql(sql).map(PatientQuery::queryName).orElseGet(() -> genericName(sql));
+        // Las búsquedas dinámicas generan muchas variantes de SQL; el caché no debe crecer sin límite
+        if (names.size() < MAX_CACHED_NAMES) {
+            names.put(sql, name);
+        }
+        return name;
+    }
+
+    private static String genericName(String sql) {
+        Matcher verb = VERB.matcher(sql);
+        Matcher table = TABLE.matcher(sql);
+        return (verb.find() ? verb.group(1).toLowerCase(Locale.ROOT) : "other")
+            + ":" + (table.find() ? table.group(1).toLowerCase(Locale.ROOT) : "unknown");
+    }
+
+    // $1=<String>, $2=<null>, ... : suficiente para reproducir el plan sin exponer datos de pacientes
+    private static String redact(QueryInfo query) {
+        return query.getBindingsList().stream()
+            .map(QueryMetricsListener::redact)
+            .collect(Collectors.joining(", ", "[", "]"));
+    }
+
+    private static String redact(Bindings bindings) {
+        String indexed = bindings.getIndexBindings().stream()
+            .map(binding -> "$" + ((Integer) binding.getKey() + 1) + "=<" + typeOf(binding.getBoundValue()) + ">")
+            .collect(Collectors.joining(", "));
+        String named = bindings.getNamedBindings().stream()
+            .map(binding -> binding.getKey() + "=<" + typeOf(binding.getBoundValue()) + ">")
+            .collect(Collectors.joining(", "));
+        return indexed.isEmpty() ? named : named.isEmpty() ? indexed : indexed + ", " + named;
+    }
+
+    private static String typeOf(BoundValue value) {
+        if (value.isNull()) {
+            return "null";
+        }
+        return value.getValue() == null ? "?" : value.getValue().getClass().getSimpleName();
+    }
+}
@@ -0,0 +1,53 @@
+package sura.pruebalegoback.infraestructure;
+
+import io.r2dbc.postgresql.codec.Json;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.data.r2dbc.core.R2dbcEntityTemplate;
+import org.springframework.r2dbc.core.DatabaseClient;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import sura.pruebalegoback.domain.patient.ex.PatientBusinessException;
+import sura.pruebalegoback.domain.patient.gateway.QueryPlanGateway;
+
+import java.util.Arrays;
+
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class QueryPlanAdapter implements QueryPlanGateway {
+
+    private static final String EXPLAIN_ANALYZE = "EXPLAIN (ANALYZE, BUFFERS, FORMAT JSON) ";
+
+    private final R2dbcEntityTemplate r2dbcEntityTemplate;
+
+    @Override
+    public Flux<String> explainableQueries() {
+        return Flux.fromArray(PatientQuery.values())
+            .filter(PatientQuery::readOnly)
+            .map(PatientQuery::queryName);
+    }
+
+    @Override
+    public Mono<String> explainAnalyze(String queryName) {
+        PatientQuery query = PatientQuery.byName(queryName).orElse(null);
+        if (query == null) {
+            return Mono.error(new PatientBusinessException("Consulta no registrada: " + queryName, "UNKNOWN_QUERY"));
+        }
+        // EXPLAIN ANALYZE ejecuta la sentencia: nunca sobre consultas que modifican datos
+        if (!query.readOnly()) {
+            return Mono.error(new PatientBusinessException(
+                "La consulta " + queryName + " modifica datos y no admite EXPLAIN ANALYZE", "QUERY_NOT_READ_ONLY"));
+        }
+
+        log.info("Ejecutando EXPLAIN ANALYZE de {} con parámetros {}", queryName, Arrays.toString(query.sampleParameters()));
+        DatabaseClient.GenericExecuteSpec spec = r2dbcEntityTemplate.getDatabaseClient().sql(EXPLAIN_ANALYZE + query.sql());
+        Object[] parameters = query.sampleParameters();
+        for (int i = 0; i < parameters.length; i++) {
+            spec = spec.bind(i, parameters[i]);
+        }
+        return spec.map((row, metadata) -> row.get(0, Json.class).asString())
+            .one();
+    }
+}
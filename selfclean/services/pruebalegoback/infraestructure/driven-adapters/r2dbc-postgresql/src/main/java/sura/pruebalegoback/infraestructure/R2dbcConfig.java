@@ -1,18 +1,25 @@
 package sura.pruebalegoback.infraestructure;
 
+import io.micrometer.core.instrument.MeterRegistry;
 import io.r2dbc.pool.ConnectionPool;
 import io.r2dbc.pool.ConnectionPoolConfiguration;
 import io.r2dbc.postgresql.PostgresqlConnectionConfiguration;
 import io.r2dbc.postgresql.PostgresqlConnectionFactory;
+import io.r2dbc.proxy.ProxyConnectionFactory;
 import io.r2dbc.spi.ConnectionFactory;
+import io.r2dbc.spi.ValidationDepth;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.data.r2dbc.config.AbstractR2dbcConfiguration;
 import org.springframework.data.r2dbc.repository.config.EnableR2dbcRepositories;
+import sura.pruebalegoback.domain.patient.gateway.PatientChangeFeed;
 
 import java.time.Duration;
 
+@Slf4j
 @Configuration
 @EnableR2dbcRepositories
 public class R2dbcConfig extends AbstractR2dbcConfiguration {
@@ -26,34 +33,135 @@ public class R2dbcConfig extends AbstractR2dbcConfiguration {
     @Value("${spring.r2dbc.password}")
     private String password;
 
+    // Ruta del socket Unix de PostgreSQL (p. ej. /var/run/postgresql/.s.PGSQL.5432); vacío => TCP
+    @Value("${app.r2dbc.socket:}")
+    private String socket;
+
+    @Value("${spring.r2dbc.pool.initial-size:5}")
+    private int initialSize;
+
+    @Value("${spring.r2dbc.pool.max-size:20}")
+    private int maxSize;
+
+    @Value("${spring.r2dbc.pool.max-idle-time:PT30M}")
+    private Duration maxIdleTime;
+
+    @Value("${app.r2dbc.pool.adaptive.enabled:false}")
+    private boolean adaptiveEnabled;
+
+    @Value("${app.r2dbc.pool.adaptive.min-limit:5}")
+    private int adaptiveMinLimit;
+
+    @Value("${app.r2dbc.pool.adaptive.max-limit:40}")
+    private int adaptiveMaxLimit;
+
+    @Value("${app.r2dbc.pool.adaptive.sample-interval:PT5S}")
+    private Duration adaptiveSampleInterval;
+
+    @Value("${app.r2dbc.pool.adaptive.acquire-wait-target:PT0.02S}")
+    private Duration adaptiveAcquireWaitTarget;
+
+    @Value("${app.r2dbc.pool.adaptive.latency-tolerance:2.0}")
+    private double adaptiveLatencyTolerance;
+
+    @Value("${app.r2dbc.pool.adaptive.backoff-ratio:0.8}")
+    private double adaptiveBackoffRatio;
+
+    // Sentencias preparadas que cada conexión mantiene (LRU; al desalojar una se cierra también en el servidor).
+    // Cada combinación de ?fields= es un SQL distinto: sin límite, el driver guardaría una por variante y conexión
+    @Value("${app.r2dbc.prepared-statement-cache-size:128}")
+    private int preparedStatementCacheSize;
+
+    // Sentencias que tardan más que esto se registran en el log (sin valores de parámetros)
+    @Value("${app.r2dbc.slow-query-threshold:PT0.5S}")
+    private Duration slowQueryThreshold;
+
+    // Intervalo del SELECT 1 que verifica la conexión de LISTEN del canal patients_changed
+    @Value("${app.r2dbc.change-feed.heartbeat-interval:PT30S}")
+    private Duration changeFeedHeartbeatInterval;
+
+    private final MeterRegistry meterRegistry;
+
+    private ConnectionPool pool;
+    private AdaptiveConcurrencyLimiter limiter;
+
+    public R2dbcConfig(MeterRegistry meterRegistry) {
+        this.meterRegistry = meterRegistry;
+    }
+
     @Override
     @Bean
     public ConnectionFactory connectionFactory() {
+        PostgresqlConnectionFactory connectionFactory = postgresqlConnectionFactory(false);
+
+        // Con control adaptativo el pool puede crecer hasta el límite superior; el limitador decide cuántas se usan
+        int poolMaxSize = adaptiveEnabled ? Math.max(maxSize, adaptiveMaxLimit) : maxSize;
+
+        ConnectionPoolConfiguration poolConfig = ConnectionPoolConfiguration.builder(connectionFactory)
+            .maxIdleTime(maxIdleTime)
+            .initialSize(Math.min(initialSize, poolMaxSize))
+            .maxSize(poolMaxSize)
+            .maxCreateConnectionTime(Duration.ofSeconds(30))
+            .maxAcquireTime(Duration.ofSeconds(30))
+            .maxLifeTime(Duration.ofHours(1))
+            // Cada conexión se valida al entregarla: descarta las que CancellableQueryExecutor cerró tras cancelar
+            .validationDepth(ValidationDepth.LOCAL)
+            .build();
+
+        pool = new ConnectionPool(poolConfig);
+        ConnectionFactory factory = pool;
+        if (adaptiveEnabled) {
+            limiter = new AdaptiveConcurrencyLimiter(
+                adaptiveMinLimit, adaptiveMaxLimit, maxSize, adaptiveSampleInterval,
+                adaptiveAcquireWaitTarget, adaptiveLatencyTolerance, adaptiveBackoffRatio, meterRegistry);
+            limiter.start();
+            factory = new AdaptiveConnectionFactory(pool, limiter);
+        }
+
+        // Capa más externa: latencia por sentencia (timer r2dbc.query) y log de consultas lentas
+        return ProxyConnectionFactory.builder(factory)
+            .listener(new QueryMetricsListener(meterRegistry, slowQueryThreshold))
+            .build();
+    }
+
+    // Misma configuración que el pool, pero con una conexión dedicada y keepalive: pasa la mayor parte del tiempo ociosa
+    @Bean
+    public PatientChangeFeed patientChangeFeed() {
+        return new PostgresPatientChangeFeed(postgresqlConnectionFactory(true), changeFeedHeartbeatInterval);
+    }
+
+    private PostgresqlConnectionFactory postgresqlConnectionFactory(boolean tcpKeepAlive) {
         String[] urlParts = url.replace("r2dbc:postgresql://", "").split("/");
         String[] hostPort = urlParts[0].split(":");
         String host = hostPort[0];
         int port = Integer.parseInt(hostPort[1]);
         String database = urlParts[1];
 
-        PostgresqlConnectionConfiguration config = PostgresqlConnectionConfiguration.builder()
-            .host(host)
-            .port(port)
+        PostgresqlConnectionConfiguration.Builder builder = PostgresqlConnectionConfiguration.builder()
             .database(database)
             .username(username)
             .password(password)
-            .build();
+            .preparedStatementCacheQueries(preparedStatementCacheSize);
 
-        PostgresqlConnectionFactory connectionFactory = new PostgresqlConnectionFactory(config);
+        if (socket == null || socket.isBlank()) {
+            log.info("Conectando a PostgreSQL por TCP en {}:{}", host, port);
+            builder.host(host).port(port);
+        } else {
+            // Requiere el transporte nativo de Netty (epoll en Linux)
+            log.info("Conectando a PostgreSQL por socket Unix {}", socket);
+            builder.socket(socket);
+        }
 
-        ConnectionPoolConfiguration poolConfig = ConnectionPoolConfiguration.builder(connectionFactory)
-            .maxIdleTime(Duration.ofMinutes(30))
-            .initialSize(5)
-            .maxSize(20)
-            .maxCreateConnectionTime(Duration.ofSeconds(30))
-            .maxAcquireTime(Duration.ofSeconds(30))
-            .maxLifeTime(Duration.ofHours(1))
-            .build();
+        return new PostgresqlConnectionFactory(builder.tcpKeepAlive(tcpKeepAlive).build());
+    }
 
-        return new ConnectionPool(poolConfig);
+    @PreDestroy
+    public void closeConnectionPool() {
+        if (limiter != null) {
+            limiter.stop();
+        }
+        if (pool != null) {
+            pool.dispose();
+        }
     }
 }
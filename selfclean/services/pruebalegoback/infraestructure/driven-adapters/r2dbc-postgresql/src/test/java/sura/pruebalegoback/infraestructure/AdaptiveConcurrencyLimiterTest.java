@@ -0,0 +1,148 @@
+package sura.pruebalegoback.infraestructure;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class AdaptiveConcurrencyLimiterTest {
+
+    private static final long MS = 1_000_000L;
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private final AdaptiveConcurrencyLimiter limiter = new AdaptiveConcurrencyLimiter(
+        2, 10, 10, Duration.ofSeconds(5), Duration.ofMillis(20), 2.0, 0.8, meterRegistry);
+    private final List<AdaptiveConcurrencyLimiter.Permit> held = new ArrayList<>();
+
+    @Test
+    void shouldBackOffWhenMostQueriesSlowDownWhilePoolIsBusy() {
+        hold(6);
+        window(1 * MS, "findById", "findByCity");
+
+        window(5 * MS, "findById", "findByCity");
+
+        assertThat(limiter.currentLimit()).isEqualTo(8);
+        assertThat(adjustments("decrease", "latency")).isEqualTo(1);
+    }
+
+    @Test
+    void shouldNotBackOffWhenOnlyOneQuerySlowsDown() {
+        hold(6);
+        window(1 * MS, "findById", "findByCity", "countAll");
+
+        record("countAll", 50 * MS, 5);
+        window(1 * MS, "findById", "findByCity");
+
+        assertThat(limiter.currentLimit()).isEqualTo(10);
+    }
+
+    @Test
+    void shouldNotCompareHeavyListingWithOtherQueriesBaseline() {
+        hold(6);
+        window(1 * MS, "findById");
+
+        // Ráfaga de listados completos: su primera ventana solo fija su propia línea base
+        window(200 * MS, "findAll");
+        window(1 * MS, "findById");
+
+        assertThat(limiter.currentLimit()).isEqualTo(10);
+    }
+
+    @Test
+    void shouldIgnoreUncataloguedStatements() {
+        hold(6);
+        window(1 * MS, "findById");
+
+        record(null, 500 * MS, 10);
+        window(1 * MS, "findById");
+
+        assertThat(limiter.currentLimit()).isEqualTo(10);
+    }
+
+    @Test
+    void shouldOnlyShrinkByOneWhenPoolIsIdleEvenIfQueriesAreSlow() {
+        window(1 * MS, "findById", "findByCity");
+
+        window(5 * MS, "findById", "findByCity");
+
+        assertThat(limiter.currentLimit()).isEqualTo(8);
+        assertThat(adjustments("decrease", "latency")).isZero();
+        assertThat(adjustments("decrease", "idle")).isEqualTo(2);
+    }
+
+    @Test
+    void shouldRecoverAfterBackoffWhenConnectionsAreScarce() {
+        hold(6);
+        window(1 * MS, "findById", "findByCity");
+        window(5 * MS, "findById", "findByCity");
+        assertThat(limiter.currentLimit()).isEqualTo(8);
+
+        limiter.recordAcquireWait(50 * MS);
+        window(1 * MS, "findById", "findByCity");
+
+        assertThat(limiter.currentLimit()).isEqualTo(9);
+        assertThat(adjustments("increase", "acquire-wait")).isEqualTo(1);
+    }
+
+    @Test
+    void shouldNeverGoBelowMinLimit() {
+        AdaptiveConcurrencyLimiter small = new AdaptiveConcurrencyLimiter(
+            2, 10, 2, Duration.ofSeconds(5), Duration.ofMillis(20), 2.0, 0.5, meterRegistry);
+        small.acquire().block();
+        small.acquire().block();
+        for (long latency : new long[]{1 * MS, 10 * MS}) {
+            for (int i = 0; i < 5; i++) {
+                small.recordStatementLatency("findById", latency);
+            }
+            small.adjust();
+        }
+
+        assertThat(small.currentLimit()).isEqualTo(2);
+    }
+
+    @Test
+    void shouldQueueAcquisitionsBeyondLimitUntilPermitIsReleased() {
+        AdaptiveConcurrencyLimiter single = new AdaptiveConcurrencyLimiter(
+            1, 1, 1, Duration.ofSeconds(5), Duration.ofMillis(20), 2.0, 0.8, meterRegistry);
+        AdaptiveConcurrencyLimiter.Permit first = single.acquire().block();
+        List<AdaptiveConcurrencyLimiter.Permit> granted = new ArrayList<>();
+
+        single.acquire().subscribe(granted::add);
+        assertThat(granted).isEmpty();
+
+        first.release();
+        assertThat(granted).hasSize(1);
+    }
+
+    private void hold(int permits) {
+        for (int i = 0; i < permits; i++) {
+            held.add(limiter.acquire().block());
+        }
+    }
+
+    // Una ventana de muestreo: 5 ejecuciones por consulta con la latencia indicada y luego el ajuste
+    private void window(long nanos, String... queries) {
+        for (String query : queries) {
+            record(query, nanos, 5);
+        }
+        limiter.adjust();
+    }
+
+    private void record(String query, long nanos, int times) {
+        for (int i = 0; i < times; i++) {
+            limiter.recordStatementLatency(query, nanos);
+        }
+    }
+
+    private double adjustments(String direction, String reason) {
+        var counter = meterRegistry.find("r2dbc.pool.adaptive.adjustments")
+            .tag("direction", direction)
+            .tag("reason", reason)
+            .counter();
+        return counter == null ? 0 : counter.count();
+    }
+}
@@ -0,0 +1,164 @@
+package sura.pruebalegoback.infraestructure;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import io.r2dbc.postgresql.api.PostgresqlConnection;
+import io.r2dbc.spi.Connection;
+import io.r2dbc.spi.ConnectionFactory;
+import io.r2dbc.spi.Result;
+import io.r2dbc.spi.Statement;
+import io.r2dbc.spi.Wrapped;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.InOrder;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.test.StepVerifier;
+
+import java.time.Duration;
+import java.util.concurrent.TimeoutException;
+import java.util.function.BiFunction;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.doReturn;
+import static org.mockito.Mockito.inOrder;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+import static org.mockito.Mockito.withSettings;
+
+class CancellableQueryExecutorTest {
+
+    private static final Duration IDLE_TIMEOUT = Duration.ofSeconds(30);
+    private static final Duration MAX_DURATION = Duration.ofMinutes(10);
+
+    private final ConnectionFactory connectionFactory = mock(ConnectionFactory.class);
+    private final Connection connection = mock(Connection.class);
+    private final Statement statement = mock(Statement.class);
+    private final Result result = mock(Result.class);
+
+    @BeforeEach
+    void setUp() {
+        doReturn(Mono.just(connection)).when(connectionFactory).create();
+        doReturn(Mono.empty()).when(connection).close();
+        when(connection.createStatement(anyString())).thenReturn(statement);
+        doReturn(Flux.just(result)).when(statement).execute();
+        doReturn(Flux.just("a", "b")).when(result).map(any(BiFunction.class));
+    }
+
+    @Test
+    void shouldFetchListingRowsInBatchesOfConfiguredSize() {
+        CancellableQueryExecutor executor = executor(256);
+
+        StepVerifier.create(executor.streamListing("findAll", "SELECT 1", (row, metadata) -> "x"))
+                .expectNext("a", "b")
+                .verifyComplete();
+
+        verify(statement).fetchSize(256);
+    }
+
+    @Test
+    void shouldLeaveDriverDefaultWhenFetchSizeIsZero() {
+        CancellableQueryExecutor executor = executor(0);
+
+        StepVerifier.create(executor.streamListing("findAll", "SELECT 1", (row, metadata) -> "x"))
+                .expectNext("a", "b")
+                .verifyComplete();
+
+        verify(statement, never()).fetchSize(anyInt());
+    }
+
+    @Test
+    void shouldReadBoundedQueriesWithoutBatches() {
+        CancellableQueryExecutor executor = executor(256);
+
+        StepVerifier.create(executor.stream("findAllByIds", "SELECT 1", (row, metadata) -> "x"))
+                .expectNext("a", "b")
+                .verifyComplete();
+
+        verify(statement, never()).fetchSize(anyInt());
+    }
+
+    @Test
+    void shouldReleaseConnectionWhenSubscriberStopsRequestingRows() {
+        SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+        CancellableQueryExecutor executor = new CancellableQueryExecutor(connectionFactory, meterRegistry, 256,
+                IDLE_TIMEOUT, MAX_DURATION);
+
+        // Pide una fila y luego deja de pedir: el segundo lote nunca se solicita
+        StepVerifier.withVirtualTime(() -> executor.streamListing("findAll", "SELECT 1", (row, metadata) -> "x"), 1)
+                .expectNext("a")
+                .expectNoEvent(IDLE_TIMEOUT.minusSeconds(1))
+                .thenAwait(Duration.ofSeconds(1))
+                .expectError(TimeoutException.class)
+                .verify();
+
+        verify(connection).close();
+        assertThat(meterRegistry.get("r2dbc.queries.stream.timeout").tag("query", "findAll").counter().count())
+                .isEqualTo(1);
+    }
+
+    @Test
+    void shouldCancelListingThatExceedsMaxDurationEvenIfRowsKeepArriving() {
+        doReturn(Flux.interval(Duration.ofSeconds(10)).map(String::valueOf)).when(result).map(any(BiFunction.class));
+        CancellableQueryExecutor executor = new CancellableQueryExecutor(connectionFactory, new SimpleMeterRegistry(),
+                256, IDLE_TIMEOUT, Duration.ofSeconds(35));
+
+        StepVerifier.withVirtualTime(() -> executor.streamListing("findAll", "SELECT 1", (row, metadata) -> "x"))
+                .thenAwait(Duration.ofSeconds(30))
+                .expectNext("0", "1", "2")
+                .thenAwait(Duration.ofSeconds(5))
+                .expectError(TimeoutException.class)
+                .verify();
+
+        verify(connection).close();
+    }
+
+    @Test
+    void shouldCancelOnServerAndDiscardPhysicalConnectionBeforeReleasingIt() {
+        PostgresqlConnection physical = mock(PostgresqlConnection.class);
+        Connection pooled = mock(Connection.class, withSettings().extraInterfaces(Wrapped.class));
+        doReturn(physical).when((Wrapped<?>) pooled).unwrap();
+        doReturn(Mono.just(pooled)).when(connectionFactory).create();
+        when(pooled.createStatement(anyString())).thenReturn(statement);
+        doReturn(Mono.empty()).when(physical).cancelRequest();
+        doReturn(Mono.empty()).when(physical).close();
+        doReturn(Mono.empty()).when(pooled).close();
+        doReturn(Flux.never()).when(result).map(any(BiFunction.class));
+
+        StepVerifier.create(executor(256).streamListing("findAll", "SELECT 1", (row, metadata) -> "x"))
+                .thenCancel()
+                .verify();
+
+        InOrder inOrder = inOrder(physical, pooled);
+        inOrder.verify(physical).cancelRequest();
+        inOrder.verify(physical).close();
+        inOrder.verify(pooled).close();
+    }
+
+    @Test
+    void shouldReleaseConnectionNormallyWhenQueryCompletes() {
+        PostgresqlConnection physical = mock(PostgresqlConnection.class);
+        Connection pooled = mock(Connection.class, withSettings().extraInterfaces(Wrapped.class));
+        doReturn(physical).when((Wrapped<?>) pooled).unwrap();
+        doReturn(Mono.just(pooled)).when(connectionFactory).create();
+        when(pooled.createStatement(anyString())).thenReturn(statement);
+        doReturn(Mono.empty()).when(pooled).close();
+
+        StepVerifier.create(executor(256).streamListing("findAll", "SELECT 1", (row, metadata) -> "x"))
+                .expectNext("a", "b")
+                .verifyComplete();
+
+        verify(pooled).close();
+        verify(physical, never()).cancelRequest();
+        verify(physical, never()).close();
+    }
+
+    private CancellableQueryExecutor executor(int fetchSize) {
+        return new CancellableQueryExecutor(connectionFactory, new SimpleMeterRegistry(), fetchSize, IDLE_TIMEOUT,
+                MAX_DURATION);
+    }
+}
@@ -0,0 +1,30 @@
+package sura.pruebalegoback.infraestructure;
+
+import org.junit.jupiter.api.Test;
+import sura.pruebalegoback.domain.patient.PatientField;
+
+import java.util.EnumSet;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class PatientQueriesTest {
+
+    @Test
+    void shouldSelectOnlyColumnsBehindRequestedFields() {
+        String sql = PatientQueries.project(PatientQueries.FIND_BY_CITY, EnumSet.of(PatientField.FULL_NAME, PatientField.CITY));
+
+        assertThat(sql).isEqualTo("SELECT id, first_name, last_name, city FROM patients WHERE city = $1");
+    }
+
+    @Test
+    void shouldReadBirthDateForAge() {
+        assertThat(PatientQueries.columns(EnumSet.of(PatientField.AGE))).containsExactly("id", "birth_date");
+    }
+
+    @Test
+    void shouldOnlyProjectSelectAllQueries() {
+        assertThatThrownBy(() -> PatientQueries.project(PatientQueries.COUNT_ALL, EnumSet.of(PatientField.ID)))
+                .isInstanceOf(IllegalArgumentException.class);
+    }
+}
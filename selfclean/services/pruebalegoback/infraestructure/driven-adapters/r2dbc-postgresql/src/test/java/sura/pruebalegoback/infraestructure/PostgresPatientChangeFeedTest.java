@@ -0,0 +1,86 @@
+package sura.pruebalegoback.infraestructure;
+
+import io.r2dbc.postgresql.api.Notification;
+import org.junit.jupiter.api.Test;
+import sura.pruebalegoback.domain.patient.PatientChange;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class PostgresPatientChangeFeedTest {
+
+    @Test
+    void shouldParseInsertWithoutPreviousValues() {
+        PatientChange change = PostgresPatientChangeFeed.parse(notification(
+            "{\"op\": \"INSERT\", \"version\": 0, \"id\": \"p-1\", \"documentNumber\": \"1032456789\", "
+                + "\"city\": \"Medellín\", \"active\": true}"));
+
+        assertThat(change).isEqualTo(new PatientChange(PatientChange.Type.INSERT, "p-1", 0L, "1032456789",
+            "Medellín", true, null, null));
+    }
+
+    @Test
+    void shouldParseUpdateWithPreviousCityAndState() {
+        PatientChange change = PostgresPatientChangeFeed.parse(notification(
+            "{\"op\": \"UPDATE\", \"version\": 4, \"id\": \"p-1\", \"documentNumber\": \"1032456789\", "
+                + "\"city\": \"Cali\", \"active\": false, \"previousCity\": \"Medellín\", \"previousActive\": true}"));
+
+        assertThat(change).isEqualTo(new PatientChange(PatientChange.Type.UPDATE, "p-1", 4L, "1032456789",
+            "Cali", false, "Medellín", true));
+    }
+
+    @Test
+    void shouldParseDeleteWithOnlyPreviousValues() {
+        PatientChange change = PostgresPatientChangeFeed.parse(notification(
+            "{\"op\": \"DELETE\", \"version\": 5, \"id\": \"p-1\", \"documentNumber\": \"1032456789\", "
+                + "\"previousCity\": \"Cali\", \"previousActive\": false}"));
+
+        assertThat(change).isEqualTo(new PatientChange(PatientChange.Type.DELETE, "p-1", 5L, "1032456789",
+            null, null, "Cali", false));
+    }
+
+    @Test
+    void shouldTreatNullCityAsAbsent() {
+        PatientChange change = PostgresPatientChangeFeed.parse(notification(
+            "{\"op\": \"INSERT\", \"version\": 0, \"id\": \"p-2\", \"documentNumber\": \"99\", "
+                + "\"city\": null, \"active\": true}"));
+
+        assertThat(change.city()).isNull();
+    }
+
+    @Test
+    void shouldParseTruncateResync() {
+        assertThat(PostgresPatientChangeFeed.parse(notification("{\"op\":\"RESYNC\"}")))
+            .isEqualTo(PatientChange.resync());
+    }
+
+    @Test
+    void shouldIgnoreMalformedJson() {
+        assertThat(PostgresPatientChangeFeed.parse(notification("{\"op\": \"INSERT\", \"id\": "))).isNull();
+    }
+
+    @Test
+    void shouldIgnoreUnknownOperation() {
+        assertThat(PostgresPatientChangeFeed.parse(notification("{\"op\": \"MERGE\", \"version\": 1, \"id\": \"p-1\"}")))
+            .isNull();
+    }
+
+    @Test
+    void shouldIgnoreChangeWithoutIdOrVersion() {
+        assertThat(PostgresPatientChangeFeed.parse(notification("{\"op\": \"UPDATE\", \"version\": 1}"))).isNull();
+        assertThat(PostgresPatientChangeFeed.parse(notification("{\"op\": \"UPDATE\", \"id\": \"p-1\"}"))).isNull();
+    }
+
+    @Test
+    void shouldIgnoreEmptyPayload() {
+        assertThat(PostgresPatientChangeFeed.parse(notification(null))).isNull();
+    }
+
+    private static Notification notification(String payload) {
+        Notification notification = mock(Notification.class);
+        when(notification.getName()).thenReturn(PostgresPatientChangeFeed.CHANNEL);
+        when(notification.getParameter()).thenReturn(payload);
+        return notification;
+    }
+}
@@ -0,0 +1,108 @@
+package sura.pruebalegoback.infraestructure;
+
+import io.micrometer.core.instrument.Meter;
+import io.micrometer.core.instrument.Tag;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import io.r2dbc.proxy.core.Bindings;
+import io.r2dbc.proxy.core.BoundValue;
+import io.r2dbc.proxy.core.MutableQueryExecutionInfo;
+import io.r2dbc.proxy.core.QueryInfo;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.springframework.boot.test.system.CapturedOutput;
+import org.springframework.boot.test.system.OutputCaptureExtension;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@ExtendWith(OutputCaptureExtension.class)
+class QueryMetricsListenerTest {
+
+    private static final Duration THRESHOLD = Duration.ofMillis(500);
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private final QueryMetricsListener listener = new QueryMetricsListener(meterRegistry, THRESHOLD);
+
+    @Test
+    void shouldLogSlowStatementWithParameterTypesButNeverTheirValues(CapturedOutput output) {
+        listener.afterQuery(execution(PatientQuery.FIND_BY_DOCUMENT_NUMBER.sql(), Duration.ofSeconds(1),
+            BoundValue.value("1032456789"), BoundValue.nullValue(String.class)));
+
+        assertThat(output).contains("Consulta lenta [findByDocumentNumber]", "$1=<String>", "$2=<null>");
+        assertThat(output).doesNotContain("1032456789");
+    }
+
+    @Test
+    void shouldRedactNamedParameters(CapturedOutput output) {
+        QueryInfo query = new QueryInfo("SELECT * FROM patients WHERE email = :email");
+        Bindings bindings = new Bindings();
+        bindings.addNamedBinding(new Bindings.NamedBinding("email", BoundValue.value("ana@example.com")));
+        query.getBindingsList().add(bindings);
+
+        listener.afterQuery(execution(query, Duration.ofSeconds(1)));
+
+        assertThat(output).contains("email=<String>");
+        assertThat(output).doesNotContain("ana@example.com");
+    }
+
+    @Test
+    void shouldNotLogStatementsBelowThreshold(CapturedOutput output) {
+        listener.afterQuery(execution(PatientQuery.FIND_BY_ID.sql(), Duration.ofMillis(5), BoundValue.value("p-1")));
+
+        assertThat(output).doesNotContain("Consulta lenta");
+        assertThat(meterRegistry.get("r2dbc.query").tag("query", "findById").timer().count()).isEqualTo(1);
+    }
+
+    @Test
+    void shouldNeverPutParameterValuesInTags() {
+        listener.afterQuery(execution(PatientQuery.FIND_BY_CITY.sql(), Duration.ofSeconds(1), BoundValue.value("Medellín")));
+
+        assertThat(tagValues()).noneMatch(value -> value.contains("Medellín"));
+    }
+
+    @Test
+    void shouldKeepQueryTagsBoundedForDynamicAndLiteralSql() {
+        for (int i = 0; i < 1_000; i++) {
+            listener.afterQuery(execution("SELECT * FROM patients WHERE city = 'Ciudad " + i + "' AND active = $1",
+                Duration.ofMillis(1), BoundValue.value(true)));
+            listener.afterQuery(execution("UPDATE patients SET phone = '300" + i + "' WHERE id = $1",
+                Duration.ofMillis(1), BoundValue.value("p-" + i)));
+        }
+
+        Set<String> queryTags = meterRegistry.find("r2dbc.query").meters().stream()
+            .map(meter -> meter.getId().getTag("query"))
+            .collect(Collectors.toSet());
+        assertThat(queryTags).containsExactlyInAnyOrder("select:patients", "update:patients");
+        assertThat(tagValues()).noneMatch(value -> value.contains("Ciudad") || value.contains("300"));
+    }
+
+    private Set<String> tagValues() {
+        return meterRegistry.getMeters().stream()
+            .map(Meter::getId)
+            .flatMap(id -> id.getTags().stream())
+            .map(Tag::getValue)
+            .collect(Collectors.toSet());
+    }
+
+    private static MutableQueryExecutionInfo execution(String sql, Duration elapsed, BoundValue... values) {
+        QueryInfo query = new QueryInfo(sql);
+        Bindings bindings = new Bindings();
+        for (int i = 0; i < values.length; i++) {
+            bindings.addIndexBinding(new Bindings.IndexBinding(i, values[i]));
+        }
+        query.getBindingsList().add(bindings);
+        return execution(query, elapsed);
+    }
+
+    private static MutableQueryExecutionInfo execution(QueryInfo query, Duration elapsed) {
+        MutableQueryExecutionInfo execution = new MutableQueryExecutionInfo();
+        execution.setQueries(List.of(query));
+        execution.setExecuteDuration(elapsed);
+        execution.setSuccess(true);
+        return execution;
+    }
+}
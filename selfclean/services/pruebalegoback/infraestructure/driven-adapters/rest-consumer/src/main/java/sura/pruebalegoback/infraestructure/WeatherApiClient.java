@@ -4,13 +4,13 @@ import com.fasterxml.jackson.core.JsonProcessingException;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
-import org.springframework.beans.factory.annotation.Qualifier;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Component;
 import org.springframework.web.reactive.function.client.WebClient;
 import reactor.core.publisher.Mono;
 import reactor.util.retry.Retry;
 import sura.pruebalegoback.domain.patient.gateway.WeatherGateway;
+import sura.pruebalegoback.infraestructure.helpers.json.codec.JsonMappers;
 import java.time.Duration;
 import java.util.Locale;
 import java.util.concurrent.TimeoutException;
@@ -21,14 +21,14 @@ public class WeatherApiClient implements WeatherGateway {
     private static final Logger log = LoggerFactory.getLogger(WeatherApiClient.class);
     
     private final WebClient webClient;
-    private final ObjectMapper objectMapper;
+    // Propio y no un bean: un ObjectMapper en el contexto haría que Spring Boot no arme el de la aplicación
+    private final ObjectMapper objectMapper = JsonMappers.snakeCase();
     
     @Value("${weather.api.base-url}")
     private String baseUrl;
     
-    public WeatherApiClient(WebClient webClient, @Qualifier("jacksonObjectMapper") ObjectMapper objectMapper) {
+    public WeatherApiClient(WebClient webClient) {
         this.webClient = webClient;
-        this.objectMapper = objectMapper;
     }
 
     @Override
@@ -0,0 +1,116 @@
+package sura.pruebalegoback.web;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import sura.pruebalegoback.GlobalExceptionHandler.ErrorResponse;
+import sura.pruebalegoback.dto.PatientResponse;
+import sura.pruebalegoback.usecase.patient.QueryPatientsUseCase.PatientSummary;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.IntStream;
+
+/*
+ * Rendimiento de la serialización de los DTO de pacientes: el mapper anterior (JavaTimeModule e introspección
+ * de los beans) frente a JacksonConfig.webObjectMapper() con los serializadores de PatientJsonModule.
+ * No necesita base de datos:
+ *
+ *   ./gradlew :entry-points-reactive-web:jmh -Pjmh.includes=PatientJsonBenchmark
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+public class PatientJsonBenchmark {
+
+    private static final int PAGE_SIZE = 500;
+
+    @Param({"reflective", "codec"})
+    private String mapper;
+
+    private ObjectMapper objectMapper;
+    private PatientResponse patient;
+    private List<PatientResponse> page;
+    private List<PatientSummary> summaries;
+    private ErrorResponse error;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        if ("codec".equals(mapper)) {
+            objectMapper = JacksonConfig.webObjectMapper();
+        } else {
+            objectMapper = new ObjectMapper()
+                    .registerModule(new JavaTimeModule())
+                    .disable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS);
+        }
+
+        page = IntStream.range(0, PAGE_SIZE).mapToObj(PatientJsonBenchmark::patient).toList();
+        patient = page.get(0);
+        summaries = page.stream()
+                .map(p -> new PatientSummary(p.getId(), p.getFullName(), p.getAge(), p.getCity(), p.isActive()))
+                .toList();
+        error = ErrorResponse.builder()
+                .timestamp(LocalDateTime.of(2024, 3, 1, 8, 30, 15))
+                .status(400)
+                .error("Validation Error")
+                .message("Error de validación en los datos de entrada")
+                .code("VALIDATION_ERROR")
+                .type("VALIDATION_ERROR")
+                .details(Map.of("email", "debe ser una dirección de correo válida"))
+                .build();
+    }
+
+    @Benchmark
+    public byte[] patientResponse() throws JsonProcessingException {
+        return objectMapper.writeValueAsBytes(patient);
+    }
+
+    @Benchmark
+    public byte[] patientPage() throws JsonProcessingException {
+        return objectMapper.writeValueAsBytes(page);
+    }
+
+    @Benchmark
+    public byte[] summaryPage() throws JsonProcessingException {
+        return objectMapper.writeValueAsBytes(summaries);
+    }
+
+    @Benchmark
+    public byte[] errorResponse() throws JsonProcessingException {
+        return objectMapper.writeValueAsBytes(error);
+    }
+
+    private static PatientResponse patient(int i) {
+        LocalDate birthDate = LocalDate.of(1940, 1, 1).plusDays(i * 53L);
+        return PatientResponse.builder()
+                .id("c0a80101-0000-4000-8000-" + String.format("%012d", i))
+                .firstName("Paciente" + i)
+                .lastName("Gómez")
+                .documentNumber(String.valueOf(1_000_000_000L + i))
+                .documentType("CC")
+                .birthDate(birthDate)
+                .address("Calle " + i + " # 45-67")
+                .phone("300" + String.format("%07d", i))
+                .email("paciente" + i + "@example.com")
+                .city(i % 2 == 0 ? "Medellín" : "Bogotá")
+                .state("Antioquia")
+                .admissionDate(LocalDateTime.of(2024, 1, 1, 7, 0).plusMinutes(i * 37L).plusNanos(i * 1_000_000L))
+                .active(i % 5 != 0)
+                .fullName("Paciente" + i + " Gómez")
+                .age(LocalDate.of(2024, 1, 1).getYear() - birthDate.getYear())
+                .build();
+    }
+}
@@ -18,6 +18,7 @@ import reactor.core.publisher.Mono;
 import sura.pruebalegoback.domain.common.ex.ApplicationException;
 import sura.pruebalegoback.domain.common.ex.BusinessException;
 import sura.pruebalegoback.domain.patient.ex.PatientBusinessException;
+import sura.pruebalegoback.domain.patient.ex.PatientVersionConflictException;
 
 import java.time.LocalDateTime;
 import java.util.HashMap;
@@ -28,6 +29,22 @@ public class GlobalExceptionHandler {
     
     private static final Logger log = LoggerFactory.getLogger(GlobalExceptionHandler.class);
 
+    @ExceptionHandler(PatientVersionConflictException.class)
+    public Mono<ResponseEntity<ErrorResponse>> handlePatientVersionConflict(PatientVersionConflictException ex) {
+        log.warn("Conflicto de versión del paciente: {}", ex.getMessage());
+
+        ErrorResponse errorResponse = ErrorResponse.builder()
+                .timestamp(LocalDateTime.now())
+                .status(HttpStatus.PRECONDITION_FAILED.value())
+                .error("Precondition Failed")
+                .message(ex.getMessage())
+                .code(ex.getCode())
+                .type("PATIENT_VERSION_CONFLICT")
+                .build();
+
+        return Mono.just(ResponseEntity.status(HttpStatus.PRECONDITION_FAILED).body(errorResponse));
+    }
+
     @ExceptionHandler(PatientBusinessException.class)
     public Mono<ResponseEntity<ErrorResponse>> handlePatientBusinessException(PatientBusinessException ex) {
         log.error("Error de negocio del paciente: {}", ex.getMessage(), ex);
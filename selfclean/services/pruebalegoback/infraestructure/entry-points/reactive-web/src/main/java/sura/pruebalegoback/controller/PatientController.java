@@ -4,18 +4,42 @@ import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.core.io.buffer.DataBufferFactory;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
 import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
+import org.springframework.util.MimeTypeUtils;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.reactive.HandlerMapping;
+import org.springframework.web.server.ServerWebExchange;
 import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
+import sura.pruebalegoback.domain.patient.Patient;
+import sura.pruebalegoback.domain.patient.PatientField;
+import sura.pruebalegoback.dto.PatientBatchGetRequest;
+import sura.pruebalegoback.dto.PatientBatchGetResponse;
+import sura.pruebalegoback.dto.PatientBulkStatusRequest;
+import sura.pruebalegoback.dto.PatientFieldsResponse;
 import sura.pruebalegoback.dto.PatientRequest;
 import sura.pruebalegoback.dto.PatientResponse;
+import sura.pruebalegoback.dto.PatientSearchRequest;
+import sura.pruebalegoback.dto.PatientStatusChangeResponse;
 import sura.pruebalegoback.dto.PatientUpdateRequest;
 import sura.pruebalegoback.usecase.patient.*;
 
 
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.time.Year;
+import java.util.ArrayList;
 import java.util.List;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Function;
+import java.util.function.Supplier;
 
 @RestController
 @RequestMapping("/patients")
@@ -23,14 +47,21 @@ import java.util.List;
 public class PatientController {
     
     private static final Logger log = LoggerFactory.getLogger(PatientController.class);
+
+    private static final byte[] JSON_ARRAY_START = "[".getBytes(StandardCharsets.UTF_8);
+    private static final byte[] JSON_ARRAY_SEPARATOR = ",".getBytes(StandardCharsets.UTF_8);
+    private static final byte[] JSON_ARRAY_END = "]".getBytes(StandardCharsets.UTF_8);
     
     private final CreatePatientUseCase createPatientUseCase;
     private final GetPatientByIdUseCase getPatientByIdUseCase;
+    private final GetPatientsChangeCounterUseCase getPatientsChangeCounterUseCase;
+    private final BatchGetPatientsUseCase batchGetPatientsUseCase;
     private final QueryPatientsUseCase queryPatientsUseCase;
     private final UpdatePatientUseCase updatePatientUseCase;
     private final DeletePatientUseCase deletePatientUseCase;
     private final GetPatientWeatherUseCase getPatientWeatherUseCase;
     private final ExportPatientsToExcelUseCase exportPatientsToExcelUseCase;
+    private final PatientJsonCache patientJsonCache;
 
     @PostMapping
     public Mono<ResponseEntity<PatientResponse>> createPatient(@Valid @RequestBody PatientRequest request) {
@@ -48,86 +79,203 @@ public class PatientController {
                 request.getCity(),
                 request.getState()
         )
-        .map(PatientResponse::fromDomain)
-        .map(ResponseEntity::ok)
+        .map(patient -> ResponseEntity.ok()
+                .eTag(PatientETags.of(patient))
+                .body(PatientResponse.fromDomain(patient)))
         .doOnSuccess(response -> log.info("Paciente creado exitosamente: {}", response.getBody().getId()))
         .doOnError(error -> log.error("Error al crear paciente: {}", error.getMessage(), error));
     }
 
+    /**
+     * El cuerpo sale del {@link PatientJsonCache}: en un acierto se escriben los bytes ya codificados,
+     * sin construir {@link PatientResponse} ni pasar por Jackson.
+     */
     @GetMapping("/{id}")
-    public Mono<ResponseEntity<PatientResponse>> getPatientById(@PathVariable("id") String id) {
+    public Mono<ResponseEntity<DataBuffer>> getPatientById(@PathVariable("id") String id,
+                                                           ServerWebExchange exchange) {
         log.info("Buscando paciente con ID: {}", id);
         
         return getPatientByIdUseCase.execute(id)
-                .map(PatientResponse::fromDomain)
-                .map(ResponseEntity::ok)
-                .doOnSuccess(response -> log.info("Paciente encontrado: {}", response.getBody().getId()))
+                .map(patient -> {
+                    String eTag = PatientETags.of(patient);
+                    // If-None-Match coincide: 304 sin construir ni serializar la respuesta
+                    if (exchange.checkNotModified(eTag)) {
+                        return ResponseEntity.status(HttpStatus.NOT_MODIFIED).eTag(eTag).<DataBuffer>build();
+                    }
+                    return ResponseEntity.ok()
+                            .eTag(eTag)
+                            .contentType(MediaType.APPLICATION_JSON)
+                            .body(patientJsonCache.render(patient, eTag, exchange.getResponse().bufferFactory()));
+                })
+                .doOnSuccess(response -> log.info("Paciente encontrado: {} ({})", id, response.getStatusCode()))
                 .doOnError(error -> log.error("Error al buscar paciente {}: {}", id, error.getMessage(), error));
     }
 
-    @GetMapping
-    public Flux<PatientResponse> getAllPatients() {
+    @PostMapping("/batch-get")
+    public Mono<PatientBatchGetResponse> batchGetPatients(@Valid @RequestBody PatientBatchGetRequest request) {
+        log.info("Consultando {} pacientes por lote", request.getIds().size());
+
+        return batchGetPatientsUseCase.getPatients(request.getIds())
+                .map(PatientBatchGetResponse::fromResult)
+                .doOnError(error -> log.error("Error al consultar pacientes por lote: {}", error.getMessage(), error));
+    }
+
+    @GetMapping(produces = {MediaType.APPLICATION_JSON_VALUE, MediaType.APPLICATION_NDJSON_VALUE,
+            MediaType.TEXT_EVENT_STREAM_VALUE})
+    public Mono<ResponseEntity<Flux<Object>>> getAllPatients(@RequestParam(value = "fields", required = false) String fields,
+                                                             ServerWebExchange exchange) {
         log.info("Consultando todos los pacientes");
-        
-        return queryPatientsUseCase.getAllPatients()
-                .map(PatientResponse::fromDomain)
-                .doOnNext(patient -> log.debug("Paciente encontrado: {}", patient.getId()))
-                .doOnComplete(() -> log.info("Consulta de pacientes completada"));
+
+        return Mono.defer(() -> {
+            Set<PatientField> requested = PatientFieldsResponse.parseFields(fields);
+            return withCollectionETag(exchange, requested, () -> render(queryPatientsUseCase.getAllPatients(requested)
+                    .doOnNext(patient -> log.debug("Paciente encontrado: {}", patient.getId()))
+                    .doOnComplete(() -> log.info("Consulta de pacientes completada"))
+                    .doOnCancel(() -> log.info("Consulta de pacientes cancelada por el cliente")), requested));
+        });
+    }
+
+    /**
+     * Ruta rápida opcional ({@code ?render=db}): PostgreSQL genera el JSON de cada fila y los bytes
+     * se escriben directamente en la respuesta, sin pasar por Patient, PatientResponse ni Jackson.
+     */
+    @GetMapping(params = "render=db", produces = MediaType.APPLICATION_JSON_VALUE)
+    public Mono<ResponseEntity<Flux<DataBuffer>>> getAllPatientsRenderedByDatabase(ServerWebExchange exchange) {
+        log.info("Consultando todos los pacientes con JSON generado por la base de datos");
+        DataBufferFactory bufferFactory = exchange.getResponse().bufferFactory();
+
+        Flux<DataBuffer> rows = Flux.defer(() -> {
+            AtomicBoolean first = new AtomicBoolean(true);
+            return queryPatientsUseCase.getAllPatientsAsJson()
+                    .map(json -> first.getAndSet(false)
+                            ? bufferFactory.wrap(json)
+                            : bufferFactory.allocateBuffer(json.length + 1).write(JSON_ARRAY_SEPARATOR).write(json));
+        });
+
+        return withCollectionETag(exchange, () -> Flux.concat(
+                Mono.fromSupplier(() -> bufferFactory.wrap(JSON_ARRAY_START)),
+                rows,
+                Mono.fromSupplier(() -> bufferFactory.wrap(JSON_ARRAY_END))));
+    }
+
+    /**
+     * Total para acompañar los listados. {@code mode=approximate} (por defecto) usa estadísticas del
+     * planificador y no recorre la tabla; {@code mode=exact} ejecuta count(*).
+     */
+    @GetMapping("/count")
+    public Mono<QueryPatientsUseCase.PatientCount> countPatients(
+            @RequestParam(value = "city", required = false) String city,
+            @RequestParam(value = "mode", defaultValue = "approximate") String mode) {
+        log.info("Contando pacientes (ciudad: {}, modo: {})", city, mode);
+
+        if (!"exact".equalsIgnoreCase(mode) && !"approximate".equalsIgnoreCase(mode)) {
+            return Mono.error(new IllegalArgumentException("mode debe ser 'exact' o 'approximate'"));
+        }
+        return queryPatientsUseCase.countPatients(city, "exact".equalsIgnoreCase(mode));
     }
 
-    @GetMapping("/active")
-    public Flux<PatientResponse> getActivePatients() {
+    @GetMapping(value = "/active",
+            produces = {MediaType.APPLICATION_JSON_VALUE, MediaType.APPLICATION_NDJSON_VALUE, MediaType.TEXT_EVENT_STREAM_VALUE})
+    public Mono<ResponseEntity<Flux<Object>>> getActivePatients(@RequestParam(value = "fields", required = false) String fields,
+                                                                ServerWebExchange exchange) {
         log.info("Consultando pacientes activos");
-        
-        return queryPatientsUseCase.getActivePatients()
-                .map(PatientResponse::fromDomain)
-                .doOnNext(patient -> log.debug("Paciente activo encontrado: {}", patient.getId()));
+
+        return Mono.defer(() -> {
+            Set<PatientField> requested = PatientFieldsResponse.parseFields(fields);
+            return withListingETag(exchange, requested,
+                    counter -> queryPatientsUseCase.getActivePatients(requested, counter),
+                    patients -> render(patients
+                            .doOnNext(patient -> log.debug("Paciente activo encontrado: {}", patient.getId())), requested));
+        });
     }
 
-    @GetMapping("/city/{city}")
-    public Flux<PatientResponse> getPatientsByCity(@PathVariable("city") String city) {
+    @GetMapping(value = "/city/{city}",
+            produces = {MediaType.APPLICATION_JSON_VALUE, MediaType.APPLICATION_NDJSON_VALUE, MediaType.TEXT_EVENT_STREAM_VALUE})
+    public Mono<ResponseEntity<Flux<Object>>> getPatientsByCity(@PathVariable("city") String city,
+                                                                @RequestParam(value = "fields", required = false) String fields,
+                                                                ServerWebExchange exchange) {
         log.info("Buscando pacientes de ciudad: {}", city);
-        
-        return queryPatientsUseCase.getPatientByCity(city)
-                .map(PatientResponse::fromDomain)
-                .doOnNext(patient -> log.debug("Paciente de ciudad encontrado: {}", patient.getId()));
+
+        return Mono.defer(() -> {
+            Set<PatientField> requested = PatientFieldsResponse.parseFields(fields);
+            return withListingETag(exchange, requested,
+                    counter -> queryPatientsUseCase.getPatientByCity(city, requested, counter),
+                    patients -> render(patients
+                            .doOnNext(patient -> log.debug("Paciente de ciudad encontrado: {}", patient.getId())), requested));
+        });
     }
 
-    @GetMapping("/document/{documentNumber}")
-    public Flux<PatientResponse> getPatientsByDocumentNumber(@PathVariable("documentNumber") String documentNumber) {
+    @GetMapping(value = "/document/{documentNumber}",
+            produces = {MediaType.APPLICATION_JSON_VALUE, MediaType.APPLICATION_NDJSON_VALUE, MediaType.TEXT_EVENT_STREAM_VALUE})
+    public Mono<ResponseEntity<Flux<PatientResponse>>> getPatientsByDocumentNumber(
+            @PathVariable("documentNumber") String documentNumber, ServerWebExchange exchange) {
         log.info("Buscando paciente por documento: {}", documentNumber);
         
-        return queryPatientsUseCase.getPatientsByDocumentNumber(documentNumber)
+        return withCollectionETag(exchange, () -> queryPatientsUseCase.getPatientsByDocumentNumber(documentNumber)
                 .map(PatientResponse::fromDomain)
-                .doOnNext(patient -> log.debug("Paciente con documento encontrado: {}", patient.getId()));
+                .doOnNext(patient -> log.debug("Paciente con documento encontrado: {}", patient.getId())));
     }
 
-    @GetMapping("/age-range")
-    public Flux<QueryPatientsUseCase.PatientSummary> getPatientsByAgeRange(
+    @GetMapping(value = "/age-range",
+            produces = {MediaType.APPLICATION_JSON_VALUE, MediaType.APPLICATION_NDJSON_VALUE, MediaType.TEXT_EVENT_STREAM_VALUE})
+    public Mono<ResponseEntity<Flux<QueryPatientsUseCase.PatientSummary>>> getPatientsByAgeRange(
             @RequestParam Integer minAge, 
-            @RequestParam Integer maxAge) {
+            @RequestParam Integer maxAge,
+            ServerWebExchange exchange) {
         log.info("Consultando pacientes con edad entre {} y {}", minAge, maxAge);
         
-        return queryPatientsUseCase.getPatientsWithAge(minAge, maxAge)
-                .doOnNext(summary -> log.debug("Paciente filtrado por edad: {}", summary));
+        return withCollectionETag(exchange, () -> queryPatientsUseCase.getPatientsWithAge(minAge, maxAge)
+                .doOnNext(summary -> log.debug("Paciente filtrado por edad: {}", summary)));
+    }
+
+    @GetMapping(value = "/admissions",
+            produces = {MediaType.APPLICATION_NDJSON_VALUE, MediaType.APPLICATION_JSON_VALUE, MediaType.TEXT_EVENT_STREAM_VALUE})
+    public Mono<ResponseEntity<Flux<Object>>> getPatientsByAdmissionDate(
+            @RequestParam("from") @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime from,
+            @RequestParam("to") @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime to,
+            @RequestParam(value = "fields", required = false) String fields,
+            ServerWebExchange exchange) {
+        log.info("Consultando pacientes ingresados entre {} y {}", from, to);
+
+        return Mono.defer(() -> {
+            Set<PatientField> requested = PatientFieldsResponse.parseFields(fields);
+            return withCollectionETag(exchange, requested,
+                    () -> render(queryPatientsUseCase.getPatientsAdmittedBetween(from, to, requested), requested));
+        });
+    }
+
+    @PostMapping(value = "/query",
+            produces = {MediaType.APPLICATION_NDJSON_VALUE, MediaType.APPLICATION_JSON_VALUE, MediaType.TEXT_EVENT_STREAM_VALUE})
+    public Flux<Object> searchPatients(@RequestBody PatientSearchRequest request,
+                                       @RequestParam(value = "fields", required = false) String fields) {
+        log.info("Búsqueda combinada de pacientes: {}", request);
+
+        return Flux.defer(() -> {
+            Set<PatientField> requested = PatientFieldsResponse.parseFields(fields);
+            return render(queryPatientsUseCase.searchPatients(request.toCriteria().toBuilder().fields(requested).build()),
+                    requested);
+        });
     }
 
     @GetMapping("/cities")
-    public Mono<List<PatientResponse>> getPatientsByMultipleCities(@RequestParam List<String> cities) {
+    public Mono<ResponseEntity<Mono<List<PatientResponse>>>> getPatientsByMultipleCities(
+            @RequestParam List<String> cities, ServerWebExchange exchange) {
         log.info("Consultando pacientes en múltiples ciudades: {}", cities);
         
-        return queryPatientsUseCase.getPatientsByMultipleCities(cities)
-                .map(patients -> patients.stream()
+        return withListingETag(exchange, null,
+                counter -> queryPatientsUseCase.getPatientsByMultipleCities(cities, counter),
+                patients -> patients
                         .map(PatientResponse::fromDomain)
-                        .toList())
-                .doOnNext(patients -> log.info("Total de pacientes encontrados: {}", patients.size()));
+                        .collectList()
+                        .doOnNext(responses -> log.info("Total de pacientes encontrados: {}", responses.size())));
     }
 
     @PutMapping("/{id}")
     public Mono<ResponseEntity<PatientResponse>> updatePatient(
             @PathVariable("id") String id, 
+            @RequestHeader(value = HttpHeaders.IF_MATCH, required = false) String ifMatch,
             @Valid @RequestBody PatientUpdateRequest request) {
-        log.info("Actualizando paciente con ID: {}", id);
+        log.info("Actualizando paciente con ID: {} (If-Match: {})", id, ifMatch);
         
         UpdatePatientUseCase.PatientUpdateData updateData = new UpdatePatientUseCase.PatientUpdateData(
                 request.getFirstName(),
@@ -139,9 +287,10 @@ public class PatientController {
                 request.getState()
         );
         
-        return updatePatientUseCase.updatePatient(id, updateData)
-                .map(PatientResponse::fromDomain)
-                .map(ResponseEntity::ok)
+        return updatePatientUseCase.updatePatient(id, updateData, PatientETags.expectedVersion(ifMatch))
+                .map(patient -> ResponseEntity.ok()
+                        .eTag(PatientETags.of(patient))
+                        .body(PatientResponse.fromDomain(patient)))
                 .doOnSuccess(response -> log.info("Paciente actualizado exitosamente: {}", response.getBody().getId()))
                 .doOnError(error -> log.error("Error al actualizar paciente {}: {}", id, error.getMessage(), error));
     }
@@ -151,6 +300,7 @@ public class PatientController {
         log.info("Eliminando paciente con ID: {}", id);
         
         return deletePatientUseCase.deletePatient(id)
+                .then(Mono.fromRunnable(() -> patientJsonCache.invalidate(id)))
                 .then(Mono.<ResponseEntity<Void>>just(ResponseEntity.noContent().build()))
                 .doOnSuccess(response -> log.info("Paciente eliminado exitosamente: {}", id))
                 .doOnError(error -> log.error("Error al eliminar paciente {}: {}", id, error.getMessage(), error));
@@ -161,8 +311,9 @@ public class PatientController {
         log.info("Desactivando paciente con ID: {}", id);
         
         return deletePatientUseCase.deactivatePatient(id)
-                .map(PatientResponse::fromDomain)
-                .map(ResponseEntity::ok)
+                .map(patient -> ResponseEntity.ok()
+                        .eTag(PatientETags.of(patient))
+                        .body(PatientResponse.fromDomain(patient)))
                 .doOnSuccess(response -> log.info("Paciente desactivado exitosamente: {}", response.getBody().getId()))
                 .doOnError(error -> log.error("Error al desactivar paciente {}: {}", id, error.getMessage(), error));
     }
@@ -172,12 +323,39 @@ public class PatientController {
         log.info("Reactivando paciente con ID: {}", id);
         
         return deletePatientUseCase.reactivatePatient(id)
-                .map(PatientResponse::fromDomain)
-                .map(ResponseEntity::ok)
+                .map(patient -> ResponseEntity.ok()
+                        .eTag(PatientETags.of(patient))
+                        .body(PatientResponse.fromDomain(patient)))
                 .doOnSuccess(response -> log.info("Paciente reactivado exitosamente: {}", response.getBody().getId()))
                 .doOnError(error -> log.error("Error al reactivar paciente {}: {}", id, error.getMessage(), error));
     }
 
+    /**
+     * Desactiva en una sola sentencia los pacientes indicados por {@code ids} o {@code city} y
+     * devuelve en streaming los ids que cambiaron de estado.
+     */
+    @PostMapping(value = "/deactivate",
+            produces = {MediaType.APPLICATION_NDJSON_VALUE, MediaType.APPLICATION_JSON_VALUE})
+    public Flux<PatientStatusChangeResponse> deactivatePatients(@RequestBody PatientBulkStatusRequest request) {
+        log.info("Desactivación masiva de pacientes: {}", request);
+
+        return Flux.defer(() -> request.byCity()
+                        ? deletePatientUseCase.deactivatePatientsByCity(request.getCity())
+                        : deletePatientUseCase.deactivatePatients(request.getIds()))
+                .map(id -> new PatientStatusChangeResponse(id, false));
+    }
+
+    @PostMapping(value = "/reactivate",
+            produces = {MediaType.APPLICATION_NDJSON_VALUE, MediaType.APPLICATION_JSON_VALUE})
+    public Flux<PatientStatusChangeResponse> reactivatePatients(@RequestBody PatientBulkStatusRequest request) {
+        log.info("Reactivación masiva de pacientes: {}", request);
+
+        return Flux.defer(() -> request.byCity()
+                        ? deletePatientUseCase.reactivatePatientsByCity(request.getCity())
+                        : deletePatientUseCase.reactivatePatients(request.getIds()))
+                .map(id -> new PatientStatusChangeResponse(id, true));
+    }
+
     @GetMapping("/{id}/weather")
     public Mono<ResponseEntity<GetPatientWeatherUseCase.PatientWithWeather>> getPatientWeather(@PathVariable("id") String id) {
         log.info("Obteniendo datos de clima para paciente con ID: {}", id);
@@ -211,4 +389,96 @@ public class PatientController {
                 .doOnSuccess(response -> log.info("Exportación de pacientes activos a Excel completada"))
                 .doOnError(error -> log.error("Error al exportar pacientes activos a Excel: {}", error.getMessage(), error));
     }
+
+    /*
+     * ETag de los listados a partir del contador de cambios de la tabla, leído antes que los datos para que
+     * la etiqueta nunca sea más nueva que el contenido. Si If-None-Match coincide se responde 304 sin
+     * ejecutar la consulta; si el contador no está disponible se responde sin ETag.
+     * JSON y NDJSON son representaciones distintas (ETag propio y Vary: Accept); un text/event-stream
+     * no se revalida y se responde siempre completo.
+     */
+    private <T> Mono<ResponseEntity<T>> withCollectionETag(ServerWebExchange exchange, Supplier<T> body) {
+        return withCollectionETag(exchange, null, body);
+    }
+
+    // Con ?fields= cada combinación de propiedades es otra representación y lleva su propio ETag
+    private <T> Mono<ResponseEntity<T>> withCollectionETag(ServerWebExchange exchange, Set<PatientField> fields,
+                                                           Supplier<T> body) {
+        return withVersionedETag(exchange, fields, counter -> new Versioned<>(counter, body));
+    }
+
+    // Listados que pueden salir de PatientQueryCache: en un acierto la etiqueta es el contador leído antes de
+    // cargar la entrada, no el actual, que puede ir por delante de una invalidación todavía en camino
+    private <T> Mono<ResponseEntity<T>> withListingETag(ServerWebExchange exchange, Set<PatientField> fields,
+                                                        Function<Long, PatientQueryCache.Listing> listing,
+                                                        Function<Flux<Patient>, T> body) {
+        return withVersionedETag(exchange, fields, counter -> {
+            PatientQueryCache.Listing resolved = listing.apply(counter);
+            return new Versioned<>(resolved.changeCounter(), () -> body.apply(resolved.patients()));
+        });
+    }
+
+    private <T> Mono<ResponseEntity<T>> withVersionedETag(ServerWebExchange exchange, Set<PatientField> fields,
+                                                          Function<Long, Versioned<T>> resolve) {
+        MediaType representation = requestedRepresentation(exchange);
+        if (MediaType.TEXT_EVENT_STREAM.equalsTypeAndSubtype(representation)) {
+            return Mono.fromSupplier(() -> ResponseEntity.ok().body(resolve.apply(null).body().get()));
+        }
+        return getPatientsChangeCounterUseCase.execute()
+                .map(resolve)
+                .map(versioned -> {
+                    Supplier<T> body = versioned.body();
+                    if (versioned.changeCounter() == null) {
+                        return ResponseEntity.ok().body(body.get());
+                    }
+                    String eTag = PatientETags.ofCollection(versioned.changeCounter(), Year.now().getValue(),
+                            MediaType.APPLICATION_NDJSON.equalsTypeAndSubtype(representation), fields);
+                    if (exchange.checkNotModified(eTag)) {
+                        log.debug("Listado sin cambios ({}), respondiendo 304", eTag);
+                        return ResponseEntity.status(HttpStatus.NOT_MODIFIED).eTag(eTag)
+                                .varyBy(HttpHeaders.ACCEPT).<T>build();
+                    }
+                    return ResponseEntity.ok().eTag(eTag).varyBy(HttpHeaders.ACCEPT).body(body.get());
+                })
+                .switchIfEmpty(Mono.fromSupplier(() -> ResponseEntity.ok().body(resolve.apply(null).body().get())));
+    }
+
+    // Cuerpo de un listado y el valor del contador de cambios del que parte su contenido
+    private record Versioned<T>(Long changeCounter, Supplier<T> body) {
+    }
+
+    // Sin fields se responde PatientResponse completo; con fields, solo las propiedades pedidas
+    private static Flux<Object> render(Flux<Patient> patients, Set<PatientField> fields) {
+        return fields == null
+                ? patients.<Object>map(PatientResponse::fromDomain)
+                : patients.<Object>map(patient -> new PatientFieldsResponse(patient, fields));
+    }
+
+    // El tipo con el que WebFlux va a escribir la respuesta, elegido con el mismo criterio que su negociación:
+    // Accept ordenado por calidad y especificidad, cada tipo aceptado cruzado con los que produce el endpoint
+    // (quedándose con el más específico) y el primero concreto. Sin Accept o con */* gana el primero declarado.
+    static MediaType requestedRepresentation(ServerWebExchange exchange) {
+        Set<MediaType> producible = exchange.getAttributeOrDefault(
+                HandlerMapping.PRODUCIBLE_MEDIA_TYPES_ATTRIBUTE, Set.of(MediaType.APPLICATION_JSON));
+        List<MediaType> accepted = new ArrayList<>(exchange.getRequest().getHeaders().getAccept());
+        if (accepted.isEmpty()) {
+            accepted.add(MediaType.ALL);
+        }
+        MimeTypeUtils.sortBySpecificity(accepted);
+
+        List<MediaType> compatible = new ArrayList<>();
+        for (MediaType acceptable : accepted) {
+            for (MediaType candidate : producible) {
+                if (acceptable.isCompatibleWith(candidate)) {
+                    MediaType withQuality = candidate.copyQualityValue(acceptable);
+                    compatible.add(acceptable.isLessSpecific(withQuality) ? withQuality : acceptable);
+                }
+            }
+        }
+        MimeTypeUtils.sortBySpecificity(compatible);
+        return compatible.stream()
+                .filter(MediaType::isConcrete)
+                .findFirst()
+                .orElse(producible.isEmpty() ? MediaType.APPLICATION_JSON : producible.iterator().next());
+    }
 }
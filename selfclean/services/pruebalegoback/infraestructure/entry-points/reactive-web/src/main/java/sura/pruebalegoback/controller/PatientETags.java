@@ -0,0 +1,62 @@
+package sura.pruebalegoback.controller;
+
+import lombok.AccessLevel;
+import lombok.NoArgsConstructor;
+import sura.pruebalegoback.domain.patient.Patient;
+import sura.pruebalegoback.domain.patient.PatientField;
+
+import java.util.Set;
+
+/*
+ * ETags fuertes de un paciente derivados de su columna version más la edad, que se calcula al
+ * responder y cambia sin que cambie la fila: "<version>-<edad>".
+ * If-Match solo compara la versión; "*" o ausente => sin precondición; una etiqueta débil o mal formada nunca coincide.
+ * Los listados usan el contador de cambios de la tabla y el año en curso (la edad depende solo del año):
+ * "c<contador>-<año>", con sufijos por representación: "-nd" para NDJSON y "-f<máscara>" con ?fields=
+ * (un bit por PatientField, en hexadecimal), p. ej. "c42-2026-nd-f201".
+ */
+@NoArgsConstructor(access = AccessLevel.PRIVATE)
+final class PatientETags {
+
+    static final long NO_MATCH = -1L;
+
+    static String of(Patient patient) {
+        return "\"" + patient.getVersion() + "-" + patient.getAge() + "\"";
+    }
+
+    static String ofCollection(long changeCounter, int year) {
+        return ofCollection(changeCounter, year, false, null);
+    }
+
+    static String ofCollection(long changeCounter, int year, boolean ndjson, Set<PatientField> fields) {
+        StringBuilder tag = new StringBuilder("\"c").append(changeCounter).append('-').append(year);
+        if (ndjson) {
+            tag.append("-nd");
+        }
+        if (fields != null) {
+            int mask = 0;
+            for (PatientField field : fields) {
+                mask |= 1 << field.ordinal();
+            }
+            tag.append("-f").append(Integer.toHexString(mask));
+        }
+        return tag.append('"').toString();
+    }
+
+    static Long expectedVersion(String ifMatch) {
+        if (ifMatch == null || ifMatch.isBlank() || "*".equals(ifMatch.trim())) {
+            return null;
+        }
+        String tag = ifMatch.trim();
+        if (tag.length() < 3 || !tag.startsWith("\"") || !tag.endsWith("\"")) {
+            return NO_MATCH;
+        }
+        String value = tag.substring(1, tag.length() - 1);
+        int separator = value.indexOf('-');
+        try {
+            return Long.parseLong(separator < 0 ? value : value.substring(0, separator));
+        } catch (NumberFormatException e) {
+            return NO_MATCH;
+        }
+    }
+}
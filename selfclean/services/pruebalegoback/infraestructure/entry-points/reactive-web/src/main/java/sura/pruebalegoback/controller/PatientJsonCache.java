@@ -0,0 +1,98 @@
+package sura.pruebalegoback.controller;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.core.io.buffer.DataBufferFactory;
+import org.springframework.stereotype.Component;
+import org.springframework.util.unit.DataSize;
+import sura.pruebalegoback.domain.patient.Patient;
+import sura.pruebalegoback.dto.PatientResponse;
+
+import java.nio.ByteBuffer;
+
+/*
+ * JSON ya codificado de PatientResponse para GET /patients/{id}, por id y ETag (versión + edad).
+ * Los bytes son un byte[] en el heap; cada respuesta lo envuelve como buffer de solo lectura sin copiarlo.
+ * Un buffer directo por entrada no se libera hasta que el GC recoge su dueño y además cuenta contra
+ * MaxDirectMemorySize, que comparte con Netty.
+ * El tamaño se limita por bytes (app.cache.patient-json.max-bytes) y se publica en cache.* con cache=patient-json.
+ */
+@Component
+class PatientJsonCache {
+
+    private static final Logger log = LoggerFactory.getLogger(PatientJsonCache.class);
+
+    // Huella estimada en una JVM de 64 bits con compressed oops, cada objeto alineado a 8 bytes: nodos de Caffeine
+    // y de su ConcurrentHashMap, el record Entry, los String (id y ETag son ASCII: un byte por carácter) y arreglos
+    private static final int NODE_BYTES = 80;
+    private static final int ENTRY_BYTES = 24;
+    private static final int STRING_BYTES = 24;
+    private static final int ARRAY_HEADER_BYTES = 16;
+
+    private final ObjectWriter writer;
+    private final Cache<String, Entry> cache;
+
+    // El mismo ObjectMapper que los codecs HTTP: el JSON guardado es idéntico al que escribiría WebFlux
+    PatientJsonCache(ObjectMapper objectMapper, MeterRegistry meterRegistry,
+                     @Value("${app.cache.patient-json.max-bytes:32MB}") DataSize maxBytes) {
+        this.writer = objectMapper.writerFor(PatientResponse.class);
+        this.cache = Caffeine.newBuilder()
+                .maximumWeight(maxBytes.toBytes())
+                .weigher(PatientJsonCache::weigh)
+                .recordStats()
+                .build();
+        CaffeineCacheMetrics.monitor(meterRegistry, cache, "patient-json");
+        Gauge.builder("cache.weighted.size", cache,
+                        c -> c.policy().eviction().map(eviction -> eviction.weightedSize().orElse(0L)).orElse(0L))
+                .tag("cache", "patient-json")
+                .baseUnit("bytes")
+                .register(meterRegistry);
+        log.info("Caché de JSON de pacientes habilitada: máximo {}", maxBytes);
+    }
+
+    DataBuffer render(Patient patient, String eTag, DataBufferFactory bufferFactory) {
+        Entry cached = cache.getIfPresent(patient.getId());
+        if (cached == null || !cached.eTag.equals(eTag)) {
+            cached = new Entry(eTag, encode(patient));
+            cache.put(patient.getId(), cached);
+        }
+        return bufferFactory.wrap(ByteBuffer.wrap(cached.json).asReadOnlyBuffer());
+    }
+
+    void invalidate(String id) {
+        cache.invalidate(id);
+    }
+
+    private byte[] encode(Patient patient) {
+        try {
+            return writer.writeValueAsBytes(PatientResponse.fromDomain(patient));
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("No se pudo serializar el paciente " + patient.getId(), e);
+        }
+    }
+
+    static int weigh(String id, Entry entry) {
+        return NODE_BYTES + ENTRY_BYTES + stringBytes(id) + stringBytes(entry.eTag) + arrayBytes(entry.json.length);
+    }
+
+    private static int stringBytes(String value) {
+        return STRING_BYTES + arrayBytes(value.length());
+    }
+
+    private static int arrayBytes(int length) {
+        return (ARRAY_HEADER_BYTES + length + 7) & ~7;
+    }
+
+    record Entry(String eTag, byte[] json) {
+    }
+}
@@ -0,0 +1,41 @@
+package sura.pruebalegoback.controller;
+
+import lombok.RequiredArgsConstructor;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.http.MediaType;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+import reactor.core.publisher.Mono;
+import sura.pruebalegoback.usecase.patient.ExplainPatientQueryUseCase;
+
+import java.util.List;
+
+/**
+ * Planes de ejecución en vivo de las consultas de pacientes. EXPLAIN ANALYZE ejecuta realmente la
+ * consulta, por eso el endpoint solo se registra con {@code app.admin.query-plans.enabled=true}.
+ */
+@RestController
+@RequestMapping("/admin/query-plans")
+@RequiredArgsConstructor
+@ConditionalOnProperty(name = "app.admin.query-plans.enabled", havingValue = "true")
+public class QueryPlanAdminController {
+
+    private static final Logger log = LoggerFactory.getLogger(QueryPlanAdminController.class);
+
+    private final ExplainPatientQueryUseCase explainPatientQueryUseCase;
+
+    @GetMapping
+    public Mono<List<String>> getExplainableQueries() {
+        return explainPatientQueryUseCase.getExplainableQueries().collectList();
+    }
+
+    @GetMapping(value = "/{queryName}", produces = MediaType.APPLICATION_JSON_VALUE)
+    public Mono<String> explain(@PathVariable("queryName") String queryName) {
+        log.info("Solicitando EXPLAIN ANALYZE de la consulta: {}", queryName);
+        return explainPatientQueryUseCase.explain(queryName);
+    }
+}
@@ -0,0 +1,19 @@
+package sura.pruebalegoback.dto;
+
+import jakarta.validation.constraints.NotEmpty;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class PatientBatchGetRequest {
+
+    @NotEmpty(message = "Debe indicar al menos un id")
+    private List<String> ids;
+}
@@ -0,0 +1,26 @@
+package sura.pruebalegoback.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import sura.pruebalegoback.usecase.patient.BatchGetPatientsUseCase;
+
+import java.util.List;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class PatientBatchGetResponse {
+
+    private List<PatientResponse> found;
+    private List<String> missing;
+
+    public static PatientBatchGetResponse fromResult(BatchGetPatientsUseCase.BatchResult result) {
+        return PatientBatchGetResponse.builder()
+                .found(result.found().stream().map(PatientResponse::fromDomain).toList())
+                .missing(result.missing())
+                .build();
+    }
+}
@@ -0,0 +1,30 @@
+package sura.pruebalegoback.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+/**
+ * Selección de pacientes para un cambio de estado masivo: una lista de ids o una ciudad, no ambas.
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class PatientBulkStatusRequest {
+
+    private List<String> ids;
+    private String city;
+
+    public boolean byCity() {
+        boolean hasIds = ids != null && !ids.isEmpty();
+        boolean hasCity = city != null && !city.isBlank();
+        if (hasIds == hasCity) {
+            throw new IllegalArgumentException("Debe indicar 'ids' o 'city', pero no ambos");
+        }
+        return hasCity;
+    }
+}
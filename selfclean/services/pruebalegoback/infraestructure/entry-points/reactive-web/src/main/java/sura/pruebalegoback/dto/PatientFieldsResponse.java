@@ -0,0 +1,78 @@
+package sura.pruebalegoback.dto;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.SerializerProvider;
+import com.fasterxml.jackson.databind.annotation.JsonSerialize;
+import com.fasterxml.jackson.databind.ser.std.StdSerializer;
+import sura.pruebalegoback.domain.patient.Patient;
+import sura.pruebalegoback.domain.patient.PatientField;
+
+import java.io.IOException;
+import java.util.EnumSet;
+import java.util.Set;
+
+/**
+ * Paciente con solo las propiedades pedidas en {@code ?fields=}, con los mismos nombres y formatos que
+ * {@link PatientResponse}. Se serializa directo desde {@link Patient}: las propiedades no pedidas no se
+ * escriben ni se calculan (fullName y age incluidas).
+ */
+@JsonSerialize(using = PatientFieldsResponse.Serializer.class)
+public record PatientFieldsResponse(Patient patient, Set<PatientField> fields) {
+
+    /**
+     * Lista separada por comas de propiedades de {@link PatientResponse}; null o vacía significa todas.
+     */
+    public static Set<PatientField> parseFields(String fields) {
+        if (fields == null || fields.isBlank()) {
+            return null;
+        }
+        EnumSet<PatientField> parsed = EnumSet.noneOf(PatientField.class);
+        for (String property : fields.split(",")) {
+            if (property.isBlank()) {
+                continue;
+            }
+            parsed.add(PatientField.fromProperty(property.trim())
+                    .orElseThrow(() -> new IllegalArgumentException("Propiedad no permitida en fields: " + property.trim())));
+        }
+        if (parsed.isEmpty()) {
+            throw new IllegalArgumentException("fields debe indicar al menos una propiedad");
+        }
+        return parsed;
+    }
+
+    static class Serializer extends StdSerializer<PatientFieldsResponse> {
+
+        Serializer() {
+            super(PatientFieldsResponse.class);
+        }
+
+        @Override
+        public void serialize(PatientFieldsResponse value, JsonGenerator gen, SerializerProvider provider)
+                throws IOException {
+            Patient patient = value.patient();
+            gen.writeStartObject();
+            // Orden de PatientField = orden de PatientResponse
+            for (PatientField field : value.fields()) {
+                switch (field) {
+                    case ID -> gen.writeStringField(field.getProperty(), patient.getId());
+                    case FIRST_NAME -> gen.writeStringField(field.getProperty(), patient.getFirstName());
+                    case LAST_NAME -> gen.writeStringField(field.getProperty(), patient.getLastName());
+                    case DOCUMENT_NUMBER -> gen.writeStringField(field.getProperty(), patient.getDocumentNumber());
+                    case DOCUMENT_TYPE -> gen.writeStringField(field.getProperty(), patient.getDocumentType());
+                    case BIRTH_DATE -> provider.defaultSerializeField(field.getProperty(), patient.getBirthDate(), gen);
+                    case ADDRESS -> gen.writeStringField(field.getProperty(), patient.getAddress());
+                    case PHONE -> gen.writeStringField(field.getProperty(), patient.getPhone());
+                    case EMAIL -> gen.writeStringField(field.getProperty(), patient.getEmail());
+                    case CITY -> gen.writeStringField(field.getProperty(), patient.getCity());
+                    case STATE -> gen.writeStringField(field.getProperty(), patient.getState());
+                    case ADMISSION_DATE ->
+                            provider.defaultSerializeField(field.getProperty(), patient.getAdmissionDate(), gen);
+                    case ACTIVE -> gen.writeBooleanField(field.getProperty(), patient.isActive());
+                    case FULL_NAME -> gen.writeStringField(field.getProperty(), patient.getFullName());
+                    case AGE -> gen.writeNumberField(field.getProperty(), patient.getAge());
+                }
+            }
+            gen.writeEndObject();
+        }
+    }
+}
@@ -0,0 +1,58 @@
+package sura.pruebalegoback.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import sura.pruebalegoback.domain.patient.PatientSearchCriteria;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class PatientSearchRequest {
+
+    private List<String> cities;
+    private Boolean active;
+    private Integer minAge;
+    private Integer maxAge;
+    private String documentType;
+
+    private LocalDateTime admittedFrom;
+    private LocalDateTime admittedTo;
+
+    // admissionDate (por defecto), lastName, birthDate o city
+    private String sortBy;
+
+    // asc (por defecto) o desc
+    private String sortDirection;
+
+    private Integer limit;
+
+    public PatientSearchCriteria toCriteria() {
+        PatientSearchCriteria.SortField sortField = null;
+        if (sortBy != null && !sortBy.isBlank()) {
+            sortField = PatientSearchCriteria.SortField.fromProperty(sortBy)
+                    .orElseThrow(() -> new IllegalArgumentException("Orden no permitido: " + sortBy));
+        }
+        if (sortDirection != null && !"asc".equalsIgnoreCase(sortDirection) && !"desc".equalsIgnoreCase(sortDirection)) {
+            throw new IllegalArgumentException("sortDirection debe ser 'asc' o 'desc'");
+        }
+
+        return PatientSearchCriteria.builder()
+                .cities(cities)
+                .active(active)
+                .minAge(minAge)
+                .maxAge(maxAge)
+                .documentType(documentType)
+                .admittedFrom(admittedFrom)
+                .admittedTo(admittedTo)
+                .sortBy(sortField)
+                .descending("desc".equalsIgnoreCase(sortDirection))
+                .limit(limit)
+                .build();
+    }
+}
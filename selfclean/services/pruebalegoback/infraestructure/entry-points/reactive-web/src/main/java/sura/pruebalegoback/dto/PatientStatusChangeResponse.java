@@ -0,0 +1,16 @@
+package sura.pruebalegoback.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class PatientStatusChangeResponse {
+
+    private String id;
+    private boolean active;
+}
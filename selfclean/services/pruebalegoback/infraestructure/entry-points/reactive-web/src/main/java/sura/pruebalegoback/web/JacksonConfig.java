@@ -1,25 +1,23 @@
 package sura.pruebalegoback.web;
 
+import com.fasterxml.jackson.databind.Module;
 import com.fasterxml.jackson.databind.ObjectMapper;
-import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
-import org.springframework.http.codec.ServerCodecConfigurer;
-import org.springframework.http.codec.json.Jackson2JsonDecoder;
-import org.springframework.http.codec.json.Jackson2JsonEncoder;
-import org.springframework.web.reactive.config.WebFluxConfigurer;
+import sura.pruebalegoback.infraestructure.helpers.json.codec.JsonMappers;
 
 @Configuration
-public class JacksonConfig implements WebFluxConfigurer {
+public class JacksonConfig {
 
-    @Override
-    public void configureHttpMessageCodecs(ServerCodecConfigurer configurer) {
-        ObjectMapper objectMapper = new ObjectMapper();
-        objectMapper.registerModule(new JavaTimeModule());
-        objectMapper.disable(com.fasterxml.jackson.databind.SerializationFeature.WRITE_DATES_AS_TIMESTAMPS);
-        
-        configurer.defaultCodecs().jackson2JsonEncoder(new Jackson2JsonEncoder(objectMapper));
-        configurer.defaultCodecs().jackson2JsonDecoder(new Jackson2JsonDecoder(objectMapper));
+    // Spring Boot agrega todo bean Module al ObjectMapper que arma (spring.jackson.*, sus módulos y valores por
+    // defecto), que es el que usan los codecs HTTP y quien inyecte un ObjectMapper
+    @Bean
+    public Module patientJsonModule() {
+        return new PatientJsonModule();
     }
-}
 
+    // Los mismos serializadores fuera del contexto de Spring (pruebas y benchmarks)
+    public static ObjectMapper webObjectMapper() {
+        return JsonMappers.web(new PatientJsonModule());
+    }
+}
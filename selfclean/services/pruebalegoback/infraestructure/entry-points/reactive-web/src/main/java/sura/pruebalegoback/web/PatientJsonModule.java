@@ -0,0 +1,157 @@
+package sura.pruebalegoback.web;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.SerializableString;
+import com.fasterxml.jackson.core.io.SerializedString;
+import com.fasterxml.jackson.databind.SerializerProvider;
+import com.fasterxml.jackson.databind.module.SimpleModule;
+import com.fasterxml.jackson.databind.ser.std.StdSerializer;
+import sura.pruebalegoback.GlobalExceptionHandler.ErrorResponse;
+import sura.pruebalegoback.dto.PatientResponse;
+import sura.pruebalegoback.infraestructure.helpers.json.codec.IsoDates;
+import sura.pruebalegoback.usecase.patient.QueryPatientsUseCase.PatientSummary;
+
+import java.io.IOException;
+import java.time.temporal.ChronoUnit;
+import java.util.Map;
+
+/**
+ * Serializadores escritos a mano para los DTO más frecuentes de la API. Producen el mismo JSON que la
+ * introspección de Jackson (mismas propiedades, orden y formatos) pero sin reflexión por objeto: cada nombre
+ * de propiedad va precodificado en UTF-8 y las fechas se formatean con {@link IsoDates}.
+ * Si se agrega un campo a uno de estos DTO hay que agregarlo también aquí.
+ */
+public class PatientJsonModule extends SimpleModule {
+
+    public PatientJsonModule() {
+        super("patient-json");
+        addSerializer(PatientResponse.class, new PatientResponseSerializer());
+        addSerializer(PatientSummary.class, new PatientSummarySerializer());
+        addSerializer(ErrorResponse.class, new ErrorResponseSerializer());
+    }
+
+    private static SerializableString name(String property) {
+        return new SerializedString(property);
+    }
+
+    static class PatientResponseSerializer extends StdSerializer<PatientResponse> {
+
+        private static final SerializableString ID = name("id");
+        private static final SerializableString FIRST_NAME = name("firstName");
+        private static final SerializableString LAST_NAME = name("lastName");
+        private static final SerializableString DOCUMENT_NUMBER = name("documentNumber");
+        private static final SerializableString DOCUMENT_TYPE = name("documentType");
+        private static final SerializableString BIRTH_DATE = name("birthDate");
+        private static final SerializableString ADDRESS = name("address");
+        private static final SerializableString PHONE = name("phone");
+        private static final SerializableString EMAIL = name("email");
+        private static final SerializableString CITY = name("city");
+        private static final SerializableString STATE = name("state");
+        private static final SerializableString ADMISSION_DATE = name("admissionDate");
+        private static final SerializableString ACTIVE = name("active");
+        private static final SerializableString FULL_NAME = name("fullName");
+        private static final SerializableString AGE = name("age");
+
+        PatientResponseSerializer() {
+            super(PatientResponse.class);
+        }
+
+        @Override
+        public void serialize(PatientResponse value, JsonGenerator gen, SerializerProvider provider)
+                throws IOException {
+            gen.writeStartObject(value);
+            writeString(gen, ID, value.getId());
+            writeString(gen, FIRST_NAME, value.getFirstName());
+            writeString(gen, LAST_NAME, value.getLastName());
+            writeString(gen, DOCUMENT_NUMBER, value.getDocumentNumber());
+            writeString(gen, DOCUMENT_TYPE, value.getDocumentType());
+            IsoDates.writeField(gen, BIRTH_DATE, value.getBirthDate());
+            writeString(gen, ADDRESS, value.getAddress());
+            writeString(gen, PHONE, value.getPhone());
+            writeString(gen, EMAIL, value.getEmail());
+            writeString(gen, CITY, value.getCity());
+            writeString(gen, STATE, value.getState());
+            IsoDates.writeField(gen, ADMISSION_DATE, value.getAdmissionDate());
+            gen.writeFieldName(ACTIVE);
+            gen.writeBoolean(value.isActive());
+            writeString(gen, FULL_NAME, value.getFullName());
+            gen.writeFieldName(AGE);
+            gen.writeNumber(value.getAge());
+            gen.writeEndObject();
+        }
+    }
+
+    static class PatientSummarySerializer extends StdSerializer<PatientSummary> {
+
+        private static final SerializableString ID = name("id");
+        private static final SerializableString FULL_NAME = name("fullName");
+        private static final SerializableString AGE = name("age");
+        private static final SerializableString CITY = name("city");
+        private static final SerializableString ACTIVE = name("active");
+
+        PatientSummarySerializer() {
+            super(PatientSummary.class);
+        }
+
+        @Override
+        public void serialize(PatientSummary value, JsonGenerator gen, SerializerProvider provider)
+                throws IOException {
+            gen.writeStartObject(value);
+            writeString(gen, ID, value.id());
+            writeString(gen, FULL_NAME, value.fullName());
+            gen.writeFieldName(AGE);
+            gen.writeNumber(value.age());
+            writeString(gen, CITY, value.city());
+            gen.writeFieldName(ACTIVE);
+            gen.writeBoolean(value.active());
+            gen.writeEndObject();
+        }
+    }
+
+    static class ErrorResponseSerializer extends StdSerializer<ErrorResponse> {
+
+        private static final SerializableString TIMESTAMP = name("timestamp");
+        private static final SerializableString STATUS = name("status");
+        private static final SerializableString ERROR = name("error");
+        private static final SerializableString MESSAGE = name("message");
+        private static final SerializableString CODE = name("code");
+        private static final SerializableString TYPE = name("type");
+        private static final SerializableString DETAILS = name("details");
+
+        ErrorResponseSerializer() {
+            super(ErrorResponse.class);
+        }
+
+        @Override
+        public void serialize(ErrorResponse value, JsonGenerator gen, SerializerProvider provider)
+                throws IOException {
+            gen.writeStartObject(value);
+            // Mismo formato que el @JsonFormat del campo: hasta segundos, sin fracción
+            IsoDates.writeField(gen, TIMESTAMP,
+                    value.getTimestamp() == null ? null : value.getTimestamp().truncatedTo(ChronoUnit.SECONDS));
+            gen.writeFieldName(STATUS);
+            gen.writeNumber(value.getStatus());
+            writeString(gen, ERROR, value.getError());
+            writeString(gen, MESSAGE, value.getMessage());
+            writeString(gen, CODE, value.getCode());
+            writeString(gen, TYPE, value.getType());
+            gen.writeFieldName(DETAILS);
+            if (value.getDetails() == null) {
+                gen.writeNull();
+            } else {
+                gen.writeStartObject();
+                for (Map.Entry<String, String> detail : value.getDetails().entrySet()) {
+                    gen.writeStringField(detail.getKey(), detail.getValue());
+                }
+                gen.writeEndObject();
+            }
+            gen.writeEndObject();
+        }
+    }
+
+    // writeString(null) escribe null, igual que la serialización por defecto de un String nulo
+    private static void writeString(JsonGenerator gen, SerializableString name, String value) throws IOException {
+        gen.writeFieldName(name);
+        gen.writeString(value);
+    }
+}
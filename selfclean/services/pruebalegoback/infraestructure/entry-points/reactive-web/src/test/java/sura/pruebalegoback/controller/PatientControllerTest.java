@@ -0,0 +1,331 @@
+package sura.pruebalegoback.controller;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.test.web.reactive.server.WebTestClient;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import sura.pruebalegoback.domain.patient.Patient;
+import sura.pruebalegoback.dto.PatientResponse;
+import sura.pruebalegoback.usecase.patient.BatchGetPatientsUseCase;
+import sura.pruebalegoback.usecase.patient.CreatePatientUseCase;
+import sura.pruebalegoback.usecase.patient.DeletePatientUseCase;
+import sura.pruebalegoback.usecase.patient.ExportPatientsToExcelUseCase;
+import sura.pruebalegoback.usecase.patient.GetPatientByIdUseCase;
+import sura.pruebalegoback.usecase.patient.GetPatientWeatherUseCase;
+import sura.pruebalegoback.usecase.patient.GetPatientsChangeCounterUseCase;
+import sura.pruebalegoback.usecase.patient.PatientQueryCache;
+import sura.pruebalegoback.usecase.patient.QueryPatientsUseCase;
+import sura.pruebalegoback.usecase.patient.UpdatePatientUseCase;
+import sura.pruebalegoback.web.JacksonConfig;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.time.Year;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.isNull;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+public class PatientControllerTest {
+
+    private static final long CHANGE_COUNTER = 7L;
+
+    @Mock
+    private CreatePatientUseCase createPatientUseCase;
+    @Mock
+    private GetPatientByIdUseCase getPatientByIdUseCase;
+    @Mock
+    private GetPatientsChangeCounterUseCase getPatientsChangeCounterUseCase;
+    @Mock
+    private BatchGetPatientsUseCase batchGetPatientsUseCase;
+    @Mock
+    private QueryPatientsUseCase queryPatientsUseCase;
+    @Mock
+    private UpdatePatientUseCase updatePatientUseCase;
+    @Mock
+    private DeletePatientUseCase deletePatientUseCase;
+    @Mock
+    private GetPatientWeatherUseCase getPatientWeatherUseCase;
+    @Mock
+    private ExportPatientsToExcelUseCase exportPatientsToExcelUseCase;
+    @Mock
+    private PatientJsonCache patientJsonCache;
+
+    private WebTestClient client;
+
+    @BeforeEach
+    public void setUp() {
+        PatientController controller = new PatientController(createPatientUseCase, getPatientByIdUseCase,
+                getPatientsChangeCounterUseCase, batchGetPatientsUseCase, queryPatientsUseCase, updatePatientUseCase,
+                deletePatientUseCase, getPatientWeatherUseCase, exportPatientsToExcelUseCase, patientJsonCache);
+        client = WebTestClient.bindToController(controller).build();
+    }
+
+    @Test
+    public void shouldServeNdjsonWithItsOwnETagWhenPreferredByQuality() {
+        // Given
+        when(getPatientsChangeCounterUseCase.execute()).thenReturn(Mono.just(CHANGE_COUNTER));
+        when(queryPatientsUseCase.getAllPatients(isNull())).thenReturn(Flux.just(patient()));
+
+        // When / Then
+        client.get().uri("/patients")
+                .header(HttpHeaders.ACCEPT, "application/json;q=0.5, application/x-ndjson")
+                .exchange()
+                .expectStatus().isOk()
+                .expectHeader().contentTypeCompatibleWith(MediaType.APPLICATION_NDJSON)
+                .expectHeader().valueEquals(HttpHeaders.ETAG, collectionETag("-nd"));
+    }
+
+    @Test
+    public void shouldServeJsonWithItsOwnETagWhenPreferredByQuality() {
+        // Given
+        when(getPatientsChangeCounterUseCase.execute()).thenReturn(Mono.just(CHANGE_COUNTER));
+        when(queryPatientsUseCase.getAllPatients(isNull())).thenReturn(Flux.just(patient()));
+
+        // When / Then
+        client.get().uri("/patients")
+                .header(HttpHeaders.ACCEPT, "application/x-ndjson;q=0.5, application/json")
+                .exchange()
+                .expectStatus().isOk()
+                .expectHeader().contentTypeCompatibleWith(MediaType.APPLICATION_JSON)
+                .expectHeader().valueEquals(HttpHeaders.ETAG, collectionETag(""));
+    }
+
+    @Test
+    public void shouldServeJsonWhenAcceptIsWildcard() {
+        // Given
+        when(getPatientsChangeCounterUseCase.execute()).thenReturn(Mono.just(CHANGE_COUNTER));
+        when(queryPatientsUseCase.getAllPatients(isNull())).thenReturn(Flux.just(patient()));
+
+        // When / Then
+        client.get().uri("/patients")
+                .header(HttpHeaders.ACCEPT, "*/*")
+                .exchange()
+                .expectStatus().isOk()
+                .expectHeader().contentTypeCompatibleWith(MediaType.APPLICATION_JSON)
+                .expectHeader().valueEquals(HttpHeaders.ETAG, collectionETag(""));
+    }
+
+    @Test
+    public void shouldAnswerNotModifiedWithoutQueryingWhenCollectionETagMatches() {
+        // Given
+        when(getPatientsChangeCounterUseCase.execute()).thenReturn(Mono.just(CHANGE_COUNTER));
+
+        // When / Then
+        client.get().uri("/patients")
+                .header(HttpHeaders.ACCEPT, MediaType.APPLICATION_JSON_VALUE)
+                .header(HttpHeaders.IF_NONE_MATCH, collectionETag(""))
+                .exchange()
+                .expectStatus().isNotModified()
+                .expectHeader().valueEquals(HttpHeaders.ETAG, collectionETag(""))
+                .expectHeader().valueEquals(HttpHeaders.VARY, HttpHeaders.ACCEPT)
+                .expectBody().isEmpty();
+        verify(queryPatientsUseCase, never()).getAllPatients(any());
+    }
+
+    @Test
+    public void shouldServeCollectionWhenIfNoneMatchIsStale() {
+        // Given
+        when(getPatientsChangeCounterUseCase.execute()).thenReturn(Mono.just(CHANGE_COUNTER));
+        when(queryPatientsUseCase.getAllPatients(isNull())).thenReturn(Flux.just(patient()));
+
+        // When / Then
+        client.get().uri("/patients")
+                .header(HttpHeaders.ACCEPT, MediaType.APPLICATION_JSON_VALUE)
+                .header(HttpHeaders.IF_NONE_MATCH, "\"c" + (CHANGE_COUNTER - 1) + "-" + Year.now().getValue() + "\"")
+                .exchange()
+                .expectStatus().isOk()
+                .expectHeader().valueEquals(HttpHeaders.ETAG, collectionETag(""))
+                .expectBody().jsonPath("$[0].id").isEqualTo("1");
+    }
+
+    @Test
+    public void shouldNotReuseNdjsonETagForJsonRepresentation() {
+        // Given
+        when(getPatientsChangeCounterUseCase.execute()).thenReturn(Mono.just(CHANGE_COUNTER));
+        when(queryPatientsUseCase.getAllPatients(isNull())).thenReturn(Flux.just(patient()));
+
+        // When / Then
+        client.get().uri("/patients")
+                .header(HttpHeaders.ACCEPT, MediaType.APPLICATION_JSON_VALUE)
+                .header(HttpHeaders.IF_NONE_MATCH, collectionETag("-nd"))
+                .exchange()
+                .expectStatus().isOk()
+                .expectHeader().valueEquals(HttpHeaders.ETAG, collectionETag(""));
+    }
+
+    @Test
+    public void shouldServeCollectionWithoutETagWhenCounterIsUnavailable() {
+        // Given
+        when(getPatientsChangeCounterUseCase.execute()).thenReturn(Mono.empty());
+        when(queryPatientsUseCase.getAllPatients(isNull())).thenReturn(Flux.just(patient()));
+
+        // When / Then
+        client.get().uri("/patients")
+                .header(HttpHeaders.ACCEPT, MediaType.APPLICATION_JSON_VALUE)
+                .header(HttpHeaders.IF_NONE_MATCH, collectionETag(""))
+                .exchange()
+                .expectStatus().isOk()
+                .expectHeader().doesNotExist(HttpHeaders.ETAG);
+    }
+
+    @Test
+    public void shouldServeSameBodyAndETagWhenDatabaseRendersTheJson() throws Exception {
+        // Given
+        Patient first = patient();
+        Patient second = first.toBuilder().id("2").firstName("Luis").city(null).build();
+        ObjectMapper objectMapper = JacksonConfig.webObjectMapper();
+        when(getPatientsChangeCounterUseCase.execute()).thenReturn(Mono.just(CHANGE_COUNTER));
+        when(queryPatientsUseCase.getAllPatients(isNull())).thenReturn(Flux.just(first, second));
+        // Lo que devuelve json_build_object: una fila por paciente con las mismas claves que PatientResponse
+        when(queryPatientsUseCase.getAllPatientsAsJson()).thenReturn(Flux.just(
+                objectMapper.writeValueAsBytes(PatientResponse.fromDomain(first)),
+                objectMapper.writeValueAsBytes(PatientResponse.fromDomain(second))));
+
+        // When
+        var rendered = client.get().uri("/patients")
+                .header(HttpHeaders.ACCEPT, MediaType.APPLICATION_JSON_VALUE)
+                .exchange()
+                .expectStatus().isOk()
+                .expectBody().returnResult();
+        var passthrough = client.get().uri("/patients?render=db")
+                .header(HttpHeaders.ACCEPT, MediaType.APPLICATION_JSON_VALUE)
+                .exchange()
+                .expectStatus().isOk()
+                .expectHeader().contentTypeCompatibleWith(MediaType.APPLICATION_JSON)
+                .expectBody().returnResult();
+
+        // Then
+        assertThat(passthrough.getResponseHeaders().getETag()).isEqualTo(collectionETag(""))
+                .isEqualTo(rendered.getResponseHeaders().getETag());
+        assertThat(new String(passthrough.getResponseBody(), StandardCharsets.UTF_8))
+                .isEqualTo(new String(rendered.getResponseBody(), StandardCharsets.UTF_8));
+    }
+
+    @Test
+    public void shouldServeEmptyArrayWhenDatabaseRendersNoRows() {
+        // Given
+        when(getPatientsChangeCounterUseCase.execute()).thenReturn(Mono.just(CHANGE_COUNTER));
+        when(queryPatientsUseCase.getAllPatientsAsJson()).thenReturn(Flux.empty());
+
+        // When / Then
+        client.get().uri("/patients?render=db")
+                .exchange()
+                .expectStatus().isOk()
+                .expectHeader().valueEquals(HttpHeaders.ETAG, collectionETag(""))
+                .expectBody().json("[]");
+    }
+
+    @Test
+    public void shouldAnswerNotModifiedWithoutQueryingWhenDatabaseRenderedETagMatches() {
+        // Given
+        when(getPatientsChangeCounterUseCase.execute()).thenReturn(Mono.just(CHANGE_COUNTER));
+
+        // When / Then
+        client.get().uri("/patients?render=db")
+                .header(HttpHeaders.IF_NONE_MATCH, collectionETag(""))
+                .exchange()
+                .expectStatus().isNotModified()
+                .expectBody().isEmpty();
+        verify(queryPatientsUseCase, never()).getAllPatientsAsJson();
+    }
+
+    @Test
+    public void shouldAnswerNotFoundWithoutQueryingWhenDatabaseRenderingTargetsUnknownRoute() {
+        // When / Then
+        client.get().uri("/patients/?render=db")
+                .exchange()
+                .expectStatus().isNotFound();
+        verify(queryPatientsUseCase, never()).getAllPatientsAsJson();
+        verify(getPatientsChangeCounterUseCase, never()).execute();
+    }
+
+    @Test
+    public void shouldTagCachedCityListingWithCounterReadBeforeItWasLoaded() {
+        // Given
+        long cachedCounter = CHANGE_COUNTER - 2;
+        when(getPatientsChangeCounterUseCase.execute()).thenReturn(Mono.just(CHANGE_COUNTER));
+        when(queryPatientsUseCase.getPatientByCity("Medellín", null, CHANGE_COUNTER))
+                .thenReturn(new PatientQueryCache.Listing(cachedCounter, Flux.just(patient())));
+
+        // When / Then
+        client.get().uri("/patients/city/Medellín")
+                .header(HttpHeaders.ACCEPT, MediaType.APPLICATION_JSON_VALUE)
+                .exchange()
+                .expectStatus().isOk()
+                .expectHeader().valueEquals(HttpHeaders.ETAG, "\"c" + cachedCounter + "-" + Year.now().getValue() + "\"")
+                .expectBody().jsonPath("$[0].id").isEqualTo("1");
+    }
+
+    @Test
+    public void shouldRevalidateCachedActiveListingAgainstItsOwnCounter() {
+        // Given
+        long cachedCounter = CHANGE_COUNTER - 2;
+        when(getPatientsChangeCounterUseCase.execute()).thenReturn(Mono.just(CHANGE_COUNTER));
+        when(queryPatientsUseCase.getActivePatients(null, CHANGE_COUNTER))
+                .thenReturn(new PatientQueryCache.Listing(cachedCounter, Flux.just(patient())));
+
+        // When / Then: la etiqueta del contador actual no valida un listado cargado antes
+        client.get().uri("/patients/active")
+                .header(HttpHeaders.ACCEPT, MediaType.APPLICATION_JSON_VALUE)
+                .header(HttpHeaders.IF_NONE_MATCH, collectionETag(""))
+                .exchange()
+                .expectStatus().isOk()
+                .expectHeader().valueEquals(HttpHeaders.ETAG, "\"c" + cachedCounter + "-" + Year.now().getValue() + "\"");
+    }
+
+    @Test
+    public void shouldAnswerNotModifiedWithoutRenderingWhenPatientETagMatches() {
+        // Given
+        Patient patient = patient();
+        when(getPatientByIdUseCase.execute("1")).thenReturn(Mono.just(patient));
+
+        // When / Then
+        client.get().uri("/patients/1")
+                .header(HttpHeaders.IF_NONE_MATCH, PatientETags.of(patient))
+                .exchange()
+                .expectStatus().isNotModified()
+                .expectHeader().valueEquals(HttpHeaders.ETAG, PatientETags.of(patient))
+                .expectBody().isEmpty();
+        verify(patientJsonCache, never()).render(any(), any(), any());
+    }
+
+    @Test
+    public void shouldDropCachedJsonWhenPatientIsDeleted() {
+        // Given
+        when(deletePatientUseCase.deletePatient("1")).thenReturn(Mono.empty());
+
+        // When / Then
+        client.delete().uri("/patients/1")
+                .exchange()
+                .expectStatus().isNoContent();
+        verify(patientJsonCache).invalidate("1");
+    }
+
+    private static String collectionETag(String suffix) {
+        return "\"c" + CHANGE_COUNTER + "-" + Year.now().getValue() + suffix + "\"";
+    }
+
+    private static Patient patient() {
+        return Patient.builder()
+                .id("1")
+                .firstName("Ana")
+                .lastName("Gómez")
+                .birthDate(LocalDate.of(1990, 5, 17))
+                .city("Medellín")
+                .active(true)
+                .version(3L)
+                .build();
+    }
+}
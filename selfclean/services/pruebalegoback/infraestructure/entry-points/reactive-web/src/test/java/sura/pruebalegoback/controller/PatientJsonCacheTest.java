@@ -0,0 +1,104 @@
+package sura.pruebalegoback.controller;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.core.io.buffer.DefaultDataBufferFactory;
+import org.springframework.util.unit.DataSize;
+import sura.pruebalegoback.domain.patient.Patient;
+import sura.pruebalegoback.dto.PatientResponse;
+import sura.pruebalegoback.web.JacksonConfig;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class PatientJsonCacheTest {
+
+    private final DefaultDataBufferFactory bufferFactory = DefaultDataBufferFactory.sharedInstance;
+    private SimpleMeterRegistry meterRegistry;
+    private PatientJsonCache cache;
+
+    @BeforeEach
+    public void setUp() {
+        meterRegistry = new SimpleMeterRegistry();
+        cache = new PatientJsonCache(JacksonConfig.webObjectMapper(), meterRegistry, DataSize.ofMegabytes(1));
+    }
+
+    @Test
+    public void shouldRenderSameJsonAsTheWebCodec() throws Exception {
+        Patient patient = patient(1L);
+
+        String json = read(cache.render(patient, PatientETags.of(patient), bufferFactory));
+
+        assertThat(json).isEqualTo(JacksonConfig.webObjectMapper()
+                .writeValueAsString(PatientResponse.fromDomain(patient)));
+    }
+
+    @Test
+    public void shouldServeRepeatedReadsFromCache() {
+        Patient patient = patient(1L);
+
+        String first = read(cache.render(patient, PatientETags.of(patient), bufferFactory));
+        String second = read(cache.render(patient, PatientETags.of(patient), bufferFactory));
+
+        assertThat(second).isEqualTo(first);
+        assertThat(meterRegistry.get("cache.gets").tag("cache", "patient-json").tag("result", "hit")
+                .functionCounter().count()).isEqualTo(1.0);
+    }
+
+    @Test
+    public void shouldReEncodeWhenVersionChanges() {
+        Patient patient = patient(1L);
+        cache.render(patient, PatientETags.of(patient), bufferFactory);
+
+        Patient updated = patient.toBuilder().city("Cali").version(2L).build();
+        String json = read(cache.render(updated, PatientETags.of(updated), bufferFactory));
+
+        assertThat(json).contains("\"city\":\"Cali\"");
+    }
+
+    @Test
+    public void shouldEncodeAgainAfterInvalidation() {
+        Patient patient = patient(1L);
+        cache.render(patient, PatientETags.of(patient), bufferFactory);
+
+        cache.invalidate(patient.getId());
+        cache.render(patient, PatientETags.of(patient), bufferFactory);
+
+        assertThat(meterRegistry.get("cache.gets").tag("cache", "patient-json").tag("result", "miss")
+                .functionCounter().count()).isEqualTo(2.0);
+    }
+
+    @Test
+    public void shouldWeighEntryByItsHeapFootprint() {
+        byte[] json = new byte[1000];
+
+        int weight = PatientJsonCache.weigh("1", new PatientJsonCache.Entry("\"3-35\"", json));
+
+        // 1000 bytes de JSON más su cabecera, dos String, el record y los nodos del mapa
+        assertThat(weight).isEqualTo(80 + 24 + (24 + 24) + (24 + 24) + 1016);
+    }
+
+    private String read(DataBuffer buffer) {
+        return buffer.toString(StandardCharsets.UTF_8);
+    }
+
+    private Patient patient(Long version) {
+        return Patient.builder()
+                .id("1")
+                .firstName("John")
+                .lastName("Doe")
+                .documentNumber("12345678")
+                .documentType("CC")
+                .birthDate(LocalDate.of(1990, 1, 1))
+                .city("Bogotá")
+                .admissionDate(LocalDateTime.of(2024, 1, 1, 8, 30))
+                .active(true)
+                .version(version)
+                .build();
+    }
+}
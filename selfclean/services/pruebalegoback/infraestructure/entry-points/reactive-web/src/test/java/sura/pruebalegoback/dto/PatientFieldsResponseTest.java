@@ -0,0 +1,66 @@
+package sura.pruebalegoback.dto;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Test;
+import sura.pruebalegoback.domain.patient.Patient;
+import sura.pruebalegoback.domain.patient.PatientField;
+import sura.pruebalegoback.web.JacksonConfig;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.Set;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+public class PatientFieldsResponseTest {
+
+    private final ObjectMapper objectMapper = JacksonConfig.webObjectMapper();
+
+    @Test
+    public void shouldWriteOnlyRequestedPropertiesInResponseOrder() throws Exception {
+        Set<PatientField> fields = PatientFieldsResponse.parseFields("city, fullName,id");
+
+        String json = objectMapper.writeValueAsString(new PatientFieldsResponse(patient(), fields));
+
+        assertThat(json).isEqualTo("{\"id\":\"1\",\"city\":\"Medellín\",\"fullName\":\"Ana Gómez\"}");
+    }
+
+    @Test
+    public void shouldFormatValuesLikePatientResponse() throws Exception {
+        Patient patient = patient();
+        Set<PatientField> fields = PatientFieldsResponse.parseFields("birthDate,admissionDate,active,age");
+
+        JsonNode sparse = objectMapper.readTree(objectMapper.writeValueAsString(new PatientFieldsResponse(patient, fields)));
+        JsonNode full = objectMapper.readTree(objectMapper.writeValueAsString(PatientResponse.fromDomain(patient)));
+
+        assertThat(sparse.size()).isEqualTo(fields.size());
+        fields.forEach(field -> assertThat(sparse.get(field.getProperty())).isEqualTo(full.get(field.getProperty())));
+    }
+
+    @Test
+    public void shouldTreatMissingFieldsAsAllProperties() {
+        assertThat(PatientFieldsResponse.parseFields(null)).isNull();
+        assertThat(PatientFieldsResponse.parseFields(" ")).isNull();
+    }
+
+    @Test
+    public void shouldRejectUnknownProperty() {
+        assertThatThrownBy(() -> PatientFieldsResponse.parseFields("id,password"))
+                .isInstanceOf(IllegalArgumentException.class)
+                .hasMessageContaining("password");
+    }
+
+    private static Patient patient() {
+        return Patient.builder()
+                .id("1")
+                .firstName("Ana")
+                .lastName("Gómez")
+                .birthDate(LocalDate.of(1990, 5, 17))
+                .city("Medellín")
+                .admissionDate(LocalDateTime.of(2024, 3, 1, 8, 30))
+                .active(true)
+                .build();
+    }
+}
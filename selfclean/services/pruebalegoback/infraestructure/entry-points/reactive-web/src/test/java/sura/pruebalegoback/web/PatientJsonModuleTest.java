@@ -0,0 +1,86 @@
+package sura.pruebalegoback.web;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import org.junit.jupiter.api.Test;
+import sura.pruebalegoback.GlobalExceptionHandler.ErrorResponse;
+import sura.pruebalegoback.domain.patient.Patient;
+import sura.pruebalegoback.dto.PatientResponse;
+import sura.pruebalegoback.usecase.patient.QueryPatientsUseCase.PatientSummary;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class PatientJsonModuleTest {
+
+    private final ObjectMapper codec = JacksonConfig.webObjectMapper();
+
+    // Configuración previa a los serializadores escritos a mano: la salida tiene que ser idéntica
+    private final ObjectMapper reflective = new ObjectMapper()
+            .registerModule(new JavaTimeModule())
+            .disable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS);
+
+    @Test
+    public void shouldWritePatientResponseLikeReflectiveMapper() throws Exception {
+        PatientResponse complete = PatientResponse.fromDomain(patient());
+        PatientResponse sparse = PatientResponse.builder().id("2").active(false).build();
+
+        for (PatientResponse response : List.of(complete, sparse)) {
+            assertThat(codec.writeValueAsString(response)).isEqualTo(reflective.writeValueAsString(response));
+        }
+    }
+
+    @Test
+    public void shouldWritePatientSummaryLikeReflectiveMapper() throws Exception {
+        List<PatientSummary> summaries = List.of(
+                new PatientSummary("1", "Ana Gómez", 33, "Medellín", true),
+                new PatientSummary("2", null, 0, null, false));
+
+        assertThat(codec.writeValueAsString(summaries)).isEqualTo(reflective.writeValueAsString(summaries));
+    }
+
+    @Test
+    public void shouldWriteErrorResponseLikeReflectiveMapper() throws Exception {
+        ErrorResponse withDetails = ErrorResponse.builder()
+                .timestamp(LocalDateTime.of(2024, 3, 1, 8, 30, 15, 987_000_000))
+                .status(400)
+                .error("Validation Error")
+                .message("Error de validación en los datos de entrada")
+                .code("VALIDATION_ERROR")
+                .type("VALIDATION_ERROR")
+                .details(Map.of("email", "debe ser una dirección de correo válida"))
+                .build();
+        ErrorResponse withoutDetails = ErrorResponse.builder()
+                .timestamp(LocalDateTime.of(2024, 3, 1, 8, 30))
+                .status(500)
+                .message("Error \"interno\" del servidor")
+                .build();
+
+        for (ErrorResponse response : List.of(withDetails, withoutDetails)) {
+            assertThat(codec.writeValueAsString(response)).isEqualTo(reflective.writeValueAsString(response));
+        }
+    }
+
+    private static Patient patient() {
+        return Patient.builder()
+                .id("1")
+                .firstName("Ana")
+                .lastName("Gómez")
+                .documentNumber("1017123456")
+                .documentType("CC")
+                .birthDate(LocalDate.of(1990, 5, 17))
+                .address("Calle 10 # 43-20")
+                .phone("3001234567")
+                .email("ana@example.com")
+                .city("Medellín")
+                .state("Antioquia")
+                .admissionDate(LocalDateTime.of(2024, 3, 1, 8, 30, 0, 250_000_000))
+                .active(true)
+                .build();
+    }
+}
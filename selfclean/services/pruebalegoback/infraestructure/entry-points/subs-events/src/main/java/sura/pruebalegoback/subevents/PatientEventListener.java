@@ -1,6 +1,7 @@
 package sura.pruebalegoback.subevents;
 
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.PropertyNamingStrategies;
 import com.rabbitmq.client.Channel;
 import com.rabbitmq.client.Connection;
 import com.rabbitmq.client.Delivery;
@@ -8,7 +9,6 @@ import com.rabbitmq.client.Delivery;
 
 import jakarta.annotation.PostConstruct;
 import jakarta.annotation.PreDestroy;
-import lombok.RequiredArgsConstructor;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.stereotype.Component;
@@ -25,7 +25,6 @@ import java.time.Duration;
 import java.util.concurrent.TimeoutException;
 
 @Component
-@RequiredArgsConstructor
 public class PatientEventListener {
     
     private static final Logger log = LoggerFactory.getLogger(PatientEventListener.class);
@@ -38,6 +37,13 @@ public class PatientEventListener {
     private static final String EXCHANGE_NAME = "patient.events";
     private static final String ROUTING_KEY = "patient.created";
 
+    public PatientEventListener(Receiver receiver, ObjectMapper objectMapper, Mono<Connection> connectionMono) {
+        this.receiver = receiver;
+        // Los eventos viajan en snake_case ("created_at"); módulos y spring.jackson.* salen del mapper de Spring Boot
+        this.objectMapper = objectMapper.copy().setPropertyNamingStrategy(PropertyNamingStrategies.SNAKE_CASE);
+        this.connectionMono = connectionMono;
+    }
+
     @PostConstruct
     public void startListening() {
         log.info("Iniciando listener para eventos de pacientes");
@@ -84,7 +90,7 @@ public class PatientEventListener {
                 log.info("Mensaje recibido: {}", messageBody);
                 
                 // Parse the event
-                PatientCreated event = objectMapper.readValue(messageBody, PatientCreated.class);
+                PatientCreated event = readEvent(messageBody);
                 log.info("Evento PatientCreated procesado: Paciente {} {} creado en {}", 
                         event.getPatient().getFirstName(), 
                         event.getPatient().getLastName(),
@@ -120,6 +126,10 @@ public class PatientEventListener {
         }).then();
     }
 
+    PatientCreated readEvent(String messageBody) throws IOException {
+        return objectMapper.readValue(messageBody, PatientCreated.class);
+    }
+
     private boolean isTransientError(Throwable throwable) {
         return throwable instanceof java.net.ConnectException ||
                throwable instanceof TimeoutException ||
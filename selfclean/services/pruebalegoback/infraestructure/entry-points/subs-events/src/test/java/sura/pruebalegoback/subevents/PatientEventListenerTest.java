@@ -0,0 +1,41 @@
+package sura.pruebalegoback.subevents;
+
+import com.rabbitmq.client.Connection;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+import reactor.core.publisher.Mono;
+import reactor.rabbitmq.Receiver;
+import sura.pruebalegoback.domain.patient.events.PatientCreated;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+
+public class PatientEventListenerTest {
+
+    // Mismo punto de partida que el ObjectMapper que arma Spring Boot
+    private final PatientEventListener listener = new PatientEventListener(mock(Receiver.class),
+            Jackson2ObjectMapperBuilder.json().build(), Mono.<Connection>empty());
+
+    @Test
+    public void shouldReadSnakeCaseEventIgnoringDerivedProperties() throws Exception {
+        // Given
+        String message = """
+                {"patient":{"id":"1","first_name":"Ana","last_name":"Gómez","document_number":"123",
+                "document_type":"CC","birth_date":"1990-05-17","city":"Medellín","active":true,"version":0,
+                "full_name":"Ana Gómez","age":36},"created_at":"2026-01-02T03:04:05"}
+                """;
+
+        // When
+        PatientCreated event = listener.readEvent(message);
+
+        // Then
+        assertThat(event.getCreatedAt()).isEqualTo(LocalDateTime.of(2026, 1, 2, 3, 4, 5));
+        assertThat(event.getPatient().getFirstName()).isEqualTo("Ana");
+        assertThat(event.getPatient().getDocumentNumber()).isEqualTo("123");
+        assertThat(event.getPatient().getBirthDate()).isEqualTo(LocalDate.of(1990, 5, 17));
+        assertThat(event.getPatient().isActive()).isTrue();
+    }
+}
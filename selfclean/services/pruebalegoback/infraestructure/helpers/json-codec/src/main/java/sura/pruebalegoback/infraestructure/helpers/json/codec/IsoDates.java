@@ -0,0 +1,128 @@
+package sura.pruebalegoback.infraestructure.helpers.json.codec;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.SerializableString;
+
+import java.io.IOException;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+
+/**
+ * Formato ISO-8601 de fechas para los serializadores escritos a mano, con la misma salida que
+ * {@link DateTimeFormatter#ISO_LOCAL_DATE} y {@link DateTimeFormatter#ISO_LOCAL_DATE_TIME} (lo que escribe
+ * JavaTimeModule) pero sin pasar por el formateador genérico.
+ * <p>
+ * Las fechas se repiten mucho en un listado (nacimientos, días de ingreso), así que su texto se guarda en una
+ * caché de correspondencia directa por día; las fechas con hora casi nunca se repiten y se escriben carácter a
+ * carácter en un buffer que va directo al generador, sin crear el String.
+ */
+public final class IsoDates {
+
+    private static final int DATE_SLOTS = 4096;
+    private static final int MAX_DATE_TIME_LENGTH = 29;
+
+    // Cada posición guarda un registro inmutable: una lectura concurrente ve uno completo o uno anterior
+    private static final CachedDate[] DATES = new CachedDate[DATE_SLOTS];
+
+    private IsoDates() {
+    }
+
+    public static String format(LocalDate date) {
+        int slot = (int) (date.toEpochDay() & (DATE_SLOTS - 1));
+        CachedDate cached = DATES[slot];
+        if (cached != null && cached.date.equals(date)) {
+            return cached.text;
+        }
+        String text;
+        if (isFourDigitYear(date.getYear())) {
+            char[] buffer = new char[10];
+            text = new String(buffer, 0, writeDate(buffer, 0, date));
+        } else {
+            text = DateTimeFormatter.ISO_LOCAL_DATE.format(date);
+        }
+        DATES[slot] = new CachedDate(date, text);
+        return text;
+    }
+
+    public static String format(LocalDateTime dateTime) {
+        if (!isFourDigitYear(dateTime.getYear())) {
+            return DateTimeFormatter.ISO_LOCAL_DATE_TIME.format(dateTime);
+        }
+        char[] buffer = new char[MAX_DATE_TIME_LENGTH];
+        return new String(buffer, 0, writeDateTime(buffer, dateTime));
+    }
+
+    public static void writeField(JsonGenerator gen, SerializableString name, LocalDate date) throws IOException {
+        gen.writeFieldName(name);
+        if (date == null) {
+            gen.writeNull();
+        } else {
+            gen.writeString(format(date));
+        }
+    }
+
+    public static void writeField(JsonGenerator gen, SerializableString name, LocalDateTime dateTime)
+            throws IOException {
+        gen.writeFieldName(name);
+        if (dateTime == null) {
+            gen.writeNull();
+        } else if (isFourDigitYear(dateTime.getYear())) {
+            char[] buffer = new char[MAX_DATE_TIME_LENGTH];
+            gen.writeString(buffer, 0, writeDateTime(buffer, dateTime));
+        } else {
+            gen.writeString(DateTimeFormatter.ISO_LOCAL_DATE_TIME.format(dateTime));
+        }
+    }
+
+    // Fuera de 0000-9999 el formato ISO agrega signo y más dígitos; ese caso lo resuelve DateTimeFormatter
+    private static boolean isFourDigitYear(int year) {
+        return year >= 0 && year <= 9999;
+    }
+
+    private static int writeDate(char[] buffer, int offset, LocalDate date) {
+        int year = date.getYear();
+        writeTwoDigits(buffer, offset, year / 100);
+        writeTwoDigits(buffer, offset + 2, year % 100);
+        buffer[offset + 4] = '-';
+        writeTwoDigits(buffer, offset + 5, date.getMonthValue());
+        buffer[offset + 7] = '-';
+        writeTwoDigits(buffer, offset + 8, date.getDayOfMonth());
+        return offset + 10;
+    }
+
+    // HH:mm:ss siempre; la fracción solo si hay nanos y sin ceros a la derecha, como ISO_LOCAL_TIME
+    private static int writeDateTime(char[] buffer, LocalDateTime dateTime) {
+        int position = writeDate(buffer, 0, dateTime.toLocalDate());
+        buffer[position++] = 'T';
+        writeTwoDigits(buffer, position, dateTime.getHour());
+        buffer[position + 2] = ':';
+        writeTwoDigits(buffer, position + 3, dateTime.getMinute());
+        buffer[position + 5] = ':';
+        writeTwoDigits(buffer, position + 6, dateTime.getSecond());
+        position += 8;
+        int nanos = dateTime.getNano();
+        if (nanos == 0) {
+            return position;
+        }
+        buffer[position++] = '.';
+        int digits = 9;
+        while (nanos % 10 == 0) {
+            nanos /= 10;
+            digits--;
+        }
+        for (int i = position + digits - 1; i >= position; i--) {
+            buffer[i] = (char) ('0' + nanos % 10);
+            nanos /= 10;
+        }
+        return position + digits;
+    }
+
+    private static void writeTwoDigits(char[] buffer, int offset, int value) {
+        buffer[offset] = (char) ('0' + value / 10);
+        buffer[offset + 1] = (char) ('0' + value % 10);
+    }
+
+    private record CachedDate(LocalDate date, String text) {
+    }
+}
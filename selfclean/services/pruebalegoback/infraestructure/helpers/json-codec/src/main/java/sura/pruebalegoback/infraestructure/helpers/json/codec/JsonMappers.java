@@ -0,0 +1,48 @@
+package sura.pruebalegoback.infraestructure.helpers.json.codec;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.util.JsonRecyclerPools;
+import com.fasterxml.jackson.databind.DeserializationFeature;
+import com.fasterxml.jackson.databind.Module;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.PropertyNamingStrategies;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.fasterxml.jackson.databind.json.JsonMapper;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+
+/**
+ * Fábrica de los {@link ObjectMapper} que se arman fuera de Spring Boot: clientes de APIs externas, el canal de
+ * cambios de PostgreSQL y las pruebas. Parten de la misma base (fechas ISO-8601 como texto) y solo difieren en lo
+ * que cada uno declara aquí. El de la API web lo arma Spring Boot con {@code spring.jackson.*}.
+ */
+public final class JsonMappers {
+
+    private JsonMappers() {
+    }
+
+    /** Mapper con las convenciones de la API propia: nombres en camelCase más los módulos indicados. */
+    public static ObjectMapper web(Module... modules) {
+        return builder()
+                .addModules(modules)
+                .build();
+    }
+
+    /** Mapper para APIs externas en snake_case; ignora propiedades desconocidas (p. ej. "@context"). */
+    public static ObjectMapper snakeCase() {
+        return builder()
+                .propertyNamingStrategy(PropertyNamingStrategies.SNAKE_CASE)
+                .disable(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES)
+                .build();
+    }
+
+    private static JsonMapper.Builder builder() {
+        JsonFactory factory = JsonFactory.builder()
+                // Buffers de cada generador reciclados por hilo: es el valor por defecto de Jackson 2.16 y 2.17.x,
+                // así que solo queda explícito
+                .recyclerPool(JsonRecyclerPools.threadLocalPool())
+                .build();
+        return JsonMapper.builder(factory)
+                .addModule(new JavaTimeModule())
+                .disable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS);
+    }
+}
@@ -0,0 +1,60 @@
+package sura.pruebalegoback.infraestructure.helpers.json.codec;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+
+class IsoDatesTest {
+
+    @Test
+    void shouldFormatDatesLikeIsoLocalDate() {
+        // Given
+        List<LocalDate> dates = List.of(
+                LocalDate.of(1990, 5, 17),
+                LocalDate.of(2024, 12, 31),
+                LocalDate.of(7, 1, 9),
+                LocalDate.of(9999, 12, 31),
+                LocalDate.of(10_000, 1, 1),
+                LocalDate.of(-1, 6, 15));
+
+        // When / Then
+        dates.forEach(date -> assertEquals(DateTimeFormatter.ISO_LOCAL_DATE.format(date), IsoDates.format(date)));
+    }
+
+    @Test
+    void shouldFormatDateTimesLikeIsoLocalDateTime() {
+        // Given
+        LocalDateTime base = LocalDateTime.of(2024, 3, 1, 8, 30);
+        List<LocalDateTime> dateTimes = List.of(
+                base,
+                base.withSecond(5),
+                base.withNano(500_000_000),
+                base.withNano(120_000),
+                base.withNano(123_456_789),
+                base.withNano(1),
+                LocalDateTime.of(10_000, 1, 1, 0, 0));
+
+        // When / Then
+        dateTimes.forEach(dateTime ->
+                assertEquals(DateTimeFormatter.ISO_LOCAL_DATE_TIME.format(dateTime), IsoDates.format(dateTime)));
+    }
+
+    @Test
+    void shouldReuseTextOfRepeatedDate() {
+        // Given
+        LocalDate date = LocalDate.of(1985, 2, 3);
+
+        // When
+        String first = IsoDates.format(date);
+        String second = IsoDates.format(LocalDate.of(1985, 2, 3));
+
+        // Then
+        assertSame(first, second);
+    }
+}
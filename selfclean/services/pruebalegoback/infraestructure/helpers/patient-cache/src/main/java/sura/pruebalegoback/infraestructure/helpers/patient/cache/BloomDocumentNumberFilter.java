@@ -0,0 +1,159 @@
+package sura.pruebalegoback.infraestructure.helpers.patient.cache;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import reactor.core.Disposable;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import sura.pruebalegoback.domain.patient.Patient;
+import sura.pruebalegoback.domain.patient.PatientChange;
+import sura.pruebalegoback.domain.patient.gateway.DocumentNumberFilter;
+import sura.pruebalegoback.domain.patient.gateway.PatientChangeFeed;
+import sura.pruebalegoback.domain.patient.gateway.PatientRepository;
+
+import java.time.Duration;
+import java.util.Objects;
+
+/**
+ * {@link DocumentNumberFilter} respaldado por un {@link ScalableBloomFilter} que se construye
+ * recorriendo {@code findAll} al arrancar y se reconstruye cada {@code rebuildInterval}.
+ * Mientras no exista una construcción completa responde "puede existir" para todo documento.
+ * <p>
+ * Los pacientes creados en otras instancias llegan por {@link #followInserts(PatientChangeFeed)}; la
+ * reconstrucción periódica cubre las altas perdidas mientras el canal estuvo caído.
+ */
+public class BloomDocumentNumberFilter implements DocumentNumberFilter {
+
+    private static final Logger log = LoggerFactory.getLogger(BloomDocumentNumberFilter.class);
+
+    private final PatientRepository patientRepository;
+    private final long expectedInsertions;
+    private final double falsePositiveRate;
+    private final Duration rebuildInterval;
+    private final Counter definiteMisses;
+    private final Counter maybePresent;
+    private final Counter notReady;
+
+    private volatile ScalableBloomFilter active;
+    private volatile ScalableBloomFilter building;
+    private Disposable rebuilds;
+    private Disposable inserts;
+
+    public BloomDocumentNumberFilter(PatientRepository patientRepository, MeterRegistry meterRegistry,
+                                     long expectedInsertions, double falsePositiveRate, Duration rebuildInterval) {
+        this.patientRepository = patientRepository;
+        this.expectedInsertions = expectedInsertions;
+        this.falsePositiveRate = falsePositiveRate;
+        this.rebuildInterval = rebuildInterval;
+        this.definiteMisses = checkCounter(meterRegistry, "definite_miss");
+        this.maybePresent = checkCounter(meterRegistry, "maybe_present");
+        this.notReady = checkCounter(meterRegistry, "not_ready");
+        Gauge.builder("patients.document-filter.elements", this,
+                        filter -> filter.active == null ? 0 : filter.active.approximateElementCount())
+                .register(meterRegistry);
+        Gauge.builder("patients.document-filter.stages", this,
+                        filter -> filter.active == null ? 0 : filter.active.stageCount())
+                .register(meterRegistry);
+    }
+
+    @Override
+    public boolean mightContain(String documentNumber) {
+        ScalableBloomFilter filter = active;
+        if (filter == null) {
+            notReady.increment();
+            return true;
+        }
+        if (filter.mightContain(documentNumber)) {
+            maybePresent.increment();
+            return true;
+        }
+        definiteMisses.increment();
+        return false;
+    }
+
+    @Override
+    public void add(String documentNumber) {
+        if (documentNumber == null) {
+            return;
+        }
+        // Se lee primero el filtro en construcción: si ya es null, la publicación terminó y "active" es el nuevo
+        ScalableBloomFilter next = building;
+        ScalableBloomFilter current = active;
+        if (next != null) {
+            next.add(documentNumber);
+        }
+        if (current != null) {
+            current.add(documentNumber);
+        }
+    }
+
+    public boolean isReady() {
+        return active != null;
+    }
+
+    public synchronized void start() {
+        if (rebuilds != null) {
+            return;
+        }
+        rebuilds = Flux.interval(Duration.ZERO, rebuildInterval)
+                .onBackpressureDrop()
+                .concatMap(tick -> rebuild())
+                .subscribe();
+    }
+
+    public synchronized void followInserts(PatientChangeFeed feed) {
+        if (inserts == null) {
+            inserts = feed.changes()
+                    .filter(change -> change.type() == PatientChange.Type.INSERT)
+                    .subscribe(change -> add(change.documentNumber()),
+                            error -> log.error("El canal de cambios de pacientes terminó: {}", error.getMessage()));
+        }
+    }
+
+    public synchronized void close() {
+        if (rebuilds != null) {
+            rebuilds.dispose();
+            rebuilds = null;
+        }
+        if (inserts != null) {
+            inserts.dispose();
+            inserts = null;
+        }
+    }
+
+    Mono<Void> rebuild() {
+        return Mono.defer(() -> {
+            ScalableBloomFilter current = active;
+            long capacity = Math.max(expectedInsertions, current == null ? 0 : current.approximateElementCount());
+            ScalableBloomFilter next = new ScalableBloomFilter(capacity, falsePositiveRate);
+            // Publicado antes de leer la tabla para que las altas concurrentes no se pierdan
+            building = next;
+            long startedAt = System.nanoTime();
+            return patientRepository.findAll()
+                    .map(Patient::getDocumentNumber)
+                    .filter(Objects::nonNull)
+                    .doOnNext(next::add)
+                    .then()
+                    .doOnSuccess(v -> {
+                        active = next;
+                        log.info("Filtro de documentos construido: ~{} documentos, {} etapas en {} ms",
+                                next.approximateElementCount(), next.stageCount(),
+                                Duration.ofNanos(System.nanoTime() - startedAt).toMillis());
+                    })
+                    .doFinally(signal -> building = null)
+                    .onErrorResume(error -> {
+                        log.warn("No se pudo construir el filtro de documentos, se reintentará: {}", error.getMessage());
+                        return Mono.empty();
+                    });
+        });
+    }
+
+    private static Counter checkCounter(MeterRegistry meterRegistry, String result) {
+        return Counter.builder("patients.document-filter.checks")
+                .tag("result", result)
+                .register(meterRegistry);
+    }
+}
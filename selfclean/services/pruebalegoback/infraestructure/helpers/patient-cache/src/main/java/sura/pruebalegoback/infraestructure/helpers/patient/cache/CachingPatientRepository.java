@@ -0,0 +1,287 @@
+package sura.pruebalegoback.infraestructure.helpers.patient.cache;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import reactor.core.Disposable;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import sura.pruebalegoback.domain.patient.Patient;
+import sura.pruebalegoback.domain.patient.PatientChange;
+import sura.pruebalegoback.domain.patient.PatientField;
+import sura.pruebalegoback.domain.patient.PatientSearchCriteria;
+import sura.pruebalegoback.domain.patient.gateway.PatientChangeFeed;
+import sura.pruebalegoback.domain.patient.gateway.PatientRepository;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Decorador de {@link PatientRepository} con caché local de lectura para {@code findById}.
+ * <p>
+ * Todas las escrituras de los casos de uso (crear, actualizar, desactivar, eliminar, operaciones
+ * masivas y archivado) pasan por este repositorio: las que devuelven el paciente refrescan la entrada
+ * y las demás la invalidan. Las escrituras de otras instancias llegan por {@link #listen(PatientChangeFeed)}:
+ * cada cambio deja un piso de versión por id, de modo que una lectura lenta que empezó antes del cambio
+ * no vuelve a guardar la versión vieja, y un RESYNC (reconexión del canal) vacía la caché y descarta las
+ * lecturas en curso. Si el canal se cae sin aviso, el TTL acota la desactualización.
+ * Las métricas de Caffeine (aciertos, fallos, expulsiones) se publican como {@code cache.*} con {@code cache=patients}.
+ */
+public class CachingPatientRepository implements PatientRepository {
+
+    private static final Logger log = LoggerFactory.getLogger(CachingPatientRepository.class);
+
+    private final PatientRepository delegate;
+    private final Cache<String, Patient> cache;
+    // Versión mínima aceptable por id según los cambios notificados; vive lo mismo que una entrada
+    private final Cache<String, Long> versionFloors;
+    private final AtomicLong generation = new AtomicLong();
+    // Un contador por tipo, registrado una vez: una actualización masiva llega como una notificación por fila
+    private final Map<PatientChange.Type, Counter> remoteChanges = new EnumMap<>(PatientChange.Type.class);
+    private Disposable changes;
+
+    public CachingPatientRepository(PatientRepository delegate, MeterRegistry meterRegistry, Duration ttl, long maxSize) {
+        this.delegate = delegate;
+        for (PatientChange.Type type : PatientChange.Type.values()) {
+            remoteChanges.put(type, Counter.builder("patients.cache.remote-changes")
+                    .tag("type", type.name())
+                    .register(meterRegistry));
+        }
+        this.cache = Caffeine.newBuilder()
+                .expireAfterWrite(ttl)
+                .maximumSize(maxSize)
+                .recordStats()
+                .build();
+        this.versionFloors = Caffeine.newBuilder()
+                .expireAfterWrite(ttl)
+                .maximumSize(maxSize)
+                .build();
+        CaffeineCacheMetrics.monitor(meterRegistry, cache, "patients");
+        log.info("Caché de pacientes habilitada: TTL {}, máximo {} entradas", ttl, maxSize);
+    }
+
+    public synchronized void listen(PatientChangeFeed feed) {
+        if (changes == null) {
+            changes = feed.changes().subscribe(this::apply,
+                    error -> log.error("El canal de cambios de pacientes terminó: {}", error.getMessage()));
+        }
+    }
+
+    public synchronized void close() {
+        if (changes != null) {
+            changes.dispose();
+            changes = null;
+        }
+    }
+
+    // Ids más usados según la política de expulsión (frecuencia estimada por W-TinyLFU), de más a menos
+    public List<String> hottestIds(int limit) {
+        return cache.policy().eviction()
+                .map(eviction -> List.copyOf(eviction.hottest(limit).keySet()))
+                .orElse(List.of());
+    }
+
+    // Precarga con consultas por lotes (id = ANY($1)); devuelve cuántos pacientes quedaron en caché
+    public Mono<Long> warmUp(Collection<String> ids, int batchSize) {
+        return Flux.fromIterable(ids)
+                .buffer(batchSize)
+                .concatMap(batch -> Flux.defer(() -> {
+                    long readGeneration = generation.get();
+                    return delegate.findAllByIds(batch)
+                            .doOnNext(patient -> put(patient, readGeneration));
+                }))
+                .count();
+    }
+
+    @Override
+    public Mono<Patient> findById(String id) {
+        Patient cached = cache.getIfPresent(id);
+        if (cached != null) {
+            log.debug("Paciente {} servido desde caché", id);
+            return Mono.just(cached);
+        }
+        return Mono.defer(() -> {
+            long readGeneration = generation.get();
+            return delegate.findById(id)
+                    .doOnNext(patient -> put(patient, readGeneration));
+        });
+    }
+
+    @Override
+    public Mono<Patient> save(Patient patient) {
+        return delegate.save(patient)
+                .doOnNext(this::put);
+    }
+
+    @Override
+    public Mono<Patient> update(Patient patient) {
+        return delegate.update(patient)
+                .doOnNext(this::put)
+                // Conflicto de versión u otro error: la copia local puede estar desactualizada
+                .doOnError(error -> invalidate(patient.getId()));
+    }
+
+    @Override
+    public Mono<Void> deleteById(String id) {
+        return delegate.deleteById(id)
+                .doFinally(signal -> invalidate(id));
+    }
+
+    @Override
+    public Flux<String> updateActiveByIds(Collection<String> ids, boolean active) {
+        return delegate.updateActiveByIds(ids, active)
+                .doOnNext(this::invalidate);
+    }
+
+    @Override
+    public Flux<String> updateActiveByCity(String city, boolean active) {
+        return delegate.updateActiveByCity(city, active)
+                .doOnNext(this::invalidate);
+    }
+
+    @Override
+    public Flux<String> archiveInactiveSince(LocalDateTime deactivatedBefore, int limit) {
+        return delegate.archiveInactiveSince(deactivatedBefore, limit)
+                .doOnNext(this::invalidate);
+    }
+
+    @Override
+    public Flux<Patient> findAllByIds(Collection<String> ids) {
+        return delegate.findAllByIds(ids);
+    }
+
+    @Override
+    public Flux<Patient> findAll() {
+        return delegate.findAll();
+    }
+
+    @Override
+    public Flux<byte[]> findAllAsJson() {
+        return delegate.findAllAsJson();
+    }
+
+    @Override
+    public Flux<Patient> findByActive(boolean active) {
+        return delegate.findByActive(active);
+    }
+
+    @Override
+    public Flux<Patient> findByDocumentNumber(String documentNumber) {
+        return delegate.findByDocumentNumber(documentNumber);
+    }
+
+    @Override
+    public Flux<Patient> findByCity(String city) {
+        return delegate.findByCity(city);
+    }
+
+    @Override
+    public Flux<Patient> findByAdmissionDateBetween(LocalDateTime from, LocalDateTime to) {
+        return delegate.findByAdmissionDateBetween(from, to);
+    }
+
+    @Override
+    public Flux<Patient> findAll(Set<PatientField> fields) {
+        return delegate.findAll(fields);
+    }
+
+    @Override
+    public Flux<Patient> findByActive(boolean active, Set<PatientField> fields) {
+        return delegate.findByActive(active, fields);
+    }
+
+    @Override
+    public Flux<Patient> findByCity(String city, Set<PatientField> fields) {
+        return delegate.findByCity(city, fields);
+    }
+
+    @Override
+    public Flux<Patient> findByAdmissionDateBetween(LocalDateTime from, LocalDateTime to, Set<PatientField> fields) {
+        return delegate.findByAdmissionDateBetween(from, to, fields);
+    }
+
+    @Override
+    public Flux<Patient> search(PatientSearchCriteria criteria) {
+        return delegate.search(criteria);
+    }
+
+    @Override
+    public Mono<Long> countAll() {
+        return delegate.countAll();
+    }
+
+    @Override
+    public Mono<Long> countByCity(String city) {
+        return delegate.countByCity(city);
+    }
+
+    @Override
+    public Mono<Long> estimateCountAll() {
+        return delegate.estimateCountAll();
+    }
+
+    @Override
+    public Mono<Long> estimateCountByCity(String city) {
+        return delegate.estimateCountByCity(city);
+    }
+
+    @Override
+    public Mono<Patient> findArchivedById(String id) {
+        return delegate.findArchivedById(id);
+    }
+
+    void apply(PatientChange change) {
+        countChange(change.type());
+        if (change.type() == PatientChange.Type.RESYNC) {
+            log.info("Resincronizando la caché de pacientes: se descartan {} entradas", cache.estimatedSize());
+            generation.incrementAndGet();
+            cache.invalidateAll();
+            return;
+        }
+        String id = change.patientId();
+        versionFloors.asMap().merge(id, change.version(), Math::max);
+        // La propia escritura de esta instancia ya dejó la versión notificada (o una posterior): se conserva
+        cache.asMap().computeIfPresent(id, (key, current) -> versionOf(current) >= change.version() ? current : null);
+    }
+
+    private void put(Patient patient) {
+        put(patient, generation.get());
+    }
+
+    // Una lectura lenta que termina después de una escritura no debe reemplazar la versión más nueva
+    private void put(Patient patient, long readGeneration) {
+        Long floor = versionFloors.getIfPresent(patient.getId());
+        if (floor != null && versionOf(patient) < floor) {
+            log.debug("Paciente {} v{} descartado: ya se notificó la versión {}", patient.getId(), versionOf(patient), floor);
+            return;
+        }
+        cache.asMap().merge(patient.getId(), patient,
+                (current, candidate) -> versionOf(candidate) >= versionOf(current) ? candidate : current);
+        // Lectura iniciada antes de un RESYNC: pudo perderse una notificación que la invalidaba
+        if (generation.get() != readGeneration) {
+            cache.invalidate(patient.getId());
+        }
+    }
+
+    private void countChange(PatientChange.Type type) {
+        remoteChanges.get(type).increment();
+    }
+
+    private void invalidate(String id) {
+        cache.invalidate(id);
+    }
+
+    private static long versionOf(Patient patient) {
+        return patient.getVersion() == null ? -1 : patient.getVersion();
+    }
+}
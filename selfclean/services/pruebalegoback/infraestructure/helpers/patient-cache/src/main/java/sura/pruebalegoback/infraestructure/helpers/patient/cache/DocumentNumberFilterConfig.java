@@ -0,0 +1,34 @@
+package sura.pruebalegoback.infraestructure.helpers.patient.cache;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import sura.pruebalegoback.domain.patient.gateway.DocumentNumberFilter;
+import sura.pruebalegoback.domain.patient.gateway.PatientChangeFeed;
+import sura.pruebalegoback.domain.patient.gateway.PatientRepository;
+
+import java.time.Duration;
+
+@Configuration
+public class DocumentNumberFilterConfig {
+
+    // Spring infiere close() como método de destrucción del filtro de Bloom
+    @Bean
+    public DocumentNumberFilter documentNumberFilter(PatientRepository patientRepository,
+                                                     PatientChangeFeed patientChangeFeed,
+                                                     MeterRegistry meterRegistry,
+                                                     @Value("${app.patients.document-filter.enabled:true}") boolean enabled,
+                                                     @Value("${app.patients.document-filter.expected-insertions:100000}") long expectedInsertions,
+                                                     @Value("${app.patients.document-filter.false-positive-rate:0.01}") double falsePositiveRate,
+                                                     @Value("${app.patients.document-filter.rebuild-interval:PT10M}") Duration rebuildInterval) {
+        if (!enabled) {
+            return DocumentNumberFilter.alwaysCheck();
+        }
+        BloomDocumentNumberFilter filter = new BloomDocumentNumberFilter(patientRepository, meterRegistry,
+                expectedInsertions, falsePositiveRate, rebuildInterval);
+        filter.start();
+        filter.followInserts(patientChangeFeed);
+        return filter;
+    }
+}
@@ -0,0 +1,135 @@
+package sura.pruebalegoback.infraestructure.helpers.patient.cache;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.context.SmartLifecycle;
+import reactor.core.Disposable;
+import reactor.core.publisher.Flux;
+import reactor.core.scheduler.Schedulers;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.time.Duration;
+import java.util.List;
+import java.util.stream.Stream;
+
+/**
+ * Arranque en caliente de {@link CachingPatientRepository}: guarda en un archivo local los ids más usados
+ * (periódicamente y al apagar) y al arrancar los vuelve a cargar con consultas por lotes. Se guardan claves,
+ * no pacientes, para no revivir datos desactualizados.
+ * <p>
+ * Con {@code cache} nulo (caché o arranque en caliente deshabilitados) no hace nada.
+ * <p>
+ * Arranca en una fase anterior a la del servidor web y espera la precarga (con límite de tiempo), así la
+ * instancia no recibe tráfico ni se reporta lista con la caché vacía. Al apagar se detiene después del servidor.
+ */
+public class PatientCacheWarmer implements SmartLifecycle {
+
+    private static final Logger log = LoggerFactory.getLogger(PatientCacheWarmer.class);
+
+    // Antes que el servidor web (Integer.MAX_VALUE - 1024) y que cualquier SmartLifecycle por defecto
+    private static final int PHASE = 0;
+    private static final int WARM_UP_BATCH_SIZE = 500;
+
+    private final CachingPatientRepository cache;
+    private final Path file;
+    private final int maxKeys;
+    private final Duration snapshotInterval;
+    private final Duration warmUpTimeout;
+
+    private volatile boolean running;
+    private Disposable snapshots;
+
+    public PatientCacheWarmer(CachingPatientRepository cache, Path file, int maxKeys,
+                              Duration snapshotInterval, Duration warmUpTimeout) {
+        this.cache = cache;
+        this.file = file;
+        this.maxKeys = maxKeys;
+        this.snapshotInterval = snapshotInterval;
+        this.warmUpTimeout = warmUpTimeout;
+    }
+
+    @Override
+    public void start() {
+        if (cache == null) {
+            running = true;
+            return;
+        }
+        warmUp();
+        snapshots = Flux.interval(snapshotInterval, snapshotInterval, Schedulers.boundedElastic())
+                .subscribe(tick -> snapshot());
+        running = true;
+    }
+
+    @Override
+    public void stop() {
+        if (snapshots != null) {
+            snapshots.dispose();
+            snapshot();
+        }
+        running = false;
+    }
+
+    @Override
+    public boolean isRunning() {
+        return running;
+    }
+
+    @Override
+    public int getPhase() {
+        return PHASE;
+    }
+
+    void warmUp() {
+        List<String> ids = readSnapshot();
+        if (ids.isEmpty()) {
+            log.info("Sin claves guardadas en {}: la caché de pacientes arranca vacía", file);
+            return;
+        }
+        long startedAt = System.nanoTime();
+        try {
+            Long loaded = cache.warmUp(ids, WARM_UP_BATCH_SIZE).block(warmUpTimeout);
+            log.info("Caché de pacientes precargada: {} de {} claves en {} ms", loaded, ids.size(),
+                    Duration.ofNanos(System.nanoTime() - startedAt).toMillis());
+        } catch (RuntimeException e) {
+            // Sin precarga la instancia funciona igual, solo con más carga inicial sobre la base de datos
+            log.warn("No se pudo precargar la caché de pacientes: {}", e.getMessage());
+        }
+    }
+
+    void snapshot() {
+        List<String> ids = cache.hottestIds(maxKeys);
+        if (ids.isEmpty()) {
+            return;
+        }
+        try {
+            Path parent = file.toAbsolutePath().getParent();
+            Files.createDirectories(parent);
+            Path temp = Files.createTempFile(parent, file.getFileName().toString(), ".tmp");
+            Files.write(temp, ids, StandardCharsets.UTF_8);
+            // Un archivo a medio escribir nunca reemplaza al anterior
+            Files.move(temp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            log.debug("Guardadas {} claves calientes de pacientes en {}", ids.size(), file);
+        } catch (IOException e) {
+            log.warn("No se pudieron guardar las claves calientes en {}: {}", file, e.getMessage());
+        }
+    }
+
+    private List<String> readSnapshot() {
+        if (!Files.isRegularFile(file)) {
+            return List.of();
+        }
+        try (Stream<String> lines = Files.lines(file, StandardCharsets.UTF_8)) {
+            return lines.map(String::trim)
+                    .filter(line -> !line.isEmpty())
+                    .limit(maxKeys)
+                    .toList();
+        } catch (IOException | RuntimeException e) {
+            log.warn("No se pudo leer {}: {}", file, e.getMessage());
+            return List.of();
+        }
+    }
+}
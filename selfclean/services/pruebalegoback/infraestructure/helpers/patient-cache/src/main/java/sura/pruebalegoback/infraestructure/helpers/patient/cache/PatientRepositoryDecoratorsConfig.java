@@ -0,0 +1,53 @@
+package sura.pruebalegoback.infraestructure.helpers.patient.cache;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
+import sura.pruebalegoback.domain.patient.gateway.PatientChangeFeed;
+import sura.pruebalegoback.domain.patient.gateway.PatientRepository;
+
+import java.nio.file.Path;
+import java.time.Duration;
+
+/**
+ * Arma el {@link PatientRepository} que reciben los casos de uso:
+ * caché (opcional) → single-flight → adaptador R2DBC.
+ * La caché se mantiene coherente entre instancias con las notificaciones de {@link PatientChangeFeed}.
+ */
+@Configuration
+public class PatientRepositoryDecoratorsConfig {
+
+    @Bean
+    @Primary
+    public PatientRepository patientRepository(@Qualifier("patientRepositoryAdapter") PatientRepository adapter,
+                                               PatientChangeFeed patientChangeFeed,
+                                               MeterRegistry meterRegistry,
+                                               @Value("${app.cache.patients.enabled:true}") boolean cacheEnabled,
+                                               @Value("${app.cache.patients.ttl:PT5M}") Duration ttl,
+                                               @Value("${app.cache.patients.max-size:10000}") long maxSize) {
+        PatientRepository repository = new SingleFlightPatientRepository(adapter, meterRegistry);
+        if (cacheEnabled) {
+            CachingPatientRepository caching = new CachingPatientRepository(repository, meterRegistry, ttl, maxSize);
+            caching.listen(patientChangeFeed);
+            repository = caching;
+        }
+        return repository;
+    }
+
+    // Sin caché o con el arranque en caliente deshabilitado no hay nada que guardar ni precargar
+    @Bean
+    public PatientCacheWarmer patientCacheWarmer(PatientRepository patientRepository,
+                                             @Value("${app.cache.patients.warm-start.enabled:true}") boolean enabled,
+                                             @Value("${app.cache.patients.warm-start.file:cache/patient-hot-keys.txt}") Path file,
+                                             @Value("${app.cache.patients.warm-start.max-keys:5000}") int maxKeys,
+                                             @Value("${app.cache.patients.warm-start.snapshot-interval:PT5M}") Duration snapshotInterval,
+                                             @Value("${app.cache.patients.warm-start.timeout:PT30S}") Duration timeout) {
+        CachingPatientRepository cache = enabled && patientRepository instanceof CachingPatientRepository caching
+                ? caching
+                : null;
+        return new PatientCacheWarmer(cache, file, maxKeys, snapshotInterval, timeout);
+    }
+}
@@ -0,0 +1,250 @@
+package sura.pruebalegoback.infraestructure.helpers.patient.cache;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import sura.pruebalegoback.domain.patient.Patient;
+import sura.pruebalegoback.domain.patient.PatientField;
+import sura.pruebalegoback.domain.patient.PatientSearchCriteria;
+import sura.pruebalegoback.domain.patient.gateway.PatientRepository;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Predicate;
+import java.util.function.Supplier;
+
+/**
+ * Decorador de {@link PatientRepository} que agrupa lecturas idénticas concurrentes (single-flight):
+ * mientras una consulta con el mismo método y argumentos está en curso, los nuevos suscriptores
+ * comparten su resultado en lugar de abrir otra consulta. Al terminar la consulta la entrada se descarta,
+ * así que no actúa como caché.
+ * <p>
+ * Solo se agrupan lecturas acotadas; los listados masivos o en streaming ({@code findAll},
+ * {@code findAllAsJson}, {@code findByActive}, {@code findByCity}, rangos de ingreso y búsquedas) y todas las
+ * escrituras pasan directo, porque compartirlos obligaría a retener todas sus filas en memoria. Los listados
+ * por ciudad repetidos ya los absorbe {@code PatientQueryCache}, acotada por tamaño de resultado.
+ * <p>
+ * Al terminar cada escritura se descartan las consultas en curso que podían incluir a los pacientes escritos:
+ * quienes ya estaban suscritos reciben su resultado, pero una lectura que llega después abre una consulta nueva
+ * en vez de unirse a una que empezó antes del cambio. Las consultas por documento y los conteos (también los
+ * de una ciudad) se descartan siempre, porque aquí no se conocen los valores anteriores del paciente.
+ */
+public class SingleFlightPatientRepository implements PatientRepository {
+
+    private static final Logger log = LoggerFactory.getLogger(SingleFlightPatientRepository.class);
+
+    private final PatientRepository delegate;
+    private final MeterRegistry meterRegistry;
+    private final ConcurrentMap<Key, Object> inFlight = new ConcurrentHashMap<>();
+    private final ConcurrentMap<String, Counter> coalescedCounters = new ConcurrentHashMap<>();
+
+    public SingleFlightPatientRepository(PatientRepository delegate, MeterRegistry meterRegistry) {
+        this.delegate = delegate;
+        this.meterRegistry = meterRegistry;
+    }
+
+    @Override
+    public Mono<Patient> findById(String id) {
+        return coalesce("findById", id, () -> delegate.findById(id));
+    }
+
+    @Override
+    public Mono<Patient> findArchivedById(String id) {
+        return coalesce("findArchivedById", id, () -> delegate.findArchivedById(id));
+    }
+
+    @Override
+    public Flux<Patient> findAllByIds(Collection<String> ids) {
+        return coalesceMany("findAllByIds", Set.copyOf(ids), () -> delegate.findAllByIds(ids));
+    }
+
+    @Override
+    public Flux<Patient> findByDocumentNumber(String documentNumber) {
+        return coalesceMany("findByDocumentNumber", documentNumber, () -> delegate.findByDocumentNumber(documentNumber));
+    }
+
+    @Override
+    public Mono<Long> countAll() {
+        return coalesce("countAll", "", delegate::countAll);
+    }
+
+    @Override
+    public Mono<Long> countByCity(String city) {
+        return coalesce("countByCity", city, () -> delegate.countByCity(city));
+    }
+
+    @Override
+    public Mono<Long> estimateCountAll() {
+        return coalesce("estimateCountAll", "", delegate::estimateCountAll);
+    }
+
+    @Override
+    public Mono<Long> estimateCountByCity(String city) {
+        return coalesce("estimateCountByCity", city, () -> delegate.estimateCountByCity(city));
+    }
+
+    @Override
+    public Flux<Patient> findAll() {
+        return delegate.findAll();
+    }
+
+    @Override
+    public Flux<byte[]> findAllAsJson() {
+        return delegate.findAllAsJson();
+    }
+
+    @Override
+    public Flux<Patient> findByActive(boolean active) {
+        return delegate.findByActive(active);
+    }
+
+    @Override
+    public Flux<Patient> findByCity(String city) {
+        return delegate.findByCity(city);
+    }
+
+    @Override
+    public Flux<Patient> findByAdmissionDateBetween(LocalDateTime from, LocalDateTime to) {
+        return delegate.findByAdmissionDateBetween(from, to);
+    }
+
+    @Override
+    public Flux<Patient> findAll(Set<PatientField> fields) {
+        return delegate.findAll(fields);
+    }
+
+    @Override
+    public Flux<Patient> findByActive(boolean active, Set<PatientField> fields) {
+        return delegate.findByActive(active, fields);
+    }
+
+    @Override
+    public Flux<Patient> findByCity(String city, Set<PatientField> fields) {
+        return delegate.findByCity(city, fields);
+    }
+
+    @Override
+    public Flux<Patient> findByAdmissionDateBetween(LocalDateTime from, LocalDateTime to, Set<PatientField> fields) {
+        return delegate.findByAdmissionDateBetween(from, to, fields);
+    }
+
+    @Override
+    public Flux<Patient> search(PatientSearchCriteria criteria) {
+        return delegate.search(criteria);
+    }
+
+    @Override
+    public Mono<Patient> save(Patient patient) {
+        return evictingAfter(delegate.save(patient), touching(Set.of(patient.getId())));
+    }
+
+    @Override
+    public Mono<Patient> update(Patient patient) {
+        return evictingAfter(delegate.update(patient), touching(Set.of(patient.getId())));
+    }
+
+    @Override
+    public Mono<Void> deleteById(String id) {
+        return evictingAfter(delegate.deleteById(id), touching(Set.of(id)));
+    }
+
+    @Override
+    public Flux<String> updateActiveByIds(Collection<String> ids, boolean active) {
+        return evictingAfter(delegate.updateActiveByIds(ids, active), touching(Set.copyOf(ids)));
+    }
+
+    // Escrituras masivas: los ids afectados no se conocen de antemano, se descarta todo lo que está en curso
+    @Override
+    public Flux<String> updateActiveByCity(String city, boolean active) {
+        return evictingAfter(delegate.updateActiveByCity(city, active), key -> true);
+    }
+
+    @Override
+    public Flux<String> archiveInactiveSince(LocalDateTime deactivatedBefore, int limit) {
+        return evictingAfter(delegate.archiveInactiveSince(deactivatedBefore, limit), key -> true);
+    }
+
+    @SuppressWarnings("unchecked")
+    private <T> Mono<T> coalesce(String method, Object argument, Supplier<Mono<T>> query) {
+        Key key = new Key(method, argument);
+        return Mono.defer(() -> (Mono<T>) join(key, () -> {
+            Mono<T>[] self = new Mono[1];
+            // share(): un único suscriptor aguas arriba; quien llegue tras el final recibe el mismo resultado
+            self[0] = query.get()
+                    .doFinally(signal -> inFlight.remove(key, self[0]))
+                    .share();
+            return self[0];
+        }));
+    }
+
+    @SuppressWarnings("unchecked")
+    private <T> Flux<T> coalesceMany(String method, Object argument, Supplier<Flux<T>> query) {
+        Key key = new Key(method, argument);
+        return Flux.defer(() -> (Flux<T>) join(key, () -> {
+            Flux<T>[] self = new Flux[1];
+            // replay(): quien se une a mitad de la consulta recibe también las filas ya emitidas;
+            // refCount(): si todos cancelan, se cancela la consulta y se libera la entrada
+            self[0] = query.get()
+                    .doFinally(signal -> inFlight.remove(key, self[0]))
+                    .replay()
+                    .refCount();
+            return self[0];
+        }));
+    }
+
+    private Object join(Key key, Supplier<Object> newFlight) {
+        AtomicBoolean created = new AtomicBoolean();
+        Object flight = inFlight.computeIfAbsent(key, k -> {
+            created.set(true);
+            return newFlight.get();
+        });
+        if (!created.get()) {
+            log.debug("Lectura {} agrupada con una consulta en curso", key.method());
+            coalescedCounters.computeIfAbsent(key.method(), this::coalescedCounter).increment();
+        }
+        return flight;
+    }
+
+    private Counter coalescedCounter(String method) {
+        return Counter.builder("patients.single-flight.coalesced")
+                .description("Lecturas que reutilizaron una consulta idéntica en curso")
+                .tag("method", method)
+                .register(meterRegistry);
+    }
+
+    // doOnTerminate y no doFinally: quien encadena una lectura tras la escritura se suscribe al recibir onComplete,
+    // así que las entradas tienen que salir antes. Una escritura cancelada pudo confirmarse igual
+    private <T> Mono<T> evictingAfter(Mono<T> write, Predicate<Key> affected) {
+        return write.doOnTerminate(() -> evict(affected))
+                .doOnCancel(() -> evict(affected));
+    }
+
+    private <T> Flux<T> evictingAfter(Flux<T> write, Predicate<Key> affected) {
+        return write.doOnTerminate(() -> evict(affected))
+                .doOnCancel(() -> evict(affected));
+    }
+
+    // Solo quita la entrada del mapa: la consulta sigue para quienes ya estaban suscritos
+    private void evict(Predicate<Key> affected) {
+        inFlight.keySet().removeIf(affected);
+    }
+
+    private static Predicate<Key> touching(Set<String> ids) {
+        return key -> switch (key.method()) {
+            case "findById", "findArchivedById" -> ids.contains(key.argument());
+            case "findAllByIds" -> !Collections.disjoint((Set<?>) key.argument(), ids);
+            default -> true;
+        };
+    }
+
+    private record Key(String method, Object argument) {
+    }
+}
@@ -0,0 +1,93 @@
+package sura.pruebalegoback.infraestructure.helpers.patient.cache;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import reactor.core.publisher.Flux;
+import reactor.test.StepVerifier;
+import sura.pruebalegoback.domain.patient.Patient;
+import sura.pruebalegoback.domain.patient.gateway.PatientRepository;
+
+import java.time.Duration;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+class BloomDocumentNumberFilterTest {
+
+    @Mock
+    private PatientRepository patientRepository;
+
+    private SimpleMeterRegistry meterRegistry;
+    private BloomDocumentNumberFilter filter;
+
+    @BeforeEach
+    void setUp() {
+        meterRegistry = new SimpleMeterRegistry();
+        filter = new BloomDocumentNumberFilter(patientRepository, meterRegistry, 1_000, 0.01, Duration.ofMinutes(10));
+    }
+
+    @Test
+    void shouldAnswerMaybePresentUntilBuilt() {
+        // Then
+        assertFalse(filter.isReady());
+        assertTrue(filter.mightContain("99999999"));
+        assertEquals(1.0, meterRegistry.get("patients.document-filter.checks")
+                .tag("result", "not_ready").counter().count());
+    }
+
+    @Test
+    void shouldRuleOutUnknownDocumentsOnceBuilt() {
+        // Given
+        when(patientRepository.findAll()).thenReturn(Flux.just(patient("1", "111"), patient("2", "222")));
+
+        // When
+        StepVerifier.create(filter.rebuild()).verifyComplete();
+
+        // Then
+        assertTrue(filter.isReady());
+        assertTrue(filter.mightContain("111"));
+        assertTrue(filter.mightContain("222"));
+        assertFalse(filter.mightContain("99999999"));
+        assertEquals(1.0, meterRegistry.get("patients.document-filter.checks")
+                .tag("result", "definite_miss").counter().count());
+    }
+
+    @Test
+    void shouldKeepDocumentsAddedWhileRebuilding() {
+        // Given
+        when(patientRepository.findAll()).thenReturn(Flux.defer(() -> {
+            filter.add("333");
+            return Flux.just(patient("1", "111"));
+        }));
+
+        // When
+        StepVerifier.create(filter.rebuild()).verifyComplete();
+
+        // Then
+        assertTrue(filter.mightContain("333"));
+    }
+
+    @Test
+    void shouldStayNotReadyWhenBuildFails() {
+        // Given
+        when(patientRepository.findAll()).thenReturn(Flux.error(new RuntimeException("Database error")));
+
+        // When
+        StepVerifier.create(filter.rebuild()).verifyComplete();
+
+        // Then
+        assertFalse(filter.isReady());
+        assertTrue(filter.mightContain("111"));
+    }
+
+    private Patient patient(String id, String documentNumber) {
+        return Patient.builder().id(id).documentNumber(documentNumber).active(true).build();
+    }
+}
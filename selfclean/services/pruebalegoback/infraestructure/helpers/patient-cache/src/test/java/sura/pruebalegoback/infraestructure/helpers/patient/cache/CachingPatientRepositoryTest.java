@@ -0,0 +1,191 @@
+package sura.pruebalegoback.infraestructure.helpers.patient.cache;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.Sinks;
+import reactor.test.StepVerifier;
+import sura.pruebalegoback.domain.patient.Patient;
+import sura.pruebalegoback.domain.patient.PatientChange;
+import sura.pruebalegoback.domain.patient.gateway.PatientRepository;
+
+import java.time.Duration;
+import java.time.LocalDate;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+class CachingPatientRepositoryTest {
+
+    @Mock
+    private PatientRepository delegate;
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+    private CachingPatientRepository repository;
+
+    @BeforeEach
+    void setUp() {
+        repository = new CachingPatientRepository(delegate, meterRegistry, Duration.ofMinutes(5), 100);
+    }
+
+    @Test
+    void shouldServeSecondReadFromCache() {
+        // Given
+        when(delegate.findById("1")).thenReturn(Mono.just(createTestPatient("1", 0L)));
+
+        // When
+        repository.findById("1").block();
+        var result = repository.findById("1");
+
+        // Then
+        StepVerifier.create(result)
+                .assertNext(patient -> assertEquals("1", patient.getId()))
+                .verifyComplete();
+        verify(delegate, times(1)).findById("1");
+    }
+
+    @Test
+    void shouldRefreshEntryAfterUpdate() {
+        // Given
+        Patient original = createTestPatient("1", 0L);
+        Patient updated = original.toBuilder().city("Bogotá").version(1L).build();
+        when(delegate.findById("1")).thenReturn(Mono.just(original));
+        when(delegate.update(updated)).thenReturn(Mono.just(updated));
+        repository.findById("1").block();
+
+        // When
+        repository.update(updated).block();
+        var result = repository.findById("1");
+
+        // Then
+        StepVerifier.create(result)
+                .assertNext(patient -> assertEquals("Bogotá", patient.getCity()))
+                .verifyComplete();
+        verify(delegate, times(1)).findById("1");
+    }
+
+    @Test
+    void shouldInvalidateEntriesChangedByBulkOperation() {
+        // Given
+        when(delegate.findById("1")).thenReturn(Mono.just(createTestPatient("1", 0L)));
+        when(delegate.updateActiveByIds(List.of("1"), false)).thenReturn(Flux.just("1"));
+        repository.findById("1").block();
+
+        // When
+        repository.updateActiveByIds(List.of("1"), false).blockLast();
+        repository.findById("1").block();
+
+        // Then
+        verify(delegate, times(2)).findById("1");
+    }
+
+    @Test
+    void shouldDropEntryChangedOnAnotherInstance() {
+        // Given
+        when(delegate.findById("1")).thenReturn(Mono.just(createTestPatient("1", 0L)));
+        repository.findById("1").block();
+
+        // When
+        repository.apply(new PatientChange(PatientChange.Type.UPDATE, "1", 1L, "12345678"));
+        repository.findById("1").block();
+
+        // Then
+        verify(delegate, times(2)).findById("1");
+    }
+
+    @Test
+    void shouldKeepEntryAlreadyAtNotifiedVersion() {
+        // Given
+        Patient updated = createTestPatient("1", 1L);
+        when(delegate.update(updated)).thenReturn(Mono.just(updated));
+        repository.update(updated).block();
+
+        // When
+        repository.apply(new PatientChange(PatientChange.Type.UPDATE, "1", 1L, "12345678"));
+        var result = repository.findById("1");
+
+        // Then
+        StepVerifier.create(result)
+                .assertNext(patient -> assertEquals(1L, patient.getVersion()))
+                .verifyComplete();
+        verify(delegate, times(0)).findById("1");
+    }
+
+    @Test
+    void shouldNotCacheSlowReadOlderThanNotifiedVersion() {
+        // Given
+        Sinks.One<Patient> slowRead = Sinks.one();
+        when(delegate.findById("1"))
+                .thenReturn(slowRead.asMono())
+                .thenReturn(Mono.just(createTestPatient("1", 1L)));
+        var pending = repository.findById("1").toFuture();
+
+        // When
+        repository.apply(new PatientChange(PatientChange.Type.UPDATE, "1", 1L, "12345678"));
+        slowRead.tryEmitValue(createTestPatient("1", 0L));
+        pending.join();
+        var result = repository.findById("1");
+
+        // Then
+        StepVerifier.create(result)
+                .assertNext(patient -> assertEquals(1L, patient.getVersion()))
+                .verifyComplete();
+        verify(delegate, times(2)).findById("1");
+    }
+
+    @Test
+    void shouldClearEverythingOnResync() {
+        // Given
+        when(delegate.findById("1")).thenReturn(Mono.just(createTestPatient("1", 0L)));
+        repository.findById("1").block();
+
+        // When
+        repository.apply(PatientChange.resync());
+        repository.findById("1").block();
+
+        // Then
+        verify(delegate, times(2)).findById("1");
+    }
+
+    @Test
+    void shouldCountRemoteChangesByType() {
+        // When
+        repository.apply(new PatientChange(PatientChange.Type.UPDATE, "1", 1L, "12345678"));
+        repository.apply(new PatientChange(PatientChange.Type.UPDATE, "2", 1L, "87654321"));
+        repository.apply(PatientChange.resync());
+
+        // Then
+        assertEquals(2.0, remoteChanges(PatientChange.Type.UPDATE));
+        assertEquals(1.0, remoteChanges(PatientChange.Type.RESYNC));
+        assertEquals(0.0, remoteChanges(PatientChange.Type.DELETE));
+    }
+
+    private double remoteChanges(PatientChange.Type type) {
+        return meterRegistry.get("patients.cache.remote-changes").tag("type", type.name()).counter().count();
+    }
+
+    private Patient createTestPatient(String id, Long version) {
+        return Patient.builder()
+                .id(id)
+                .firstName("John")
+                .lastName("Doe")
+                .documentNumber("12345678")
+                .documentType("CC")
+                .birthDate(LocalDate.of(1990, 1, 1))
+                .city("Medellín")
+                .state("Antioquia")
+                .active(true)
+                .version(version)
+                .build();
+    }
+}
@@ -0,0 +1,97 @@
+package sura.pruebalegoback.infraestructure.helpers.patient.cache;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.junit.jupiter.api.io.TempDir;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import sura.pruebalegoback.domain.patient.Patient;
+import sura.pruebalegoback.domain.patient.gateway.PatientRepository;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+class PatientCacheWarmerTest {
+
+    @Mock
+    private PatientRepository delegate;
+
+    @TempDir
+    Path tempDir;
+
+    private Path file;
+    private CachingPatientRepository cache;
+
+    @BeforeEach
+    void setUp() {
+        file = tempDir.resolve("patient-hot-keys.txt");
+        cache = new CachingPatientRepository(delegate, new SimpleMeterRegistry(), Duration.ofMinutes(5), 100);
+    }
+
+    @Test
+    void shouldSnapshotHotKeysToFile() throws Exception {
+        // Given
+        when(delegate.findById("1")).thenReturn(Mono.just(createTestPatient("1")));
+        cache.findById("1").block();
+
+        // When
+        warmer().snapshot();
+
+        // Then
+        assertEquals(List.of("1"), Files.readAllLines(file));
+    }
+
+    @Test
+    void shouldPreloadSavedKeysWithBulkQuery() throws Exception {
+        // Given
+        Files.write(file, List.of("1", "2"));
+        when(delegate.findAllByIds(List.of("1", "2")))
+                .thenReturn(Flux.just(createTestPatient("1"), createTestPatient("2")));
+
+        // When
+        warmer().warmUp();
+        cache.findById("1").block();
+        cache.findById("2").block();
+
+        // Then
+        verify(delegate, never()).findById("1");
+        verify(delegate, never()).findById("2");
+    }
+
+    @Test
+    void shouldStartColdWhenThereIsNoSnapshot() {
+        // When
+        warmer().warmUp();
+
+        // Then
+        assertFalse(Files.exists(file));
+    }
+
+    private PatientCacheWarmer warmer() {
+        return new PatientCacheWarmer(cache, file, 100, Duration.ofMinutes(5), Duration.ofSeconds(5));
+    }
+
+    private Patient createTestPatient(String id) {
+        return Patient.builder()
+                .id(id)
+                .firstName("John")
+                .lastName("Doe")
+                .documentNumber("12345678")
+                .active(true)
+                .version(0L)
+                .build();
+    }
+}
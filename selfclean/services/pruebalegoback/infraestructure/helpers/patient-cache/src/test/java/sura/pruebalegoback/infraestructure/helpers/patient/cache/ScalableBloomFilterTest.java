@@ -0,0 +1,58 @@
+package sura.pruebalegoback.infraestructure.helpers.patient.cache;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.stream.IntStream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class ScalableBloomFilterTest {
+
+    @Test
+    void shouldNeverReportFalseNegativesWhileGrowing() {
+        // Given
+        ScalableBloomFilter filter = new ScalableBloomFilter(1_000, 0.01);
+
+        // When
+        IntStream.range(0, 10_000).forEach(i -> filter.add("DOC-" + i));
+
+        // Then
+        assertTrue(filter.stageCount() > 1);
+        IntStream.range(0, 10_000).forEach(i -> assertTrue(filter.mightContain("DOC-" + i)));
+    }
+
+    @Test
+    void shouldKeepFalsePositiveRateWithinBound() {
+        // Given
+        ScalableBloomFilter filter = new ScalableBloomFilter(1_000, 0.01);
+        IntStream.range(0, 10_000).forEach(i -> filter.add("DOC-" + i));
+
+        // When
+        long falsePositives = IntStream.range(0, 100_000)
+                .filter(i -> filter.mightContain("OTHER-" + i))
+                .count();
+
+        // Then
+        assertTrue(falsePositives < 2_000, "falsos positivos: " + falsePositives);
+    }
+
+    @Test
+    void shouldNotCountRepeatedValuesTwice() {
+        // Given
+        ScalableBloomFilter filter = new ScalableBloomFilter(100, 0.01);
+
+        // When
+        filter.add("12345678");
+        filter.add("12345678");
+
+        // Then
+        assertEquals(1, filter.approximateElementCount());
+    }
+
+    @Test
+    void shouldRejectInvalidFalsePositiveRate() {
+        assertThrows(IllegalArgumentException.class, () -> new ScalableBloomFilter(100, 1.5));
+    }
+}
@@ -0,0 +1,176 @@
+package sura.pruebalegoback.infraestructure.helpers.patient.cache;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.Sinks;
+import reactor.test.StepVerifier;
+import sura.pruebalegoback.domain.patient.Patient;
+import sura.pruebalegoback.domain.patient.gateway.PatientRepository;
+
+import java.time.Duration;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+class SingleFlightPatientRepositoryTest {
+
+    @Mock
+    private PatientRepository delegate;
+
+    private SimpleMeterRegistry meterRegistry;
+    private SingleFlightPatientRepository repository;
+
+    @BeforeEach
+    void setUp() {
+        meterRegistry = new SimpleMeterRegistry();
+        repository = new SingleFlightPatientRepository(delegate, meterRegistry);
+    }
+
+    @Test
+    void shouldShareOneQueryBetweenConcurrentLookups() {
+        // Given
+        when(delegate.findById("1"))
+                .thenReturn(Mono.delay(Duration.ofMillis(50)).map(tick -> createTestPatient("1")));
+
+        // When
+        var result = Mono.zip(repository.findById("1"), repository.findById("1"), repository.findById("1"));
+
+        // Then
+        StepVerifier.create(result)
+                .assertNext(patients -> {
+                    assertEquals("1", patients.getT1().getId());
+                    assertEquals("1", patients.getT3().getId());
+                })
+                .verifyComplete();
+        verify(delegate, times(1)).findById("1");
+        assertEquals(2.0, meterRegistry.get("patients.single-flight.coalesced").counter().count());
+    }
+
+    @Test
+    void shouldQueryAgainOnceThePreviousLookupCompleted() {
+        // Given
+        when(delegate.findById("1")).thenReturn(Mono.just(createTestPatient("1")));
+
+        // When
+        repository.findById("1").block();
+        repository.findById("1").block();
+
+        // Then
+        verify(delegate, times(2)).findById("1");
+    }
+
+    @Test
+    void shouldReplayRowsToSubscribersJoiningAFluxInFlight() {
+        // Given
+        when(delegate.findByDocumentNumber("123"))
+                .thenReturn(Flux.just(createTestPatient("1"), createTestPatient("2")).delayElements(Duration.ofMillis(20)));
+
+        // When
+        var result = Flux.merge(repository.findByDocumentNumber("123"), repository.findByDocumentNumber("123")).count();
+
+        // Then
+        StepVerifier.create(result)
+                .expectNext(4L)
+                .verifyComplete();
+        verify(delegate, times(1)).findByDocumentNumber("123");
+    }
+
+    @Test
+    void shouldPassCityListingsStraightToTheDelegate() {
+        // Given
+        when(delegate.findByCity("Medellín"))
+                .thenReturn(Flux.just(createTestPatient("1")).delayElements(Duration.ofMillis(20)));
+
+        // When
+        var result = Flux.merge(repository.findByCity("Medellín"), repository.findByCity("Medellín")).count();
+
+        // Then
+        StepVerifier.create(result)
+                .expectNext(2L)
+                .verifyComplete();
+        verify(delegate, times(2)).findByCity("Medellín");
+    }
+
+    @Test
+    void shouldNotJoinALookupThatStartedBeforeAWrite() {
+        // Given
+        Sinks.One<Patient> slowLookup = Sinks.one();
+        when(delegate.findById("1")).thenReturn(slowLookup.asMono(), Mono.just(createTestPatient("1")));
+        when(delegate.update(any())).thenAnswer(invocation -> Mono.just(invocation.getArgument(0)));
+        List<Patient> beforeWrite = new ArrayList<>();
+        repository.findById("1").subscribe(beforeWrite::add);
+
+        // When
+        Patient afterWrite = repository.update(createTestPatient("1"))
+                .then(repository.findById("1"))
+                .block();
+
+        // Then
+        assertEquals("1", afterWrite.getId());
+        verify(delegate, times(2)).findById("1");
+        slowLookup.tryEmitValue(createTestPatient("1"));
+        assertEquals(1, beforeWrite.size());
+    }
+
+    @Test
+    void shouldKeepLookupsOfOtherPatientsInFlightAfterAWrite() {
+        // Given
+        when(delegate.findById("2"))
+                .thenReturn(Mono.delay(Duration.ofMillis(50)).map(tick -> createTestPatient("2")));
+        when(delegate.deleteById("1")).thenReturn(Mono.empty());
+
+        // When
+        var result = Mono.zip(repository.findById("2"),
+                repository.deleteById("1").then(repository.findById("2")));
+
+        // Then
+        StepVerifier.create(result)
+                .expectNextCount(1)
+                .verifyComplete();
+        verify(delegate, times(1)).findById("2");
+    }
+
+    @Test
+    void shouldDropInFlightDocumentLookupsAfterAnyWrite() {
+        // Given
+        when(delegate.findByDocumentNumber("123"))
+                .thenReturn(Flux.just(createTestPatient("1")).delayElements(Duration.ofMillis(50)));
+        when(delegate.save(any())).thenAnswer(invocation -> Mono.just(invocation.getArgument(0)));
+
+        // When
+        var result = Flux.merge(repository.findByDocumentNumber("123"),
+                repository.save(createTestPatient("3")).thenMany(repository.findByDocumentNumber("123"))).count();
+
+        // Then
+        StepVerifier.create(result)
+                .expectNext(2L)
+                .verifyComplete();
+        verify(delegate, times(2)).findByDocumentNumber("123");
+    }
+
+    private Patient createTestPatient(String id) {
+        return Patient.builder()
+                .id(id)
+                .firstName("John")
+                .lastName("Doe")
+                .documentNumber("12345678")
+                .documentType("CC")
+                .birthDate(LocalDate.of(1990, 1, 1))
+                .city("Medellín")
+                .active(true)
+                .build();
+    }
+}